@@ -1,11 +1,27 @@
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /** This class implements an array list.
   *
   * @author Mikayla Crawford
   */
-public class ArrayList<T> implements ArrayListInterface<T> {
+public class ArrayList<T> implements ArrayListInterface<T>, Iterable<T> {
   private T[] backingArray;
   private int size;
+  private PersistentVector<T> snapshot; //Last snapshot handed out, or null
+  private int snapshotValid; //Number of leading elements unchanged since the snapshot
 
   /**
    * Constructs a new ArrayList.
@@ -30,31 +46,10 @@ public class ArrayList<T> implements ArrayListInterface<T> {
     if (index < 0 || index > size) throw new IndexOutOfBoundsException("Cannot add data at an invalid index.");
     if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
 
-    //If list needs to be regrown
-    if (!isEmpty() && size % INITIAL_CAPACITY == 0) {
-      T[] newBack = (T[]) new Object[2*size];
-
-      //Loops through elements
-      for (int i = size; i >= 0; i--) {
-        if (i < index) {
-          newBack[i] = backingArray[i]; //Copies elements
-        } else if (i > index) {
-            newBack[i] = backingArray[i - 1]; //Shifts elements
-        } else if (i == index) {
-          newBack[index] = data; //adds new element
-        }
-      }
-
-      backingArray = newBack; //Updates backing array
-    } else {
-
-      //Shifts elements
-      for (int i = size; i > index; i--) {
-        backingArray[i] = backingArray[i - 1];
-      }
-
-      backingArray[index] = data; //Add new element
-    }
+    ensureCapacity(size + 1); //Regrows the list if it is full
+    invalidateSnapshot(index);
+    System.arraycopy(backingArray, index, backingArray, index + 1, size - index); //Shifts elements
+    backingArray[index] = data; //Adds new element
 
     size++; //Increases size
   }
@@ -69,37 +64,13 @@ public class ArrayList<T> implements ArrayListInterface<T> {
    * @throws java.lang.IllegalArgumentException if data is null.
    */
   public void addToFront(T data) {
-    //If data is null throws exception
-    if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
-
-    //If list needsto be regrown
-    if (!isEmpty() && size % INITIAL_CAPACITY == 0) {
-      T[] newBack = (T[]) new Object[2*size];
-
-      //Loops through the list and shifts if necessary
-      for (int i = size; i > 0; i--) {
-        newBack[i] = backingArray[i - 1];
-      }
-
-      newBack[0] = data; //Adds new element
-      backingArray = newBack;
-    } else {
-
-      //Loops through the list and shifts if necessary
-      for (int i = size; i > 0; i--) {
-        backingArray[i] = backingArray[i - 1];
-      }
-
-      backingArray[0] = data;
-    }
-
-    size++; //Increases size
+    addAtIndex(0, data);
   }
 
   /**
    * Add the given data to the back of the array list.
    *
-   * Is O(1).
+   * Is amortized O(1).
    *
    * @param data The data to add to the list.
    * @throws java.lang.IllegalArgumentException if data is null.
@@ -107,21 +78,35 @@ public class ArrayList<T> implements ArrayListInterface<T> {
   public void addToBack(T data) {
     if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
 
-    if (!isEmpty() && size % INITIAL_CAPACITY == 0) {
-      T[] newBack = (T[]) new Object[2*size];
+    if (size == backingArray.length) ensureCapacity(size + 1); //Regrows the list if it is full
 
-      //Updates new back
-      for (int i = 0; i < size; i++) {
-        newBack[i] = backingArray[i];
-      }
+    backingArray[size] = data; //Adds element
+    size++; //Increases size
+  }
+
+  /**
+   * Adds every element of the collection to the back of the array list, in
+   * the collection's iteration order. Grows the backing array at most once.
+   *
+   * Is O(m) for a collection of m elements.
+   *
+   * @param data The elements to add to the list.
+   * @throws java.lang.IllegalArgumentException if data is null or contains
+   * null. The list is unchanged in that case.
+   */
+  public void addAll(Collection<? extends T> data) {
+    if (data == null) throw new IllegalArgumentException("Cannot add null collection to data structure.");
+
+    Object[] elements = data.toArray();
 
-      newBack[size] = data; //Adds element
-      backingArray = newBack; //Resets backing array
-    } else {
-      backingArray[size] = data; //Adds element
+    //Checks every element before changing the list
+    for (Object element : elements) {
+      if (element == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
     }
 
-    size++; //Increases size
+    ensureCapacity(size + elements.length);
+    System.arraycopy(elements, 0, backingArray, size, elements.length); //Copies elements
+    size += elements.length;
   }
 
   /**
@@ -143,7 +128,7 @@ public class ArrayList<T> implements ArrayListInterface<T> {
   /**
    * Removes and returns the element at index. Elements are shifted if needed.
    *
-   * This method should be O(1) for index {@code size}, and O(n) in all other
+   * This method should be O(1) for index {@code size - 1}, and O(n) in all other
    * cases.
    *
    * @param index The index of the element
@@ -155,22 +140,79 @@ public class ArrayList<T> implements ArrayListInterface<T> {
     if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot remove data at an invalid index.");
     T temp = backingArray[index]; //The old element
 
-    if (index == (size - 1)) { //End of the list
-      backingArray[index] = null; //Reset value
-    } else { //Have to shift list
-      //Loops through the list
-      for (int i = index; i < size - 1; i++) {
-        backingArray[i] = backingArray[i + 1]; //Shifts elements
-      }
-
-      backingArray[size - 1] = null; //Resets last element
-    }
+    invalidateSnapshot(index);
+    System.arraycopy(backingArray, index + 1, backingArray, index, size - index - 1); //Shifts elements
+    backingArray[size - 1] = null; //Resets last element
 
     size--; //Decreases the size
 
     return temp;
   }
 
+  /**
+   * Removes the elements from index {@code from}, inclusive, to index
+   * {@code to}, exclusive, shifting later elements down in one block copy.
+   *
+   * Is O(n - from).
+   *
+   * @param from The index of the first element to remove.
+   * @param to The index after the last element to remove.
+   * @throws java.lang.IndexOutOfBoundsException if from < 0, to > size or
+   * from > to.
+   */
+  public void removeRange(int from, int to) {
+    if (from < 0 || to > size || from > to) throw new IndexOutOfBoundsException("Cannot remove data at an invalid range.");
+    if (from == to) return;
+
+    invalidateSnapshot(from);
+    System.arraycopy(backingArray, to, backingArray, from, size - to); //Shifts elements
+    Arrays.fill(backingArray, size - (to - from), size, null); //Resets the vacated elements
+
+    size -= to - from; //Decreases the size
+  }
+
+  /**
+   * Removes every element that matches the filter. The filter is called once
+   * per element, in order, before anything is removed. The surviving
+   * elements are then moved down in runs, one block copy per run.
+   *
+   * Is O(n).
+   *
+   * @param filter Returns true for the elements to remove.
+   * @return true if any element was removed; false otherwise
+   * @throws java.lang.IllegalArgumentException if filter is null.
+   */
+  public boolean removeIf(Predicate<? super T> filter) {
+    if (filter == null) throw new IllegalArgumentException("Cannot filter with null predicate.");
+
+    BitSet removed = new BitSet(size);
+
+    //Marks the elements to remove, leaving the list untouched if the filter throws
+    for (int i = 0; i < size; i++) {
+      if (filter.test(backingArray[i])) removed.set(i);
+    }
+
+    int write = removed.nextSetBit(0);
+    if (write < 0) return false;
+
+    invalidateSnapshot(write);
+
+    //Copies each run of surviving elements down
+    for (int run = removed.nextClearBit(write); run < size; ) {
+      int end = removed.nextSetBit(run);
+      if (end < 0) end = size;
+
+      System.arraycopy(backingArray, run, backingArray, write, end - run);
+      write += end - run;
+      run = removed.nextClearBit(end);
+    }
+
+    Arrays.fill(backingArray, write, size, null); //Resets the vacated elements
+    size = write;
+
+    return true;
+  }
+
   /**
    * Remove the first element in the list and return it. Returns null if the
    * list is empty. Shifts elements if needed.
@@ -181,18 +223,8 @@ public class ArrayList<T> implements ArrayListInterface<T> {
    */
   public T removeFromFront() {
     if (isEmpty()) return null; //Returns null if list is empty
-    T temp = backingArray[0]; //The old element
-
-    //Loops through the list
-    for (int i = 0; i < size - 1; i++) {
-      backingArray[i] = backingArray[i + 1]; //Shifts elements
-    }
 
-    backingArray[size - 1] = null; //Resets last element
-
-    size--; //Decreases size
-
-    return temp;
+    return removeAtIndex(0);
   }
 
   /**
@@ -205,8 +237,9 @@ public class ArrayList<T> implements ArrayListInterface<T> {
    */
   public T removeFromBack() {
     if (this.isEmpty()) return null;
-    T temp = backingArray[0]; //The old element
+    T temp = backingArray[size - 1]; //The old element
 
+    invalidateSnapshot(size - 1);
     backingArray[size - 1] = null;
 
     size--; //Decreases size
@@ -245,6 +278,161 @@ public class ArrayList<T> implements ArrayListInterface<T> {
   public void clear() {
     backingArray = (T[]) new Object[backingArray.length]; //Resets the backing array
     size = 0; //Resets the size
+    invalidateSnapshot(0);
+  }
+
+  /**
+   * Grows the backing array, if needed, so that it holds at least the given
+   * number of elements. The array at least doubles each time it grows, so
+   * adding n elements copies O(n) elements in total.
+   *
+   * @param minCapacity The number of elements to make room for.
+   */
+  public void ensureCapacity(int minCapacity) {
+    if (minCapacity <= backingArray.length) return;
+    if (minCapacity > Integer.MAX_VALUE - 8) throw new OutOfMemoryError("List exceeds maximum array length.");
+
+    int newCapacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(INITIAL_CAPACITY, 2L * backingArray.length));
+    backingArray = Arrays.copyOf(backingArray, Math.max(newCapacity, minCapacity));
+  }
+
+  /**
+   * Shrinks the backing array to the size of the list.
+   *
+   * Is O(n).
+   */
+  public void trimToSize() {
+    if (size < backingArray.length) backingArray = Arrays.copyOf(backingArray, size);
+  }
+
+  /**
+   * Returns an immutable snapshot of the list that later changes to the list
+   * do not affect.
+   *
+   * The first snapshot converts the whole list in O(n). After that, the list
+   * remembers how many leading elements are unchanged since the last
+   * snapshot, and the next snapshot shares them with it. A snapshot costs
+   * O(1) if the list has not changed, O(k) after k appends, and otherwise
+   * O(log32 n) plus the number of elements at or after the first changed
+   * index. Changes made through the backing array are not tracked.
+   *
+   * @return a persistent vector holding the elements of the list
+   */
+  public PersistentVector<T> snapshot() {
+    if (snapshot != null && snapshotValid == size && snapshot.size() == size) return snapshot;
+
+    PersistentVector<T> base = snapshot == null ? PersistentVector.empty() : snapshot.take(snapshotValid);
+    PersistentVector.Transient<T> result = base.asTransient();
+
+    //Appends the elements added or moved since the last snapshot
+    for (int i = snapshotValid; i < size; i++) {
+      result.append(backingArray[i]);
+    }
+
+    snapshot = result.persistent();
+    snapshotValid = size;
+
+    return snapshot;
+  }
+
+  /**
+   * Returns an iterator over the elements of the list, from front to back.
+   *
+   * @return an iterator over the elements of the list
+   */
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private final T[] expectedArray = backingArray;
+      private final int expectedSize = size;
+      private int index;
+
+      public boolean hasNext() {
+        return index < expectedSize;
+      }
+
+      public T next() {
+        if (backingArray != expectedArray || size != expectedSize) throw new ConcurrentModificationException();
+        if (index >= expectedSize) throw new NoSuchElementException("Iterator has no more elements.");
+
+        return expectedArray[index++];
+      }
+    };
+  }
+
+  /**
+   * Performs the given action on every element, from front to back, reading
+   * the backing array directly.
+   *
+   * @param action the action to perform on each element
+   * @throws IllegalArgumentException if action is null
+   * @throws java.util.ConcurrentModificationException if the action adds or
+   * removes elements
+   */
+  public void forEach(Consumer<? super T> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on list.");
+    T[] expectedArray = backingArray;
+    int expectedSize = size;
+
+    for (int i = 0; i < expectedSize; i++) {
+      action.accept(expectedArray[i]);
+    }
+
+    if (backingArray != expectedArray || size != expectedSize) throw new ConcurrentModificationException();
+  }
+
+  /**
+   * Returns a spliterator over the elements of the list. It splits the
+   * remaining range of the backing array in half, so every split knows its
+   * exact size and parallel scans get balanced work.
+   *
+   * @return a spliterator over the elements of the list
+   */
+  public Spliterator<T> spliterator() {
+    return new ElementSpliterator(0, -1);
+  }
+
+  /**
+   * Returns a stream over the elements of the list.
+   *
+   * @param parallel whether the stream should be parallel
+   * @return a stream of the list's elements
+   */
+  public Stream<T> stream(boolean parallel) {
+    return StreamSupport.stream(spliterator(), parallel);
+  }
+
+  /**
+   * Performs the given action on every element in parallel on the common
+   * fork-join pool. The action may be called from several threads at once
+   * and in no particular order.
+   *
+   * @param action the action to perform on each element
+   * @throws IllegalArgumentException if action is null
+   */
+  public void parallelForEach(Consumer<? super T> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on list.");
+
+    stream(true).forEach(action);
+  }
+
+  /**
+   * Reduces the elements in parallel on the common fork-join pool. Each
+   * split of the list is folded into a result with the accumulator, starting
+   * from identity, and the results of the splits are then merged in order
+   * with the combiner.
+   *
+   * @param identity the result for an empty split; must be an identity for
+   * the combiner
+   * @param accumulator folds one element into a partial result
+   * @param combiner merges two partial results; must be associative
+   * @param <R> the type of the result
+   * @return the reduced result
+   * @throws IllegalArgumentException if accumulator or combiner is null
+   */
+  public <R> R parallelReduce(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner) {
+    if (accumulator == null || combiner == null) throw new IllegalArgumentException("Cannot reduce list with null function.");
+
+    return stream(true).reduce(identity, accumulator, combiner);
   }
 
   /**
@@ -255,4 +443,90 @@ public class ArrayList<T> implements ArrayListInterface<T> {
   public Object[] getBackingArray() {
       return backingArray;
   }
+
+  /**
+   * Records that the elements from the given index on may no longer match
+   * the last snapshot.
+   *
+   * @param index the first index that changed
+   */
+  private void invalidateSnapshot(int index) {
+    if (index < snapshotValid) snapshotValid = index;
+  }
+
+  /**
+   * Spliterator over a range of the backing array. The array and size are
+   * captured on first use, and any change to either afterwards fails the
+   * traversal.
+   */
+  private final class ElementSpliterator implements Spliterator<T> {
+    private T[] expectedArray;
+    private int expectedSize;
+    private int index; //Next element to visit
+    private int fence; //One past the last element, or -1 until first use
+
+    ElementSpliterator(int origin, int fence) {
+      this.index = origin;
+      this.fence = fence;
+    }
+
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (action == null) throw new IllegalArgumentException("Cannot perform null action on list.");
+      if (index >= getFence()) return false;
+
+      action.accept(expectedArray[index++]);
+      checkForModification();
+      return true;
+    }
+
+    public void forEachRemaining(Consumer<? super T> action) {
+      if (action == null) throw new IllegalArgumentException("Cannot perform null action on list.");
+      int end = getFence();
+
+      for (; index < end; index++) {
+        action.accept(expectedArray[index]);
+      }
+
+      checkForModification();
+    }
+
+    public Spliterator<T> trySplit() {
+      int end = getFence();
+      int mid = (index + end) >>> 1;
+
+      if (mid <= index) return null;
+
+      ElementSpliterator prefix = new ElementSpliterator(index, mid);
+      prefix.expectedArray = expectedArray;
+      prefix.expectedSize = expectedSize;
+      index = mid;
+
+      return prefix;
+    }
+
+    public long estimateSize() {
+      return getFence() - index;
+    }
+
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+    }
+
+    /**
+     * Binds the spliterator to the current array and size on first use.
+     */
+    private int getFence() {
+      if (fence < 0) {
+        expectedArray = backingArray;
+        expectedSize = size;
+        fence = size;
+      }
+
+      return fence;
+    }
+
+    private void checkForModification() {
+      if (backingArray != expectedArray || size != expectedSize) throw new ConcurrentModificationException();
+    }
+  }
 }
@@ -0,0 +1,362 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * List of fixed-width records indexed by long, so it can hold more than
+ * 2^31 elements.
+ *
+ * The records are split over segments. Each segment is a ByteBuffer holding
+ * a power-of-two number of records and at most 1 GB. The segment of an index
+ * is found with a shift and its offset with a mask. Elements are encoded
+ * with a {@link RecordCodec}, so nothing is kept on the Java heap.
+ *
+ * A list either lives in direct buffers, or in a file that each segment is
+ * memory-mapped from. A file-backed list can be reopened without reading
+ * anything: records are only decoded when they are looked up. The file is
+ * laid out as a header followed by the records in order. Mapping a segment
+ * extends the file to the end of that segment, and the unwritten part of
+ * the file is left sparse on file systems that support it.
+ */
+public class BigList<T> implements Closeable {
+  private static final int MAGIC = 0x4247_4C31; //"BGL1"
+  private static final int HEADER_BYTES = 32;
+  private static final int MAX_SEGMENT_BYTES = 1 << 30;
+  private static final int INITIAL_SEGMENTS = 4;
+
+  //Header field offsets
+  private static final int WIDTH_OFFSET = 4;
+  private static final int SHIFT_OFFSET = 8;
+  private static final int SIZE_OFFSET = 16;
+
+  private final RecordCodec<T> codec;
+  private final int width;
+  private final int shift;
+  private final long mask;
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+  private ByteBuffer[] segments;
+  private int segmentCount;
+  private long size;
+
+  /**
+   * Constructs a new, empty BigList in direct buffers. The first segment
+   * starts at {@code INITIAL_CAPACITY} records and doubles until it reaches
+   * its full length. Later segments are allocated at full length.
+   *
+   * @param codec codec for the elements
+   * @throws IllegalArgumentException if codec is null
+   */
+  public BigList(RecordCodec<T> codec) {
+    this(codec, segmentShiftFor(codec));
+  }
+
+  /**
+   * Constructs a new, empty BigList in direct buffers with segments of
+   * {@code 2^segmentShift} records. Used for testing.
+   *
+   * @param codec codec for the elements
+   * @param segmentShift log2 of the number of records in each segment
+   * @throws IllegalArgumentException if codec is null or the segments would
+   * exceed 1 GB
+   */
+  BigList(RecordCodec<T> codec, int segmentShift) {
+    if (codec == null) throw new IllegalArgumentException("Cannot create list with null codec.");
+    checkShift(codec.width(), segmentShift);
+
+    this.codec = codec;
+    this.width = codec.width();
+    this.shift = segmentShift;
+    this.mask = (1L << segmentShift) - 1;
+    this.channel = null;
+    this.header = null;
+    clear();
+  }
+
+  /**
+   * Opens the list stored in the given file, creating an empty one if the
+   * file does not exist.
+   *
+   * @param path the file holding the list
+   * @param codec codec for the elements
+   * @throws IllegalArgumentException if path or codec is null
+   * @throws IOException if the file cannot be opened, is not a list, or holds
+   * records of a different width
+   */
+  public BigList(Path path, RecordCodec<T> codec) throws IOException {
+    this(path, codec, segmentShiftFor(codec));
+  }
+
+  /**
+   * Opens the list stored in the given file, creating an empty one with
+   * segments of {@code 2^segmentShift} records if the file does not exist.
+   * An existing file keeps the segment length it was created with. Used for
+   * testing.
+   *
+   * @param path the file holding the list
+   * @param codec codec for the elements
+   * @param segmentShift log2 of the number of records in each segment
+   * @throws IllegalArgumentException if path or codec is null, or the
+   * segments would exceed 1 GB
+   * @throws IOException if the file cannot be opened, is not a list, or holds
+   * records of a different width
+   */
+  BigList(Path path, RecordCodec<T> codec, int segmentShift) throws IOException {
+    if (path == null) throw new IllegalArgumentException("Cannot open list at null path.");
+    if (codec == null) throw new IllegalArgumentException("Cannot create list with null codec.");
+
+    this.codec = codec;
+    this.width = codec.width();
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    try {
+      boolean created = channel.size() == 0;
+
+      if (!created && channel.size() < HEADER_BYTES) throw new IOException("File is not a list: " + path);
+
+      this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+
+      if (created) {
+        header.putInt(0, MAGIC);
+        header.putInt(WIDTH_OFFSET, width);
+        header.putInt(SHIFT_OFFSET, segmentShift);
+        header.putLong(SIZE_OFFSET, 0);
+      } else {
+        if (header.getInt(0) != MAGIC) throw new IOException("File is not a list: " + path);
+        if (header.getInt(WIDTH_OFFSET) != width) throw new IOException("List holds records of " + header.getInt(WIDTH_OFFSET) + " bytes, not " + width + ".");
+      }
+
+      checkShift(width, header.getInt(SHIFT_OFFSET));
+      this.shift = header.getInt(SHIFT_OFFSET);
+      this.mask = (1L << shift) - 1;
+      this.size = header.getLong(SIZE_OFFSET);
+
+      long needed = (size + mask) >>> shift;
+      segments = new ByteBuffer[(int) Math.max(INITIAL_SEGMENTS, needed)];
+
+      //Maps the segments that already hold records
+      while (segmentCount < needed) {
+        addSegment();
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Adds the given data to the back of the list.
+   *
+   * Is amortized O(1).
+   *
+   * @param data The data to add to the list.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   * @throws java.io.UncheckedIOException if a new segment cannot be mapped.
+   */
+  public void append(T data) {
+    if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+
+    int segment = (int) (size >>> shift);
+    int offset = (int) (size & mask) * width;
+
+    if (segment == segmentCount) {
+      addSegment();
+    } else if (offset == segments[segment].capacity()) { //Only the first in-memory segment can be short
+      growFirstSegment();
+    }
+
+    codec.write(data, segments[segment], offset);
+    size++;
+
+    if (header != null) header.putLong(SIZE_OFFSET, size); //Record is complete before the size covers it
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * Is O(1).
+   *
+   * @param index The index of the element
+   * @return The data stored at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public T get(long index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+
+    return codec.read(segments[(int) (index >>> shift)], (int) (index & mask) * width);
+  }
+
+  /**
+   * Replaces the element at the given index.
+   *
+   * Is O(1).
+   *
+   * @param index The index of the element
+   * @param data The new element.
+   * @return The data formerly at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public T set(long index, T data) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+    if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+
+    ByteBuffer segment = segments[(int) (index >>> shift)];
+    int offset = (int) (index & mask) * width;
+    T old = codec.read(segment, offset);
+
+    codec.write(data, segment, offset);
+    return old;
+  }
+
+  /**
+   * Return a boolean value representing whether or not the list is empty.
+   *
+   * Is O(1).
+   *
+   * @return true if empty; false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Return the size of the list as a long.
+   *
+   * Is O(1).
+   *
+   * @return The size of the list.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Clear the list. An in-memory list drops its segments and starts over
+   * with a short first segment. A file-backed list keeps its file and
+   * mappings, and later appends overwrite the old records.
+   *
+   * Is O(1).
+   */
+  public void clear() {
+    size = 0;
+
+    if (header != null) {
+      header.putLong(SIZE_OFFSET, 0);
+    } else {
+      segments = new ByteBuffer[INITIAL_SEGMENTS];
+      segmentCount = 0;
+    }
+  }
+
+  /**
+   * Returns the number of records in each segment.
+   *
+   * @return the segment length, a power of two
+   */
+  public int getSegmentLength() {
+    return (int) mask + 1;
+  }
+
+  /**
+   * Forces every change to a file-backed list to disk, records first. Does
+   * nothing for an in-memory list.
+   */
+  public void sync() {
+    if (header == null) return;
+
+    for (int i = 0; i < segmentCount; i++) {
+      ((MappedByteBuffer) segments[i]).force();
+    }
+
+    header.force();
+  }
+
+  /**
+   * Syncs the list and closes its file. The list must not be used
+   * afterwards. The mappings stay valid until they are garbage collected.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  public void close() throws IOException {
+    if (channel == null) return;
+
+    sync();
+    channel.close();
+  }
+
+  /**
+   * Adds a segment after the last one, either mapped from the file or
+   * allocated directly. The first in-memory segment starts short.
+   */
+  private void addSegment() {
+    if (segmentCount == segments.length) {
+      ByteBuffer[] newSegments = new ByteBuffer[2 * segments.length];
+
+      System.arraycopy(segments, 0, newSegments, 0, segmentCount);
+      segments = newSegments;
+    }
+
+    int segmentBytes = (int) (mask + 1) * width;
+
+    if (channel != null) {
+      try {
+        segments[segmentCount] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + (long) segmentCount * segmentBytes, segmentBytes);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else if (segmentCount == 0) {
+      segments[0] = ByteBuffer.allocateDirect((int) Math.min(mask + 1, ArrayListInterface.INITIAL_CAPACITY) * width);
+    } else {
+      segments[segmentCount] = ByteBuffer.allocateDirect(segmentBytes);
+    }
+
+    segmentCount++;
+  }
+
+  /**
+   * Doubles the first in-memory segment, up to the full segment length.
+   */
+  private void growFirstSegment() {
+    ByteBuffer old = segments[0];
+    ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min((mask + 1) * width, 2L * old.capacity()));
+
+    grown.put(old.duplicate().clear());
+    segments[0] = grown;
+  }
+
+  /**
+   * Picks the largest power-of-two segment length whose records fit in 1 GB.
+   *
+   * @param codec codec for the elements
+   * @return log2 of the number of records in each segment
+   * @throws IllegalArgumentException if codec is null or its width is not
+   * positive
+   */
+  private static int segmentShiftFor(RecordCodec<?> codec) {
+    if (codec == null) throw new IllegalArgumentException("Cannot create list with null codec.");
+    if (codec.width() <= 0) throw new IllegalArgumentException("Cannot create list with records of non-positive width.");
+
+    return 31 - Integer.numberOfLeadingZeros(MAX_SEGMENT_BYTES / codec.width());
+  }
+
+  /**
+   * Checks that segments of the given length hold at least one record and
+   * fit in 1 GB.
+   *
+   * @param width the record width
+   * @param segmentShift log2 of the number of records in each segment
+   * @throws IllegalArgumentException if the segment length is out of range
+   */
+  private static void checkShift(int width, int segmentShift) {
+    if (width <= 0) throw new IllegalArgumentException("Cannot create list with records of non-positive width.");
+    if (segmentShift < 0 || segmentShift > 30 || ((long) width << segmentShift) > MAX_SEGMENT_BYTES) throw new IllegalArgumentException("Cannot create list with segments over 1 GB.");
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ * Array list backed by a circular buffer.
+ *
+ * The elements start at a head offset and wrap around the end of the backing
+ * array, so adding or removing at either end moves no other element: both
+ * are amortized O(1). Adding or removing in the middle shifts whichever side
+ * of the index is shorter, so it moves at most half the elements.
+ */
+public class CircularArrayList<T> implements ArrayListInterface<T> {
+  private T[] backingArray;
+  private int head;
+  private int size;
+
+  /**
+   * Constructs a new CircularArrayList.
+   */
+  public CircularArrayList() {
+    backingArray = (T[]) new Object[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Adds the element to the index specified, shifting the elements before
+   * or after it, whichever are fewer.
+   *
+   * Adding to index 0 or {@code size} is amortized O(1), all other adds are
+   * O(min(index, size - index)).
+   *
+   * @param index The index where you want the new element.
+   * @param data Any object of type T.
+   * @throws java.lang.IndexOutOfBoundsException if index is negative
+   * or index > size.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public void addAtIndex(int index, T data) {
+    if (index < 0 || index > size) throw new IndexOutOfBoundsException("Cannot add data at an invalid index.");
+    if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+
+    if (size == backingArray.length) grow();
+
+    if (index < size - index) { //Shifts the front part one slot back
+      head = physical(backingArray.length - 1);
+
+      for (int i = 0; i < index; i++) {
+        backingArray[physical(i)] = backingArray[physical(i + 1)];
+      }
+    } else { //Shifts the back part one slot forward
+      for (int i = size; i > index; i--) {
+        backingArray[physical(i)] = backingArray[physical(i - 1)];
+      }
+    }
+
+    backingArray[physical(index)] = data;
+    size++;
+  }
+
+  /**
+   * Add the given data to the front of the list.
+   *
+   * Is amortized O(1).
+   *
+   * @param data The data to add to the list.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public void addToFront(T data) {
+    addAtIndex(0, data);
+  }
+
+  /**
+   * Add the given data to the back of the list.
+   *
+   * Is amortized O(1).
+   *
+   * @param data The data to add to the list.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public void addToBack(T data) {
+    addAtIndex(size, data);
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * Is O(1).
+   *
+   * @param index The index of the element
+   * @return The data stored at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public T get(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+
+    return backingArray[physical(index)];
+  }
+
+  /**
+   * Removes and returns the element at index, shifting the elements before
+   * or after it, whichever are fewer.
+   *
+   * Is O(1) for index 0 and {@code size - 1}, and
+   * O(min(index, size - index)) in all other cases.
+   *
+   * @param index The index of the element
+   * @return The object that was formerly at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public T removeAtIndex(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot remove data at an invalid index.");
+
+    T temp = backingArray[physical(index)];
+
+    if (index < size - 1 - index) { //Shifts the front part one slot forward
+      for (int i = index; i > 0; i--) {
+        backingArray[physical(i)] = backingArray[physical(i - 1)];
+      }
+
+      backingArray[head] = null;
+      head = physical(1);
+    } else { //Shifts the back part one slot back
+      for (int i = index; i < size - 1; i++) {
+        backingArray[physical(i)] = backingArray[physical(i + 1)];
+      }
+
+      backingArray[physical(size - 1)] = null;
+    }
+
+    size--;
+    return temp;
+  }
+
+  /**
+   * Remove the first element in the list and return it. Returns null if the
+   * list is empty.
+   *
+   * Is O(1).
+   *
+   * @return The data from the front of the list or null.
+   */
+  public T removeFromFront() {
+    return isEmpty() ? null : removeAtIndex(0);
+  }
+
+  /**
+   * Remove the last element in the list and return it. Returns null if the
+   * list is empty.
+   *
+   * Is O(1).
+   *
+   * @return The data from the back of the list or null.
+   */
+  public T removeFromBack() {
+    return isEmpty() ? null : removeAtIndex(size - 1);
+  }
+
+  /**
+   * Return a boolean value representing whether or not the list is empty.
+   *
+   * Is O(1).
+   *
+   * @return true if empty; false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Return the size of the list as an integer.
+   *
+   * Is O(1).
+   *
+   * @return The size of the list.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Clear the list. Reset the backing array to a new array of the initial
+   * capacity.
+   *
+   * Is O(1).
+   */
+  public void clear() {
+    backingArray = (T[]) new Object[INITIAL_CAPACITY];
+    head = 0;
+    size = 0;
+  }
+
+  /**
+   * Return the backing array for this list. Used for testing.
+   *
+   * The elements start at the head offset and may wrap around the end of
+   * the array.
+   *
+   * @return the backing array for this list
+   */
+  public Object[] getBackingArray() {
+    return backingArray;
+  }
+
+  /**
+   * Doubles the backing array, unwrapping the elements so that the head is
+   * back at index 0.
+   */
+  private void grow() {
+    T[] newBack = (T[]) new Object[Math.max(INITIAL_CAPACITY, 2 * backingArray.length)];
+    int firstPart = Math.min(size, backingArray.length - head);
+
+    System.arraycopy(backingArray, head, newBack, 0, firstPart);
+    System.arraycopy(backingArray, 0, newBack, firstPart, size - firstPart);
+
+    backingArray = newBack;
+    head = 0;
+  }
+
+  /**
+   * Maps a list index to its slot in the backing array.
+   *
+   * @param index the list index, between 0 and the array length
+   * @return the slot of the element
+   */
+  private int physical(int index) {
+    int slot = head + index;
+    return slot >= backingArray.length ? slot - backingArray.length : slot;
+  }
+}
@@ -0,0 +1,266 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Array list of primitive doubles.
+ *
+ * Elements are stored directly in a double array, so nothing is boxed and a
+ * scan reads contiguous memory. Offers the operations of ArrayListInterface
+ * with primitive signatures, plus bulk adds and range copies. The backing
+ * array grows by half its length at a time, so appends are amortized O(1),
+ * and {@link #trimToSize()} gives back unused capacity.
+ */
+public class DoubleArrayList {
+  private double[] backingArray;
+  private int size;
+
+  /**
+   * Constructs a new DoubleArrayList with {@code INITIAL_CAPACITY} capacity.
+   */
+  public DoubleArrayList() {
+    this(ArrayListInterface.INITIAL_CAPACITY);
+  }
+
+  /**
+   * Constructs a new DoubleArrayList with the given capacity.
+   *
+   * @param initialCapacity number of elements the list holds before growing
+   * @throws java.lang.IllegalArgumentException if initialCapacity is negative
+   */
+  public DoubleArrayList(int initialCapacity) {
+    if (initialCapacity < 0) throw new IllegalArgumentException("Cannot create list with negative capacity.");
+
+    backingArray = new double[initialCapacity];
+  }
+
+  /**
+   * Adds the element to the index specified, shifting later elements up.
+   *
+   * Adding to index {@code size} is amortized O(1), all other adds are O(n).
+   *
+   * @param index The index where you want the new element.
+   * @param data The element to add.
+   * @throws java.lang.IndexOutOfBoundsException if index is negative
+   * or index > size.
+   */
+  public void addAtIndex(int index, double data) {
+    if (index < 0 || index > size) throw new IndexOutOfBoundsException("Cannot add data at an invalid index.");
+
+    ensureCapacity(size + 1);
+    System.arraycopy(backingArray, index, backingArray, index + 1, size - index);
+    backingArray[index] = data;
+    size++;
+  }
+
+  /**
+   * Add the given element to the front of the list, shifting every element.
+   *
+   * Is O(n).
+   *
+   * @param data The element to add.
+   */
+  public void addToFront(double data) {
+    addAtIndex(0, data);
+  }
+
+  /**
+   * Add the given element to the back of the list.
+   *
+   * Is amortized O(1).
+   *
+   * @param data The element to add.
+   */
+  public void addToBack(double data) {
+    if (size == backingArray.length) ensureCapacity(size + 1);
+
+    backingArray[size++] = data;
+  }
+
+  /**
+   * Adds every element of the array to the back of the list, growing the
+   * backing array at most once.
+   *
+   * @param data The elements to add.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public void addAll(double[] data) {
+    if (data == null) throw new IllegalArgumentException("Cannot add null array to data structure.");
+
+    ensureCapacity(size + data.length);
+    System.arraycopy(data, 0, backingArray, size, data.length);
+    size += data.length;
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * Is O(1).
+   *
+   * @param index The index of the element
+   * @return The element stored at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public double get(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+
+    return backingArray[index];
+  }
+
+  /**
+   * Replaces the element at the given index.
+   *
+   * Is O(1).
+   *
+   * @param index The index of the element
+   * @param data The new element.
+   * @return The element formerly at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public double set(int index, double data) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+
+    double old = backingArray[index];
+    backingArray[index] = data;
+    return old;
+  }
+
+  /**
+   * Copies a range of elements into the given array without allocating.
+   *
+   * @param from index of the first element to copy
+   * @param dest the array to copy into
+   * @param destPos the first index of dest to write
+   * @param length the number of elements to copy
+   * @throws java.lang.IllegalArgumentException if dest is null.
+   * @throws java.lang.IndexOutOfBoundsException if the range is not within
+   * the list or does not fit in dest.
+   */
+  public void getRange(int from, double[] dest, int destPos, int length) {
+    if (dest == null) throw new IllegalArgumentException("Cannot copy data into null array.");
+    if (from < 0 || length < 0 || from > size - length) throw new IndexOutOfBoundsException("Cannot access data at an invalid range.");
+
+    System.arraycopy(backingArray, from, dest, destPos, length);
+  }
+
+  /**
+   * Removes and returns the element at index, shifting later elements down.
+   *
+   * Is O(1) for index {@code size - 1}, and O(n) in all other cases.
+   *
+   * @param index The index of the element
+   * @return The element that was formerly at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public double removeAtIndex(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot remove data at an invalid index.");
+
+    double old = backingArray[index];
+    System.arraycopy(backingArray, index + 1, backingArray, index, size - index - 1);
+    size--;
+    return old;
+  }
+
+  /**
+   * Remove the first element in the list and return it, shifting every
+   * other element.
+   *
+   * Is O(n).
+   *
+   * @return The element from the front of the list.
+   * @throws java.util.NoSuchElementException if the list is empty.
+   */
+  public double removeFromFront() {
+    if (isEmpty()) throw new NoSuchElementException("Cannot remove data from empty list.");
+
+    return removeAtIndex(0);
+  }
+
+  /**
+   * Remove the last element in the list and return it.
+   *
+   * Is O(1).
+   *
+   * @return The element from the back of the list.
+   * @throws java.util.NoSuchElementException if the list is empty.
+   */
+  public double removeFromBack() {
+    if (isEmpty()) throw new NoSuchElementException("Cannot remove data from empty list.");
+
+    return backingArray[--size];
+  }
+
+  /**
+   * Return a boolean value representing whether or not the list is empty.
+   *
+   * Is O(1).
+   *
+   * @return true if empty; false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Return the size of the list as an integer.
+   *
+   * Is O(1).
+   *
+   * @return The size of the list.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Clear the list. Reset the backing array to a new array of the initial
+   * capacity.
+   *
+   * Is O(1).
+   */
+  public void clear() {
+    backingArray = new double[ArrayListInterface.INITIAL_CAPACITY];
+    size = 0;
+  }
+
+  /**
+   * Grows the backing array, if needed, so that it holds at least the given
+   * number of elements. Grows by at least half the current length.
+   *
+   * @param minCapacity the number of elements to make room for
+   */
+  public void ensureCapacity(int minCapacity) {
+    if (minCapacity <= backingArray.length) return;
+    if (minCapacity > Integer.MAX_VALUE - 8) throw new OutOfMemoryError("List exceeds maximum array length.");
+
+    int newCapacity = (int) Math.min(Integer.MAX_VALUE - 8, backingArray.length + (backingArray.length >> 1) + 1L);
+    backingArray = Arrays.copyOf(backingArray, Math.max(newCapacity, minCapacity));
+  }
+
+  /**
+   * Shrinks the backing array to the size of the list.
+   */
+  public void trimToSize() {
+    if (size < backingArray.length) backingArray = Arrays.copyOf(backingArray, size);
+  }
+
+  /**
+   * Returns a copy of the elements in the list.
+   *
+   * @return an array of length {@code size} holding the elements in order
+   */
+  public double[] toArray() {
+    return Arrays.copyOf(backingArray, size);
+  }
+
+  /**
+   * Return the backing array for this list. Used for testing.
+   *
+   * @return the backing array for this list
+   */
+  public double[] getBackingArray() {
+    return backingArray;
+  }
+}
@@ -0,0 +1,895 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Immutable vector implemented as a relaxed radix balanced (RRB) tree.
+ *
+ * Elements are kept in leaves of up to 32, under internal nodes of up to 32
+ * children, with the last leaf held apart as a tail so appends rarely touch
+ * the tree. A node built by appends is dense: every child but the last is
+ * full, so the child holding an index is found by shifting the index. Nodes
+ * built by concat, take and drop may have children that are not full. Those
+ * nodes keep a table of cumulative child sizes, and lookups start from the
+ * shifted guess and scan forward through it.
+ *
+ * get, set, append, concat, take and drop never change a vector. They
+ * return a new version that copies only the O(log32 n) nodes it changes and
+ * shares the rest, so old versions stay valid and cheap to keep. Concat
+ * rebalances the nodes along the seam so that no level holds more than two
+ * nodes beyond the fewest possible, which keeps lookups within a few steps
+ * of radix indexing. Bulk construction should go through
+ * {@link #asTransient()}, which edits nodes it owns in place.
+ */
+public final class PersistentVector<T> {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int EXTRAS = 2; //Nodes allowed beyond the fewest possible after a concat
+  private static final Object[] EMPTY_TAIL = new Object[0];
+  private static final PersistentVector<?> EMPTY = new PersistentVector<>(null, 0, 0, EMPTY_TAIL);
+
+  private final Node root;
+  private final int height;
+  private final int size;
+  private final Object[] tail;
+
+  /**
+   * Creates a vector over the given tree and tail.
+   *
+   * @param root the root node, or null if every element is in the tail
+   * @param height the height of the root; 0 if the root is a leaf
+   * @param size the number of elements in the tree and tail
+   * @param tail the last elements, non-empty unless size is 0
+   */
+  private PersistentVector(Node root, int height, int size, Object[] tail) {
+    this.root = root;
+    this.height = height;
+    this.size = size;
+    this.tail = tail;
+  }
+
+  /**
+   * Returns the empty vector.
+   *
+   * @return a vector with no elements
+   */
+  public static <T> PersistentVector<T> empty() {
+    return (PersistentVector<T>) EMPTY;
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * Is O(log32 n).
+   *
+   * @param index The index of the element
+   * @return The data stored at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public T get(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+
+    int tailOffset = size - tail.length;
+    return (T) (index >= tailOffset ? tail[index - tailOffset] : find(root, height, index));
+  }
+
+  /**
+   * Returns a version of this vector with the element at the given index
+   * replaced.
+   *
+   * Is O(log32 n).
+   *
+   * @param index The index of the element
+   * @param data The new element.
+   * @return the new version
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public PersistentVector<T> set(int index, T data) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+    if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+
+    int tailOffset = size - tail.length;
+
+    if (index >= tailOffset) {
+      Object[] newTail = tail.clone();
+      newTail[index - tailOffset] = data;
+      return new PersistentVector<>(root, height, size, newTail);
+    }
+
+    return new PersistentVector<>(set(null, root, height, index, data), height, size, tail);
+  }
+
+  /**
+   * Returns a version of this vector with the given data added to the back.
+   *
+   * Is O(1) except once every 32 appends, when the full tail is pushed into
+   * the tree in O(log32 n).
+   *
+   * @param data The data to add to the vector.
+   * @return the new version
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public PersistentVector<T> append(T data) {
+    if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+
+    if (tail.length < WIDTH) {
+      Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+      newTail[tail.length] = data;
+      return new PersistentVector<>(root, height, size + 1, newTail);
+    }
+
+    Tree tree = new Tree(root, height);
+    tree.pushLeaf(null, new Node(null, tail, null));
+
+    return new PersistentVector<>(tree.root, tree.height, size + 1, new Object[] {data});
+  }
+
+  /**
+   * Returns a vector holding the elements of this vector followed by the
+   * elements of the other.
+   *
+   * Merges the two trees along the seam and rebalances only the nodes on
+   * it, so is O(log32 n) apart from appending the other vector's tail when
+   * it has no tree.
+   *
+   * @param other the vector to add after this one
+   * @return the concatenated vector
+   * @throws java.lang.IllegalArgumentException if other is null.
+   */
+  public PersistentVector<T> concat(PersistentVector<? extends T> other) {
+    if (other == null) throw new IllegalArgumentException("Cannot concatenate null vector.");
+    if (other.size == 0) return this;
+    if (size == 0) return (PersistentVector<T>) other;
+
+    if (other.root == null) { //Other is all tail
+      Transient<T> result = asTransient();
+
+      for (Object data : other.tail) {
+        result.append((T) data);
+      }
+
+      return result.persistent();
+    }
+
+    Tree left = new Tree(root, height);
+    left.pushLeaf(null, new Node(null, tail, null));
+
+    Node[] merged = merge(left.root, left.height, other.root, other.height);
+    int mergedHeight = Math.max(left.height, other.height);
+    Tree tree = merged.length == 1 ? new Tree(merged[0], mergedHeight) : new Tree(branch(null, mergedHeight + 1, merged), mergedHeight + 1);
+    tree.collapse();
+
+    return new PersistentVector<>(tree.root, tree.height, size + other.size, other.tail);
+  }
+
+  /**
+   * Returns a vector holding the first {@code count} elements of this one.
+   * Together with {@link #drop(int)}, splits a vector at any index.
+   *
+   * Is O(log32 n).
+   *
+   * @param count the number of elements to keep
+   * @return the prefix of this vector
+   * @throws java.lang.IndexOutOfBoundsException if count < 0 or
+   * count > size.
+   */
+  public PersistentVector<T> take(int count) {
+    if (count < 0 || count > size) throw new IndexOutOfBoundsException("Cannot split vector at an invalid index.");
+    if (count == size) return this;
+    if (count == 0) return empty();
+
+    int tailOffset = size - tail.length;
+    if (count > tailOffset) return new PersistentVector<>(root, height, count, Arrays.copyOf(tail, count - tailOffset));
+
+    //The last leaf of the trimmed tree becomes the tail
+    Tree tree = new Tree(takeTree(root, height, count), height);
+    Object[] newTail = tree.popLeaf();
+
+    return new PersistentVector<>(tree.root, tree.height, count, newTail);
+  }
+
+  /**
+   * Returns a vector holding every element of this one after the first
+   * {@code count}. Together with {@link #take(int)}, splits a vector at any
+   * index.
+   *
+   * Is O(log32 n).
+   *
+   * @param count the number of elements to remove from the front
+   * @return the suffix of this vector
+   * @throws java.lang.IndexOutOfBoundsException if count < 0 or
+   * count > size.
+   */
+  public PersistentVector<T> drop(int count) {
+    if (count < 0 || count > size) throw new IndexOutOfBoundsException("Cannot split vector at an invalid index.");
+    if (count == 0) return this;
+    if (count == size) return empty();
+
+    int tailOffset = size - tail.length;
+    if (count >= tailOffset) return new PersistentVector<>(null, 0, size - count, Arrays.copyOfRange(tail, count - tailOffset, tail.length));
+
+    Tree tree = new Tree(dropTree(root, height, count), height);
+    tree.collapse();
+
+    return new PersistentVector<>(tree.root, tree.height, size - count, tail);
+  }
+
+  /**
+   * Return a boolean value representing whether or not the vector is empty.
+   *
+   * Is O(1).
+   *
+   * @return true if empty; false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Return the size of the vector as an integer.
+   *
+   * Is O(1).
+   *
+   * @return The size of the vector.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Performs the given action on every element, from front to back, walking
+   * the leaves directly.
+   *
+   * @param action the action to perform on each element
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(Consumer<? super T> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on vector.");
+
+    if (root != null) forEach(root, height, (Consumer<Object>) action);
+
+    for (Object data : tail) {
+      action.accept((T) data);
+    }
+  }
+
+  /**
+   * Returns an array of the elements in order.
+   *
+   * Is O(n).
+   *
+   * @return an array of length {@code size}
+   */
+  public Object[] toArray() {
+    Object[] result = new Object[size];
+    int[] index = new int[1];
+
+    forEach(data -> result[index[0]++] = data);
+    return result;
+  }
+
+  /**
+   * Returns a mutable copy of this vector for building a new version in
+   * bulk. This vector is not affected by edits to the copy.
+   *
+   * @return a transient vector holding the same elements
+   */
+  public Transient<T> asTransient() {
+    return new Transient<>(root, height, size, tail);
+  }
+
+  /**
+   * Mutable view of a vector used to build a new version in bulk.
+   *
+   * A transient owns every node it creates, and edits those nodes in place.
+   * Nodes it shares with persistent versions are still copied on first
+   * change, so those versions are never affected. Its tail is a buffer of
+   * 32 slots filled in place. Once {@link #persistent()} is called the
+   * transient can no longer be used. Transients are not thread safe.
+   */
+  public static final class Transient<T> {
+    private Object owner;
+    private Node root;
+    private int height;
+    private int size;
+    private Object[] tail;
+    private int tailSize;
+
+    /**
+     * Creates a transient over the given tree and tail.
+     *
+     * @param root the root node, or null if every element is in the tail
+     * @param height the height of the root
+     * @param size the number of elements in the tree and tail
+     * @param tail the last elements
+     */
+    private Transient(Node root, int height, int size, Object[] tail) {
+      this.owner = new Object();
+      this.root = root;
+      this.height = height;
+      this.size = size;
+      this.tail = Arrays.copyOf(tail, WIDTH);
+      this.tailSize = tail.length;
+    }
+
+    /**
+     * Adds the given data to the back of the vector.
+     *
+     * Is amortized O(1).
+     *
+     * @param data The data to add to the vector.
+     * @throws java.lang.IllegalArgumentException if data is null.
+     * @throws IllegalStateException if the transient has been made persistent
+     */
+    public void append(T data) {
+      if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+      ensureEditable();
+
+      if (tailSize == WIDTH) {
+        Tree tree = new Tree(root, height);
+        tree.pushLeaf(owner, new Node(owner, tail, null));
+        root = tree.root;
+        height = tree.height;
+        tail = new Object[WIDTH];
+        tailSize = 0;
+      }
+
+      tail[tailSize++] = data;
+      size++;
+    }
+
+    /**
+     * Returns the element at the given index.
+     *
+     * @param index The index of the element
+     * @return The data stored at that index.
+     * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+     * index >= size.
+     * @throws IllegalStateException if the transient has been made persistent
+     */
+    public T get(int index) {
+      if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+      ensureEditable();
+
+      int tailOffset = size - tailSize;
+      return (T) (index >= tailOffset ? tail[index - tailOffset] : find(root, height, index));
+    }
+
+    /**
+     * Replaces the element at the given index.
+     *
+     * @param index The index of the element
+     * @param data The new element.
+     * @return The data formerly at that index.
+     * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+     * index >= size.
+     * @throws java.lang.IllegalArgumentException if data is null.
+     * @throws IllegalStateException if the transient has been made persistent
+     */
+    public T set(int index, T data) {
+      T old = get(index);
+      if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+
+      int tailOffset = size - tailSize;
+
+      if (index >= tailOffset) {
+        tail[index - tailOffset] = data;
+      } else {
+        root = PersistentVector.set(owner, root, height, index, data);
+      }
+
+      return old;
+    }
+
+    /**
+     * Returns the number of elements in the vector.
+     *
+     * @throws IllegalStateException if the transient has been made persistent
+     * @return number of elements in the vector
+     */
+    public int size() {
+      ensureEditable();
+      return size;
+    }
+
+    /**
+     * Freezes the edits into a persistent vector. The transient cannot be
+     * used afterwards.
+     *
+     * @throws IllegalStateException if the transient has already been made
+     * persistent
+     * @return the persistent vector
+     */
+    public PersistentVector<T> persistent() {
+      ensureEditable();
+      owner = null;
+
+      return size == 0 ? empty() : new PersistentVector<>(root, height, size, Arrays.copyOf(tail, tailSize));
+    }
+
+    /**
+     * @throws IllegalStateException if the transient has been made persistent
+     */
+    private void ensureEditable() {
+      if (owner == null) throw new IllegalStateException("Cannot use transient after it has been made persistent.");
+    }
+  }
+
+  /**
+   * Node of the tree. A leaf holds elements; any other node holds child
+   * nodes one level down, and a table of cumulative child sizes unless it
+   * is dense. A node may be edited in place only by the transient that owns
+   * it; every other change copies it.
+   */
+  private static final class Node {
+    final Object owner;
+    final Object[] array;
+    final int[] sizes; //Null for leaves and dense nodes
+
+    Node(Object owner, Object[] array, int[] sizes) {
+      this.owner = owner;
+      this.array = array;
+      this.sizes = sizes;
+    }
+
+    /**
+     * @return whether the given transient may edit this node in place
+     */
+    boolean editableBy(Object edit) {
+      return edit != null && edit == owner;
+    }
+  }
+
+  /**
+   * Root and height of a tree being reshaped.
+   */
+  private static final class Tree {
+    private Node root;
+    private int height;
+
+    Tree(Node root, int height) {
+      this.root = root;
+      this.height = height;
+    }
+
+    /**
+     * Adds a leaf after the last one, adding a level if the tree is full.
+     */
+    void pushLeaf(Object edit, Node leaf) {
+      if (root == null) {
+        root = leaf;
+        height = 0;
+        return;
+      }
+
+      Node pushed = tryPush(edit, root, height, leaf);
+
+      if (pushed == null) { //No room on the right edge
+        root = branch(edit, height + 1, new Object[] {root, path(edit, height, leaf)});
+        height++;
+      } else {
+        root = pushed;
+      }
+    }
+
+    /**
+     * Removes the last leaf and returns its elements.
+     */
+    Object[] popLeaf() {
+      Object[][] leaf = new Object[1][];
+
+      root = PersistentVector.popLeaf(root, height, leaf);
+      if (root == null) height = 0;
+      collapse();
+
+      return leaf[0];
+    }
+
+    /**
+     * Removes root levels that have a single child.
+     */
+    void collapse() {
+      while (height > 0 && root.array.length == 1) {
+        root = (Node) root.array[0];
+        height--;
+      }
+    }
+  }
+
+  /**
+   * Looks up an element below a node.
+   *
+   * @param node the node to search
+   * @param height the height of the node
+   * @param index the index relative to the node
+   * @return the element
+   */
+  private static Object find(Node node, int height, int index) {
+    for (int h = height; h > 0; h--) {
+      int slot = index >>> (BITS * h);
+
+      if (node.sizes == null) {
+        index -= slot << (BITS * h);
+      } else {
+        while (node.sizes[slot] <= index) {
+          slot++;
+        }
+
+        if (slot > 0) index -= node.sizes[slot - 1];
+      }
+
+      node = (Node) node.array[slot];
+    }
+
+    return node.array[index];
+  }
+
+  /**
+   * @return the node with the element at index replaced, edited in place if
+   * the transient owns it
+   */
+  private static Node set(Object edit, Node node, int height, int index, Object data) {
+    Node copy = node.editableBy(edit) ? node : new Node(edit, node.array.clone(), node.sizes);
+
+    if (height == 0) {
+      copy.array[index] = data;
+      return copy;
+    }
+
+    int slot = index >>> (BITS * height);
+
+    if (node.sizes == null) {
+      index -= slot << (BITS * height);
+    } else {
+      while (node.sizes[slot] <= index) {
+        slot++;
+      }
+
+      if (slot > 0) index -= node.sizes[slot - 1];
+    }
+
+    copy.array[slot] = set(edit, (Node) node.array[slot], height - 1, index, data);
+    return copy;
+  }
+
+  /**
+   * @return the node with the leaf added after its last leaf, or null if
+   * there is no room below it
+   */
+  private static Node tryPush(Object edit, Node node, int height, Node leaf) {
+    if (height == 0) return null;
+
+    int n = node.array.length;
+
+    if (height > 1) {
+      Node last = (Node) node.array[n - 1];
+      Node pushed = tryPush(edit, last, height - 1, leaf);
+
+      if (pushed != null) {
+        Node copy = node.editableBy(edit) ? node : new Node(edit, node.array.clone(), node.sizes == null ? null : node.sizes.clone());
+
+        copy.array[n - 1] = pushed;
+        if (copy.sizes != null) copy.sizes[n - 1] += leaf.array.length;
+
+        return copy;
+      }
+    }
+
+    if (n == WIDTH) return null;
+
+    Object[] children = Arrays.copyOf(node.array, n + 1);
+    children[n] = path(edit, height - 1, leaf);
+
+    int[] sizes = null;
+
+    //Stays dense only if the old last child was full
+    if (node.sizes != null || treeSize((Node) node.array[n - 1], height - 1) != 1 << (BITS * height)) {
+      sizes = new int[n + 1];
+      int before = treeSize(node, height);
+
+      if (node.sizes != null) {
+        System.arraycopy(node.sizes, 0, sizes, 0, n);
+      } else {
+        for (int i = 0; i < n; i++) {
+          sizes[i] = Math.min(before, (i + 1) << (BITS * height));
+        }
+      }
+
+      sizes[n] = before + leaf.array.length;
+    }
+
+    return new Node(edit, children, sizes);
+  }
+
+  /**
+   * @return the node with its last leaf removed, or null if it held only
+   * that leaf. The leaf's elements are stored in out[0]
+   */
+  private static Node popLeaf(Node node, int height, Object[][] out) {
+    if (height == 0) {
+      out[0] = node.array;
+      return null;
+    }
+
+    int n = node.array.length;
+    Node last = popLeaf((Node) node.array[n - 1], height - 1, out);
+
+    if (last == null && n == 1) return null;
+
+    Object[] children = Arrays.copyOf(node.array, last == null ? n - 1 : n);
+    if (last != null) children[n - 1] = last;
+
+    return branch(null, height, children);
+  }
+
+  /**
+   * @return the subtree holding the first count elements of the node
+   */
+  private static Node takeTree(Node node, int height, int count) {
+    if (height == 0) return count == node.array.length ? node : new Node(null, Arrays.copyOf(node.array, count), null);
+
+    int slot = slotOf(node, height, count - 1);
+    int start = startOf(node, height, slot);
+    Object[] children = Arrays.copyOf(node.array, slot + 1);
+
+    children[slot] = takeTree((Node) node.array[slot], height - 1, count - start);
+    return branch(null, height, children);
+  }
+
+  /**
+   * @return the subtree holding every element of the node after the first
+   * count
+   */
+  private static Node dropTree(Node node, int height, int count) {
+    if (height == 0) return count == 0 ? node : new Node(null, Arrays.copyOfRange(node.array, count, node.array.length), null);
+
+    int slot = slotOf(node, height, count);
+    int start = startOf(node, height, slot);
+    Object[] children = Arrays.copyOfRange(node.array, slot, node.array.length);
+
+    children[0] = dropTree((Node) node.array[slot], height - 1, count - start);
+    return branch(null, height, children);
+  }
+
+  /**
+   * Merges two trees into one or two nodes of the greater height, joining
+   * them along the right edge of the left tree and the left edge of the
+   * right tree.
+   *
+   * @return one or two nodes of height max(leftHeight, rightHeight)
+   */
+  private static Node[] merge(Node left, int leftHeight, Node right, int rightHeight) {
+    if (leftHeight > rightHeight) {
+      Node[] middle = merge((Node) left.array[left.array.length - 1], leftHeight - 1, right, rightHeight);
+      return rebalance(left, middle, null, leftHeight);
+    }
+
+    if (leftHeight < rightHeight) {
+      Node[] middle = merge(left, leftHeight, (Node) right.array[0], rightHeight - 1);
+      return rebalance(null, middle, right, rightHeight);
+    }
+
+    if (leftHeight == 0) { //Two leaves
+      if (left.array.length + right.array.length > WIDTH) return new Node[] {left, right};
+
+      Object[] joined = Arrays.copyOf(left.array, left.array.length + right.array.length);
+      System.arraycopy(right.array, 0, joined, left.array.length, right.array.length);
+      return new Node[] {new Node(null, joined, null)};
+    }
+
+    Node[] middle = merge((Node) left.array[left.array.length - 1], leftHeight - 1, (Node) right.array[0], rightHeight - 1);
+    return rebalance(left, middle, right, leftHeight);
+  }
+
+  /**
+   * Joins the children of left other than its last, the middle nodes, and
+   * the children of right other than its first, then redistributes them so
+   * that no more than EXTRAS nodes beyond the fewest possible are used.
+   *
+   * @param left the left node, or null
+   * @param middle the merged nodes one level down
+   * @param right the right node, or null
+   * @param height the height of the nodes to return
+   * @return one or two nodes of the given height
+   */
+  private static Node[] rebalance(Node left, Node[] middle, Node right, int height) {
+    int leftCount = left == null ? 0 : left.array.length - 1;
+    int rightCount = right == null ? 0 : right.array.length - 1;
+    Node[] all = new Node[leftCount + middle.length + rightCount];
+
+    if (left != null) System.arraycopy(left.array, 0, all, 0, leftCount);
+    System.arraycopy(middle, 0, all, leftCount, middle.length);
+    if (right != null) System.arraycopy(right.array, 1, all, leftCount + middle.length, rightCount);
+
+    int[] counts = plan(all);
+    Node[] nodes = execute(all, counts, height - 1);
+
+    if (nodes.length <= WIDTH) return new Node[] {branch(null, height, nodes)};
+
+    return new Node[] {branch(null, height, Arrays.copyOf(nodes, WIDTH)), branch(null, height, Arrays.copyOfRange(nodes, WIDTH, nodes.length))};
+  }
+
+  /**
+   * Plans how many slots each redistributed node gets. Starting from the
+   * left, the slots of the first node that is not nearly full are spread
+   * over the nodes after it, removing one node at a time until at most
+   * EXTRAS nodes more than the fewest possible remain.
+   *
+   * @param nodes the nodes to redistribute
+   * @return the number of slots in each new node
+   */
+  private static int[] plan(Node[] nodes) {
+    int[] counts = new int[nodes.length];
+    int total = 0;
+
+    for (int i = 0; i < nodes.length; i++) {
+      counts[i] = nodes[i].array.length;
+      total += counts[i];
+    }
+
+    int optimal = (total + WIDTH - 1) / WIDTH;
+    int n = nodes.length;
+    int i = 0;
+
+    while (n > optimal + EXTRAS) {
+      while (counts[i] > WIDTH - EXTRAS / 2) {
+        i++;
+      }
+
+      //Spills node i into the nodes after it
+      int carry = counts[i];
+
+      while (carry > 0) {
+        int filled = Math.min(carry + counts[i + 1], WIDTH);
+        carry = carry + counts[i + 1] - filled;
+        counts[i] = filled;
+        i++;
+      }
+
+      //Node i is now empty; shifts the rest down over it
+      System.arraycopy(counts, i + 1, counts, i, n - i - 1);
+      n--;
+      i = 0;
+    }
+
+    return Arrays.copyOf(counts, n);
+  }
+
+  /**
+   * Copies the slots of the nodes into new nodes of the planned sizes,
+   * reusing any node whose slots do not move.
+   *
+   * @param nodes the nodes to redistribute
+   * @param counts the number of slots in each new node
+   * @param height the height of the nodes
+   * @return the new nodes
+   */
+  private static Node[] execute(Node[] nodes, int[] counts, int height) {
+    Node[] result = new Node[counts.length];
+    int source = 0;
+    int offset = 0;
+
+    for (int i = 0; i < counts.length; i++) {
+      if (offset == 0 && nodes[source].array.length == counts[i]) {
+        result[i] = nodes[source++];
+        continue;
+      }
+
+      Object[] slots = new Object[counts[i]];
+      int filled = 0;
+
+      while (filled < counts[i]) {
+        Object[] from = nodes[source].array;
+        int copied = Math.min(counts[i] - filled, from.length - offset);
+
+        System.arraycopy(from, offset, slots, filled, copied);
+        filled += copied;
+        offset += copied;
+
+        if (offset == from.length) {
+          source++;
+          offset = 0;
+        }
+      }
+
+      result[i] = height == 0 ? new Node(null, slots, null) : branch(null, height, slots);
+    }
+
+    return result;
+  }
+
+  /**
+   * Creates a node over the given children, with a size table unless every
+   * child but the last is full.
+   *
+   * @param edit the transient that will own the node, or null
+   * @param height the height of the node, at least 1
+   * @param children the child nodes
+   * @return the node
+   */
+  private static Node branch(Object edit, int height, Object[] children) {
+    int full = 1 << (BITS * height);
+    int[] sizes = new int[children.length];
+    boolean dense = true;
+    int total = 0;
+
+    for (int i = 0; i < children.length; i++) {
+      int childSize = treeSize((Node) children[i], height - 1);
+
+      if (i < children.length - 1 && childSize != full) dense = false;
+      total += childSize;
+      sizes[i] = total;
+    }
+
+    return new Node(edit, children, dense ? null : sizes);
+  }
+
+  /**
+   * Wraps a leaf in single-child nodes up to the given height.
+   */
+  private static Node path(Object edit, int height, Node leaf) {
+    Node node = leaf;
+
+    for (int h = 1; h <= height; h++) {
+      node = new Node(edit, new Object[] {node}, null);
+    }
+
+    return node;
+  }
+
+  /**
+   * @return the number of elements below the node
+   */
+  private static int treeSize(Node node, int height) {
+    int size = 0;
+
+    //Every child but the last of a dense node is full
+    while (height > 0 && node.sizes == null) {
+      size += (node.array.length - 1) << (BITS * height);
+      node = (Node) node.array[node.array.length - 1];
+      height--;
+    }
+
+    return size + (height == 0 ? node.array.length : node.sizes[node.sizes.length - 1]);
+  }
+
+  /**
+   * @return the slot of the child holding the index
+   */
+  private static int slotOf(Node node, int height, int index) {
+    if (node.sizes == null) return index >>> (BITS * height);
+
+    int slot = index >>> (BITS * height);
+
+    while (node.sizes[slot] <= index) {
+      slot++;
+    }
+
+    return slot;
+  }
+
+  /**
+   * @return the index of the first element below the given slot
+   */
+  private static int startOf(Node node, int height, int slot) {
+    if (slot == 0) return 0;
+
+    return node.sizes == null ? slot << (BITS * height) : node.sizes[slot - 1];
+  }
+
+  private static void forEach(Node node, int height, Consumer<Object> action) {
+    if (height == 0) {
+      for (Object data : node.array) {
+        action.accept(data);
+      }
+
+      return;
+    }
+
+    for (Object child : node.array) {
+      forEach((Node) child, height - 1, action);
+    }
+  }
+}
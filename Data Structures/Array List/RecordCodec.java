@@ -0,0 +1,88 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Converts elements to and from fixed-width records, for lists that keep
+ * their elements outside of the Java heap.
+ *
+ * Every element must encode to exactly {@link #width()} bytes, so the
+ * position of any record can be computed from its index.
+ */
+public interface RecordCodec<T> {
+    /**
+     * Codec for {@code Integer}, written as 4 big-endian bytes.
+     */
+    RecordCodec<Integer> INTEGER = new RecordCodec<Integer>() {
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        public void write(Integer data, ByteBuffer buffer, int offset) {
+            buffer.putInt(offset, data);
+        }
+
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * Codec for {@code Long}, written as 8 big-endian bytes.
+     */
+    RecordCodec<Long> LONG = new RecordCodec<Long>() {
+        public int width() {
+            return Long.BYTES;
+        }
+
+        public void write(Long data, ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, data);
+        }
+
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /**
+     * Codec for {@code Double}, written as 8 big-endian bytes.
+     */
+    RecordCodec<Double> DOUBLE = new RecordCodec<Double>() {
+        public int width() {
+            return Double.BYTES;
+        }
+
+        public void write(Double data, ByteBuffer buffer, int offset) {
+            buffer.putDouble(offset, data);
+        }
+
+        public Double read(ByteBuffer buffer, int offset) {
+            return buffer.getDouble(offset);
+        }
+    };
+
+    /**
+     * Returns the number of bytes in every record.
+     *
+     * @return the record width, at least 1
+     */
+    int width();
+
+    /**
+     * Writes the record for the given element at an absolute offset, without
+     * moving the buffer's position.
+     *
+     * @param data the element to write, never null
+     * @param buffer the buffer to write into
+     * @param offset the index of the record's first byte
+     */
+    void write(T data, ByteBuffer buffer, int offset);
+
+    /**
+     * Reads the record at an absolute offset, without moving the buffer's
+     * position.
+     *
+     * @param buffer the buffer to read from
+     * @param offset the index of the record's first byte
+     * @return the element the record encodes
+     */
+    T read(ByteBuffer buffer, int offset);
+}
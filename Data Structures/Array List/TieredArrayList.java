@@ -0,0 +1,294 @@
+/**
+ * Array list stored as a tiered vector.
+ *
+ * The backing array is cut into chunks of a power-of-two length C, and each
+ * chunk is a circular buffer with its own head offset. Every chunk is full
+ * except the last one. An add or remove in the middle only shifts the
+ * elements of one chunk, and then moves a single element across each later
+ * chunk boundary by rotating that chunk's head. Positional adds and removes
+ * therefore cost O(C + n / C). C is kept near the square root of the size,
+ * which makes that O(sqrt n). Reading an element is still one array access
+ * plus a shift and a mask, and the chunks share one flat array, so a scan
+ * reads contiguous memory.
+ */
+public class TieredArrayList<T> implements ArrayListInterface<T> {
+  private static final int MIN_CHUNK_SHIFT = 4;
+
+  private Object[] backingArray;
+  private int[] heads;
+  private int shift;
+  private int mask;
+  private int size;
+
+  /**
+   * Constructs a new TieredArrayList.
+   */
+  public TieredArrayList() {
+    clear();
+  }
+
+  /**
+   * Adds the element to the index specified.
+   *
+   * Shifts at most half a chunk and rotates each later chunk by one slot, so
+   * is O(sqrt n), or amortized O(1) when adding to the back.
+   *
+   * @param index The index where you want the new element.
+   * @param data Any object of type T.
+   * @throws java.lang.IndexOutOfBoundsException if index is negative
+   * or index > size.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public void addAtIndex(int index, T data) {
+    if (index < 0 || index > size) throw new IndexOutOfBoundsException("Cannot add data at an invalid index.");
+    if (data == null) throw new IllegalArgumentException("Cannot add null data to data structure.");
+
+    if (size == backingArray.length) grow();
+
+    int chunk = index >> shift;
+    int last = size >> shift;
+
+    //Pushes the back element of each full chunk onto the front of the next one
+    for (int k = last; k > chunk; k--) {
+      int back = (k - 1) << shift | (heads[k - 1] + mask) & mask;
+
+      heads[k] = (heads[k] - 1) & mask;
+      backingArray[k << shift | heads[k]] = backingArray[back];
+      backingArray[back] = null;
+    }
+
+    int count = chunk < last ? mask : size - (chunk << shift);
+    int offset = index & mask;
+    int base = chunk << shift;
+
+    if (offset < count - offset) { //Shifts the front of the chunk one slot back
+      heads[chunk] = (heads[chunk] - 1) & mask;
+
+      for (int i = 0; i < offset; i++) {
+        backingArray[base | (heads[chunk] + i) & mask] = backingArray[base | (heads[chunk] + i + 1) & mask];
+      }
+    } else { //Shifts the back of the chunk one slot forward
+      for (int i = count; i > offset; i--) {
+        backingArray[base | (heads[chunk] + i) & mask] = backingArray[base | (heads[chunk] + i - 1) & mask];
+      }
+    }
+
+    backingArray[base | (heads[chunk] + offset) & mask] = data;
+    size++;
+
+    if (size > 2L << (2 * shift)) rebuild(shift + 1);
+  }
+
+  /**
+   * Add the given data to the front of the list.
+   *
+   * Is O(sqrt n).
+   *
+   * @param data The data to add to the list.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public void addToFront(T data) {
+    addAtIndex(0, data);
+  }
+
+  /**
+   * Add the given data to the back of the list.
+   *
+   * Is amortized O(1).
+   *
+   * @param data The data to add to the list.
+   * @throws java.lang.IllegalArgumentException if data is null.
+   */
+  public void addToBack(T data) {
+    addAtIndex(size, data);
+  }
+
+  /**
+   * Returns the element at the given index.
+   *
+   * Is O(1).
+   *
+   * @param index The index of the element
+   * @return The data stored at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public T get(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot access data at an invalid index.");
+
+    int chunk = index >> shift;
+    return (T) backingArray[chunk << shift | (heads[chunk] + index) & mask];
+  }
+
+  /**
+   * Removes and returns the element at index.
+   *
+   * Shifts at most half a chunk and rotates each later chunk by one slot, so
+   * is O(sqrt n), or O(1) when removing from the back.
+   *
+   * @param index The index of the element
+   * @return The object that was formerly at that index.
+   * @throws java.lang.IndexOutOfBoundsException if index < 0 or
+   * index >= size.
+   */
+  public T removeAtIndex(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Cannot remove data at an invalid index.");
+
+    int chunk = index >> shift;
+    int last = (size - 1) >> shift;
+    int count = chunk < last ? mask + 1 : size - (chunk << shift);
+    int offset = index & mask;
+    int base = chunk << shift;
+    T temp = (T) backingArray[base | (heads[chunk] + offset) & mask];
+
+    if (offset < count - 1 - offset) { //Shifts the front of the chunk one slot forward
+      for (int i = offset; i > 0; i--) {
+        backingArray[base | (heads[chunk] + i) & mask] = backingArray[base | (heads[chunk] + i - 1) & mask];
+      }
+
+      backingArray[base | heads[chunk]] = null;
+      heads[chunk] = (heads[chunk] + 1) & mask;
+    } else { //Shifts the back of the chunk one slot back
+      for (int i = offset; i < count - 1; i++) {
+        backingArray[base | (heads[chunk] + i) & mask] = backingArray[base | (heads[chunk] + i + 1) & mask];
+      }
+
+      backingArray[base | (heads[chunk] + count - 1) & mask] = null;
+    }
+
+    //Pulls the front element of each later chunk onto the back of the one before
+    for (int k = chunk + 1; k <= last; k++) {
+      int front = k << shift | heads[k];
+
+      backingArray[(k - 1) << shift | (heads[k - 1] + mask) & mask] = backingArray[front];
+      backingArray[front] = null;
+      heads[k] = (heads[k] + 1) & mask;
+    }
+
+    size--;
+
+    if (shift > MIN_CHUNK_SHIFT && size < 1L << (2 * shift - 3)) rebuild(shift - 1);
+
+    return temp;
+  }
+
+  /**
+   * Remove the first element in the list and return it. Returns null if the
+   * list is empty.
+   *
+   * Is O(sqrt n).
+   *
+   * @return The data from the front of the list or null.
+   */
+  public T removeFromFront() {
+    return isEmpty() ? null : removeAtIndex(0);
+  }
+
+  /**
+   * Remove the last element in the list and return it. Returns null if the
+   * list is empty.
+   *
+   * Is O(1).
+   *
+   * @return The data from the back of the list or null.
+   */
+  public T removeFromBack() {
+    return isEmpty() ? null : removeAtIndex(size - 1);
+  }
+
+  /**
+   * Return a boolean value representing whether or not the list is empty.
+   *
+   * Is O(1).
+   *
+   * @return true if empty; false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Return the size of the list as an integer.
+   *
+   * Is O(1).
+   *
+   * @return The size of the list.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Clear the list. Reset the backing array to a single chunk of the
+   * smallest length.
+   *
+   * Is O(1).
+   */
+  public void clear() {
+    shift = MIN_CHUNK_SHIFT;
+    mask = (1 << shift) - 1;
+    backingArray = new Object[1 << shift];
+    heads = new int[1];
+    size = 0;
+  }
+
+  /**
+   * Returns the length of the chunks the list is currently cut into.
+   *
+   * @return the chunk length, a power of two
+   */
+  public int getChunkLength() {
+    return 1 << shift;
+  }
+
+  /**
+   * Return the backing array for this list. Used for testing.
+   *
+   * Chunk k occupies indices {@code k * getChunkLength()} up to the start of
+   * the next chunk, and its elements may be rotated within that range.
+   *
+   * @return the backing array for this list
+   */
+  public Object[] getBackingArray() {
+    return backingArray;
+  }
+
+  /**
+   * Doubles the number of chunks the backing array has room for.
+   */
+  private void grow() {
+    int chunks = heads.length;
+    Object[] newBack = new Object[backingArray.length << 1];
+
+    System.arraycopy(backingArray, 0, newBack, 0, backingArray.length);
+
+    int[] newHeads = new int[chunks << 1];
+    System.arraycopy(heads, 0, newHeads, 0, chunks);
+
+    backingArray = newBack;
+    heads = newHeads;
+  }
+
+  /**
+   * Copies the elements in order into chunks of a new length, with every
+   * head back at 0. Called when the size moves far enough from the square of
+   * the chunk length that adds and removes would lose their O(sqrt n) bound.
+   *
+   * @param newShift log2 of the new chunk length
+   */
+  private void rebuild(int newShift) {
+    int newMask = (1 << newShift) - 1;
+    int chunks = Math.max(1, (size + newMask) >> newShift);
+    Object[] newBack = new Object[chunks << newShift];
+
+    for (int i = 0; i < size; i++) {
+      int chunk = i >> shift;
+      newBack[i] = backingArray[chunk << shift | (heads[chunk] + i) & mask];
+    }
+
+    backingArray = newBack;
+    heads = new int[chunks];
+    shift = newShift;
+    mask = newMask;
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Node class used for implementing TinyLfuCache. Each node is linked
+ * directly into the access-order list of the region it belongs to, so it can
+ * be unlinked or moved in O(1).
+ */
+public class CacheNode<K, V> {
+    /**
+     * The admission window, where every new entry starts.
+     */
+    public static final int WINDOW = 0;
+
+    /**
+     * The probation segment of the main cache.
+     */
+    public static final int PROBATION = 1;
+
+    /**
+     * The protected segment of the main cache.
+     */
+    public static final int PROTECTED = 2;
+
+    private final K key;
+    private V value;
+    private int weight;
+    private long writeTime;
+    private int region;
+    private CacheNode<K, V> previous;
+    private CacheNode<K, V> next;
+
+    /**
+     * Creates a new CacheNode in the admission window.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @param weight the weight of the entry
+     * @param writeTime the time the value was written, in nanoseconds
+     */
+    public CacheNode(K key, V value, int weight, long writeTime) {
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+        this.writeTime = writeTime;
+        this.region = WINDOW;
+    }
+
+    /**
+     * Gets the key of the entry.
+     *
+     * @return the key in this node
+     */
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the value of the entry.
+     *
+     * @return the value in this node
+     */
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Sets the value of the entry.
+     *
+     * @param value the new value
+     */
+    public void setValue(V value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the weight of the entry.
+     *
+     * @return the weight of this node
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Sets the weight of the entry.
+     *
+     * @param weight the new weight
+     */
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Gets the time the value was last written.
+     *
+     * @return the write time in nanoseconds
+     */
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    /**
+     * Sets the time the value was last written.
+     *
+     * @param writeTime the write time in nanoseconds
+     */
+    public void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    /**
+     * Gets the region the node is linked into.
+     *
+     * @return one of WINDOW, PROBATION or PROTECTED
+     */
+    public int getRegion() {
+        return region;
+    }
+
+    /**
+     * Sets the region the node is linked into.
+     *
+     * @param region one of WINDOW, PROBATION or PROTECTED
+     */
+    public void setRegion(int region) {
+        this.region = region;
+    }
+
+    /**
+     * Gets the previous (less recently used) node.
+     *
+     * @return the previous node
+     */
+    public CacheNode<K, V> getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Sets the previous node.
+     *
+     * @param previous the new previous node
+     */
+    public void setPrevious(CacheNode<K, V> previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Gets the next (more recently used) node.
+     *
+     * @return the next node
+     */
+    public CacheNode<K, V> getNext() {
+        return next;
+    }
+
+    /**
+     * Sets the next node.
+     *
+     * @param next the new next node
+     */
+    public void setNext(CacheNode<K, V> next) {
+        this.next = next;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Node containing %s: %s (weight %d)", key, value, weight);
+    }
+}
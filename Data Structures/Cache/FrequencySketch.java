@@ -0,0 +1,168 @@
+/**
+ * Count-min sketch of 4-bit counters used to estimate how often keys have
+ * been seen recently.
+ *
+ * Each key maps to one counter in each of four rows, and its estimate is the
+ * smallest of the four. Sixteen counters are packed into each long. Once the
+ * number of recorded accesses reaches the sample size, every counter is
+ * halved so that old popularity fades.
+ *
+ * The table can be grown with {@link #ensureCapacity(int)} as the cache
+ * fills, so a cache whose entry count is not known up front can start with
+ * a small sketch. Growing keeps every count.
+ */
+public class FrequencySketch {
+  private static final int MAX_COUNT = 15;
+  private static final long[] SEEDS = {
+    0x97CB3127E6A9A1C5L, 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private long[] table;
+  private int mask;
+  private int sampleSize;
+  private int additions;
+
+  /**
+   * Creates a sketch sized for a cache of the given number of entries.
+   *
+   * @param capacity expected number of entries in the cache
+   * @throws IllegalArgumentException if capacity is non-positive
+   */
+  public FrequencySketch(int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException("Cannot create sketch with non-positive capacity.");
+
+    table = new long[0];
+    ensureCapacity(capacity);
+  }
+
+  /**
+   * Grows the sketch to suit a cache of the given number of entries. Does
+   * nothing if the table is already large enough.
+   *
+   * A counter's long is picked by the low bits of a mixed hash, so after the
+   * mask widens it sits in one of the copies of its old long. The old table
+   * is therefore copied into each part of the new one, and every key keeps
+   * its estimate.
+   *
+   * Is O(1) unless the table grows.
+   *
+   * @param capacity expected number of entries in the cache
+   * @throws IllegalArgumentException if capacity is non-positive
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException("Cannot size sketch to non-positive capacity.");
+    if (capacity <= table.length || table.length == (1 << 30)) return;
+
+    int length = 1;
+
+    while (length < capacity && length < (1 << 30)) {
+      length <<= 1;
+    }
+
+    long[] grown = new long[length];
+
+    for (int i = 0; table.length > 0 && i < length; i += table.length) {
+      System.arraycopy(table, 0, grown, i, table.length);
+    }
+
+    table = grown;
+    mask = length - 1;
+    sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the estimated number of recent accesses of the key, capped at 15.
+   *
+   * @param key the key to look up
+   * @return the estimated frequency
+   */
+  public int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int min = MAX_COUNT;
+
+    for (int row = 0; row < SEEDS.length; row++) {
+      min = Math.min(min, counter(hash, row));
+    }
+
+    return min;
+  }
+
+  /**
+   * Records an access of the key, halving every counter once the sample
+   * size is reached.
+   *
+   * @param key the key that was accessed
+   */
+  public void increment(Object key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+
+    for (int row = 0; row < SEEDS.length; row++) {
+      int slot = slot(hash, row);
+      int shift = shift(hash, row);
+
+      if (((table[slot] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+        table[slot] += 1L << shift;
+        added = true;
+      }
+    }
+
+    if (added && ++additions >= sampleSize) reset();
+  }
+
+  /**
+   * Clears every counter.
+   */
+  public void clear() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = 0L;
+    }
+
+    additions = 0;
+  }
+
+  /**
+   * Halves every counter.
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+
+    additions /= 2;
+  }
+
+  /**
+   * Reads the key's counter in the given row.
+   */
+  private int counter(int hash, int row) {
+    return (int) ((table[slot(hash, row)] >>> shift(hash, row)) & MAX_COUNT);
+  }
+
+  /**
+   * Long holding the key's counter in the given row.
+   */
+  private int slot(int hash, int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  /**
+   * Bit offset of the key's counter within its long for the given row.
+   */
+  private int shift(int hash, int row) {
+    return ((hash >>> (row << 3)) & 15) << 2;
+  }
+
+  /**
+   * Mixes a hash code so that similar keys land on unrelated counters.
+   */
+  private static int spread(int h) {
+    h ^= h >>> 17;
+    h *= 0xED5AD4BB;
+    h ^= h >>> 11;
+    h *= 0xAC4C1B51;
+    return h ^ (h >>> 15);
+  }
+}
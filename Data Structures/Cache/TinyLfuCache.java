@@ -0,0 +1,474 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Bounded cache using the W-TinyLFU eviction policy.
+ *
+ * New entries enter a small LRU admission window (1% of the maximum weight).
+ * Entries pushed out of the window move to the probation segment of the main
+ * cache, where they compete with the least recently used probation entry: a
+ * {@link FrequencySketch} estimates how often each key has been seen lately,
+ * and the less popular of the two is evicted. Probation entries that are hit
+ * again are promoted to the protected segment (80% of the main cache).
+ *
+ * Every entry is a {@link CacheNode} linked directly into its region's
+ * access-order list and indexed by a hash map, so lookups, recency updates
+ * and evictions are all O(1). A cache bounded by entry count sizes its
+ * sketch for that count up front. A cache bounded by weight starts with a
+ * small sketch that grows with the number of entries, so its size follows
+ * the entry count rather than the maximum weight.
+ *
+ * The cache can be bounded by entry count or by a custom weight, and entries
+ * can expire a fixed time after they were written. Expired entries are
+ * dropped when they are next looked up, when they are considered for
+ * eviction, or by {@link #cleanUp()}.
+ */
+public class TinyLfuCache<K, V> {
+  private static final int INITIAL_SKETCH_CAPACITY = 16;
+
+  private final Map<K, CacheNode<K, V>> index;
+  private final FrequencySketch sketch;
+  private final AccessOrderList<K, V> window;
+  private final AccessOrderList<K, V> probation;
+  private final AccessOrderList<K, V> protectedSegment;
+  private final ToIntBiFunction<? super K, ? super V> weigher;
+  private final LongSupplier ticker;
+  private final long maximumWeight;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final long expireAfterWriteNanos;
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  private long evictionWeight;
+
+  /**
+   * Creates a cache holding at most {@code maximumSize} entries that never
+   * expire.
+   *
+   * @param maximumSize maximum number of entries
+   * @throws IllegalArgumentException if maximumSize is non-positive
+   */
+  public TinyLfuCache(int maximumSize) {
+    this(maximumSize, (key, value) -> 1, 0, System::nanoTime, maximumSize);
+  }
+
+  /**
+   * Creates a cache bounded by total weight, whose entries expire a fixed
+   * time after they were written.
+   *
+   * @param maximumWeight maximum total weight of the entries
+   * @param weigher function giving the non-negative weight of an entry
+   * @param expireAfterWriteNanos lifetime of an entry in nanoseconds, or 0
+   * for entries that never expire
+   * @throws IllegalArgumentException if maximumWeight is non-positive,
+   * weigher is null or expireAfterWriteNanos is negative
+   */
+  public TinyLfuCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, long expireAfterWriteNanos) {
+    this(maximumWeight, weigher, expireAfterWriteNanos, System::nanoTime);
+  }
+
+  /**
+   * Creates a cache bounded by total weight that reads the time from the
+   * given ticker.
+   *
+   * @param maximumWeight maximum total weight of the entries
+   * @param weigher function giving the non-negative weight of an entry
+   * @param expireAfterWriteNanos lifetime of an entry in nanoseconds, or 0
+   * for entries that never expire
+   * @param ticker source of the current time in nanoseconds
+   * @throws IllegalArgumentException if maximumWeight is non-positive,
+   * weigher or ticker is null or expireAfterWriteNanos is negative
+   */
+  public TinyLfuCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, long expireAfterWriteNanos,
+      LongSupplier ticker) {
+    this(maximumWeight, weigher, expireAfterWriteNanos, ticker, INITIAL_SKETCH_CAPACITY);
+  }
+
+  /**
+   * Creates a cache bounded by total weight whose sketch starts sized for
+   * the given number of entries.
+   */
+  private TinyLfuCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, long expireAfterWriteNanos,
+      LongSupplier ticker, int sketchCapacity) {
+    if (maximumWeight <= 0) throw new IllegalArgumentException("Cannot create cache with non-positive maximum weight.");
+    if (weigher == null) throw new IllegalArgumentException("Cannot create cache with null weigher.");
+    if (expireAfterWriteNanos < 0) throw new IllegalArgumentException("Cannot create cache with negative expiry.");
+    if (ticker == null) throw new IllegalArgumentException("Cannot create cache with null ticker.");
+
+    this.maximumWeight = maximumWeight;
+    this.windowMaximum = Math.max(1, maximumWeight / 100);
+    this.protectedMaximum = (maximumWeight - windowMaximum) * 80 / 100;
+    this.weigher = weigher;
+    this.expireAfterWriteNanos = expireAfterWriteNanos;
+    this.ticker = ticker;
+
+    index = new HashMap<>();
+    sketch = new FrequencySketch(sketchCapacity);
+    window = new AccessOrderList<>();
+    probation = new AccessOrderList<>();
+    protectedSegment = new AccessOrderList<>();
+  }
+
+  /**
+   * Gets the value cached for the key, marking it as recently used.
+   *
+   * @param key the key to look up
+   * @throws IllegalArgumentException if key is null
+   * @return the cached value, or null if the key is not cached or expired
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from cache.");
+
+    sketch.increment(key);
+    CacheNode<K, V> node = index.get(key);
+
+    if (node == null) {
+      missCount++;
+      return null;
+    }
+
+    if (isExpired(node)) {
+      evict(node);
+      missCount++;
+      return null;
+    }
+
+    hitCount++;
+    onAccess(node);
+
+    return node.getValue();
+  }
+
+  /**
+   * Adds or replaces the value for a key, then evicts entries until the
+   * cache is back within its maximum weight. The new entry itself may be
+   * evicted if it is not popular enough to be admitted.
+   *
+   * @param key the key to cache
+   * @param value the value to cache
+   * @throws IllegalArgumentException if key or value is null, or the weigher
+   * returns a negative weight
+   * @return the value previously cached for the key, or null if there was
+   * none
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to cache.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to cache.");
+
+    int weight = weigher.applyAsInt(key, value);
+    if (weight < 0) throw new IllegalArgumentException("Cannot add data with negative weight to cache.");
+
+    sketch.increment(key);
+    CacheNode<K, V> node = index.get(key);
+    V oldVal = null;
+    boolean added = node == null;
+
+    if (added) { //New entry -> most recently used end of the window
+      node = new CacheNode<>(key, value, weight, ticker.getAsLong());
+      index.put(key, node);
+      window.addToBack(node);
+    } else { //Existing entry -> update in place
+      oldVal = isExpired(node) ? null : node.getValue();
+      listFor(node).addWeight(weight - node.getWeight());
+      node.setWeight(weight);
+      node.setValue(value);
+      node.setWriteTime(ticker.getAsLong());
+      onAccess(node);
+    }
+
+    evictOverflow();
+
+    //Sized after eviction, so a cache briefly over its bound does not grow it
+    if (added) sketch.ensureCapacity(index.size());
+
+    return oldVal;
+  }
+
+  /**
+   * Removes the key from the cache.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @return the value that was cached for the key, or null if there was none
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from cache.");
+
+    CacheNode<K, V> node = index.remove(key);
+    if (node == null) return null;
+
+    listFor(node).remove(node);
+
+    return isExpired(node) ? null : node.getValue();
+  }
+
+  /**
+   * Evicts every expired entry.
+   */
+  public void cleanUp() {
+    if (expireAfterWriteNanos == 0) return;
+
+    for (AccessOrderList<K, V> list : List.of(window, probation, protectedSegment)) {
+      CacheNode<K, V> curr = list.first();
+
+      while (curr != null) {
+        CacheNode<K, V> next = curr.getNext();
+        if (isExpired(curr)) evict(curr);
+        curr = next;
+      }
+    }
+  }
+
+  /**
+   * Removes every entry from the cache. The frequency history and counters
+   * are kept.
+   */
+  public void clear() {
+    index.clear();
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+  }
+
+  /**
+   * Returns the number of entries in the cache, including any expired
+   * entries that have not been dropped yet.
+   *
+   * @return number of entries in the cache
+   */
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * Returns the total weight of the entries in the cache.
+   *
+   * @return total weight of the cache
+   */
+  public long weightedSize() {
+    return window.getWeight() + probation.getWeight() + protectedSegment.getWeight();
+  }
+
+  /**
+   * Returns the number of lookups that found a live entry.
+   *
+   * @return the hit count
+   */
+  public long hitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of lookups that found no live entry.
+   *
+   * @return the miss count
+   */
+  public long missCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the fraction of lookups that were hits.
+   *
+   * @return the hit rate, or 1.0 if there have been no lookups
+   */
+  public double hitRate() {
+    long lookups = hitCount + missCount;
+    return lookups == 0 ? 1.0 : (double) hitCount / lookups;
+  }
+
+  /**
+   * Returns the number of entries evicted for size, weight or expiry.
+   *
+   * @return the eviction count
+   */
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Returns the total weight of the entries evicted.
+   *
+   * @return the evicted weight
+   */
+  public long evictionWeight() {
+    return evictionWeight;
+  }
+
+  /**
+   * Moves an entry that was just used to the most recently used end of its
+   * region, promoting probation entries to the protected segment.
+   *
+   * @param node the entry that was used
+   */
+  private void onAccess(CacheNode<K, V> node) {
+    if (node.getRegion() == CacheNode.PROBATION) { //Second hit -> protect
+      probation.remove(node);
+      node.setRegion(CacheNode.PROTECTED);
+      protectedSegment.addToBack(node);
+
+      //Demotes the least recently used protected entries back to probation
+      while (protectedSegment.getWeight() > protectedMaximum && protectedSegment.first() != node) {
+        CacheNode<K, V> demoted = protectedSegment.first();
+        protectedSegment.remove(demoted);
+        demoted.setRegion(CacheNode.PROBATION);
+        probation.addToBack(demoted);
+      }
+    } else {
+      listFor(node).moveToBack(node);
+    }
+  }
+
+  /**
+   * Moves window overflow into probation, then evicts until the cache is
+   * within its maximum weight. Each entry leaving the window is a candidate
+   * that duels the oldest probation entry (the victim) while the cache is
+   * over its bound: the one the sketch has seen less often is evicted, or
+   * the candidate on a tie. Once no entry is leaving the window, any
+   * remaining overflow evicts the oldest probation entry.
+   */
+  private void evictOverflow() {
+    while (window.getWeight() > windowMaximum) {
+      CacheNode<K, V> candidate = window.first();
+      window.remove(candidate);
+      candidate.setRegion(CacheNode.PROBATION);
+      probation.addToBack(candidate);
+
+      //The candidate keeps dueling until it loses or the cache fits
+      while (weightedSize() > maximumWeight) {
+        CacheNode<K, V> victim = probation.first();
+
+        if (victim != candidate && (isExpired(victim) || !isExpired(candidate)
+            && sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey()))) {
+          evict(victim);
+        } else {
+          evict(candidate);
+          break;
+        }
+      }
+    }
+
+    while (weightedSize() > maximumWeight) {
+      if (probation.first() != null) {
+        evict(probation.first());
+      } else { //Probation is empty -> fall back to protected, then window
+        evict(protectedSegment.first() != null ? protectedSegment.first() : window.first());
+      }
+    }
+  }
+
+  /**
+   * Removes an entry from the cache and counts it as evicted.
+   *
+   * @param node the entry to evict
+   */
+  private void evict(CacheNode<K, V> node) {
+    index.remove(node.getKey());
+    listFor(node).remove(node);
+    evictionCount++;
+    evictionWeight += node.getWeight();
+  }
+
+  /**
+   * Returns whether the entry has outlived the expiry time.
+   *
+   * @param node the entry to check
+   * @return true if the entry is expired; false otherwise
+   */
+  private boolean isExpired(CacheNode<K, V> node) {
+    return expireAfterWriteNanos != 0 && ticker.getAsLong() - node.getWriteTime() >= expireAfterWriteNanos;
+  }
+
+  /**
+   * Returns the list of the region the entry is in.
+   *
+   * @param node the entry
+   * @return the entry's access-order list
+   */
+  private AccessOrderList<K, V> listFor(CacheNode<K, V> node) {
+    switch (node.getRegion()) {
+      case CacheNode.WINDOW:
+        return window;
+      case CacheNode.PROBATION:
+        return probation;
+      default:
+        return protectedSegment;
+    }
+  }
+
+  /**
+   * Doubly linked list of cache nodes from least to most recently used,
+   * tracking the total weight of its nodes.
+   */
+  private static class AccessOrderList<K, V> {
+    private CacheNode<K, V> head;
+    private CacheNode<K, V> tail;
+    private long weight;
+
+    CacheNode<K, V> first() {
+      return head;
+    }
+
+    CacheNode<K, V> last() {
+      return tail;
+    }
+
+    long getWeight() {
+      return weight;
+    }
+
+    void addWeight(long delta) {
+      weight += delta;
+    }
+
+    void addToBack(CacheNode<K, V> node) {
+      node.setPrevious(tail);
+      node.setNext(null);
+
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.setNext(node);
+      }
+
+      tail = node;
+      weight += node.getWeight();
+    }
+
+    void remove(CacheNode<K, V> node) {
+      if (node.getPrevious() == null) {
+        head = node.getNext();
+      } else {
+        node.getPrevious().setNext(node.getNext());
+      }
+
+      if (node.getNext() == null) {
+        tail = node.getPrevious();
+      } else {
+        node.getNext().setPrevious(node.getPrevious());
+      }
+
+      node.setPrevious(null);
+      node.setNext(null);
+      weight -= node.getWeight();
+    }
+
+    void moveToBack(CacheNode<K, V> node) {
+      if (node != tail) {
+        remove(node);
+        addToBack(node);
+      }
+    }
+
+    void clear() {
+      head = null;
+      tail = null;
+      weight = 0;
+    }
+  }
+}
@@ -1,8 +1,22 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /** This class implements a generic doubly linked list.
   @author Mikayla Crawford
   */
 
-public class DoublyLinkedList<T> implements LinkedListInterface<T> {
+public class DoublyLinkedList<T> implements LinkedListInterface<T>, Iterable<T> {
+  private static final int BATCH_UNIT = 1 << 10;
+  private static final int MAX_BATCH = 1 << 25;
+
   private LinkedListNode<T> head;
   private LinkedListNode<T> tail;
   private int size;
@@ -308,6 +322,90 @@ public class DoublyLinkedList<T> implements LinkedListInterface<T> {
     size = 0; //Resets size
   }
 
+  /**
+   * Returns an iterator over the elements of the list, from head to tail.
+   *
+   * @return an iterator over the elements of the list
+   */
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private final int expectedSize = size;
+      private LinkedListNode<T> next = head;
+
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      public T next() {
+        if (size != expectedSize) throw new ConcurrentModificationException();
+        if (next == null) throw new NoSuchElementException("Iterator has no more elements.");
+
+        T data = next.getData();
+        next = next.getNext();
+        return data;
+      }
+    };
+  }
+
+  /**
+   * Returns a spliterator over the elements of the list.
+   *
+   * A linked list cannot be split in the middle without walking to it, so
+   * each split copies a batch of elements from the front into an array and
+   * hands that off. Each batch is larger than the one before, so a
+   * parallel scan gets enough work to spread across threads after a few
+   * splits, while the copying stays a small part of the scan.
+   *
+   * @return a spliterator over the elements of the list
+   */
+  public Spliterator<T> spliterator() {
+    return new NodeSpliterator();
+  }
+
+  /**
+   * Returns a stream over the elements of the list.
+   *
+   * @param parallel whether the stream should be parallel
+   * @return a stream of the list's elements
+   */
+  public Stream<T> stream(boolean parallel) {
+    return StreamSupport.stream(spliterator(), parallel);
+  }
+
+  /**
+   * Performs the given action on every element in parallel on the common
+   * fork-join pool. The action may be called from several threads at once
+   * and in no particular order.
+   *
+   * @param action the action to perform on each element
+   * @throws IllegalArgumentException if action is null
+   */
+  public void parallelForEach(Consumer<? super T> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on list.");
+
+    stream(true).forEach(action);
+  }
+
+  /**
+   * Reduces the elements in parallel on the common fork-join pool. Each
+   * batch of the list is folded into a result with the accumulator,
+   * starting from identity, and the results are then merged in order with
+   * the combiner.
+   *
+   * @param identity the result for an empty batch; must be an identity for
+   * the combiner
+   * @param accumulator folds one element into a partial result
+   * @param combiner merges two partial results; must be associative
+   * @param <R> the type of the result
+   * @return the reduced result
+   * @throws IllegalArgumentException if accumulator or combiner is null
+   */
+  public <R> R parallelReduce(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner) {
+    if (accumulator == null || combiner == null) throw new IllegalArgumentException("Cannot reduce list with null function.");
+
+    return stream(true).reduce(identity, accumulator, combiner);
+  }
+
   /**
    * Returns the head node of the linked list. Used for testing.
    *
@@ -325,4 +423,84 @@ public class DoublyLinkedList<T> implements LinkedListInterface<T> {
   public LinkedListNode<T> getTail() {
       return tail;
   }
+
+  /**
+   * Spliterator that walks the nodes and splits off growing array batches
+   * from the front. The head and size are captured on first use, and a
+   * change in size afterwards fails the traversal.
+   */
+  private final class NodeSpliterator implements Spliterator<T> {
+    private LinkedListNode<T> current;
+    private int expectedSize = -1; //-1 until first use
+    private int remaining;
+    private int batch;
+
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (action == null) throw new IllegalArgumentException("Cannot perform null action on list.");
+      if (getRemaining() == 0) return false;
+
+      T data = current.getData();
+      current = current.getNext();
+      remaining--;
+      action.accept(data);
+      checkForModification();
+      return true;
+    }
+
+    public void forEachRemaining(Consumer<? super T> action) {
+      if (action == null) throw new IllegalArgumentException("Cannot perform null action on list.");
+
+      for (int n = getRemaining(); n > 0; n--) {
+        action.accept(current.getData());
+        current = current.getNext();
+      }
+
+      remaining = 0;
+      checkForModification();
+    }
+
+    public Spliterator<T> trySplit() {
+      if (getRemaining() <= 1) return null;
+
+      int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+      Object[] elements = new Object[n];
+
+      //Copies the next batch of elements
+      for (int i = 0; i < n; i++) {
+        elements[i] = current.getData();
+        current = current.getNext();
+      }
+
+      checkForModification();
+      batch = n;
+      remaining -= n;
+
+      return Spliterators.spliterator(elements, 0, n, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    public long estimateSize() {
+      return getRemaining();
+    }
+
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL;
+    }
+
+    /**
+     * Binds the spliterator to the current head and size on first use.
+     */
+    private int getRemaining() {
+      if (expectedSize < 0) {
+        current = head;
+        expectedSize = size;
+        remaining = size;
+      }
+
+      return remaining;
+    }
+
+    private void checkForModification() {
+      if (size != expectedSize) throw new ConcurrentModificationException();
+    }
+  }
 }
@@ -0,0 +1,105 @@
+/**
+ * Classic Bloom filter.
+ *
+ * Each element sets k bits of a bit array, chosen by combining two halves of
+ * its hash (k1 + i * k2). The bit array and k are sized from the expected
+ * number of elements and the target false-positive rate. Bits are shared
+ * between elements, so elements cannot be removed.
+ */
+public class BloomFilter<T> implements MembershipFilter<T> {
+  private final long[] bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * Creates a filter that keeps the given false-positive rate for up to the
+   * expected number of elements.
+   *
+   * @param expectedElements number of elements the filter is sized for
+   * @param falsePositiveRate target rate of false positives, between 0 and 1
+   * @throws IllegalArgumentException if expectedElements is non-positive or
+   * falsePositiveRate is not strictly between 0 and 1
+   */
+  public BloomFilter(int expectedElements, double falsePositiveRate) {
+    if (expectedElements <= 0) throw new IllegalArgumentException("Cannot create filter for non-positive number of elements.");
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) throw new IllegalArgumentException("Cannot create filter with false-positive rate outside (0, 1).");
+
+    //m = -n ln p / (ln 2)^2 and k = m / n ln 2 minimize the false-positive rate
+    long m = (long) Math.ceil(-expectedElements * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    bits = new long[(int) Math.min((m + 63) >>> 6, Integer.MAX_VALUE - 8)];
+    bitCount = (long) bits.length << 6;
+    hashCount = Math.max(1, (int) Math.round((double) m / expectedElements * Math.log(2)));
+  }
+
+  /**
+   * Sets the element's k bits.
+   *
+   * @param element the element to add
+   * @throws IllegalArgumentException if element is null
+   * @return true, since a Bloom filter is never full
+   */
+  public boolean add(T element) {
+    if (element == null) throw new IllegalArgumentException("Cannot add null element to filter.");
+
+    long hash = MembershipFilter.hash(element);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns whether all of the element's k bits are set.
+   *
+   * @param element the element to test
+   * @throws IllegalArgumentException if element is null
+   * @return false if the element was definitely not added
+   */
+  public boolean mightContain(T element) {
+    if (element == null) throw new IllegalArgumentException("Cannot test null element against filter.");
+
+    long hash = MembershipFilter.hash(element);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Clears every bit.
+   */
+  public void clear() {
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = 0L;
+    }
+  }
+
+  /**
+   * Gets the number of bits each element sets.
+   *
+   * @return k
+   */
+  public int getHashCount() {
+    return hashCount;
+  }
+
+  /**
+   * Gets the length of the bit array.
+   *
+   * @return the number of bits
+   */
+  public long getBitCount() {
+    return bitCount;
+  }
+}
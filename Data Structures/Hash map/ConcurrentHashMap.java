@@ -0,0 +1,785 @@
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Thread-safe implementation of HashMap using external chaining.
+ *
+ * Reads never lock: they walk an immutable-keyed chain whose links are
+ * volatile. Writes to an empty bin are a single CAS; writes to a non-empty
+ * bin lock only that bin's head node. When the table needs to grow, every
+ * thread that touches it claims a stride of bins and moves them, leaving a
+ * forwarding node behind, so resizing is shared instead of stalling one
+ * writer.
+ *
+ * The table length is always a power of two, so each bin of the old table
+ * maps onto a fixed set of bins in the new one and the bins can be moved
+ * independently.
+ */
+public class ConcurrentHashMap<K, V> implements HashMapInterface<K, V> {
+  private static final int MOVED = -1; //Hash of forwarding nodes
+  private static final int RESERVED = -2; //Hash of placeholders held by computeIfAbsent
+  private static final int HASH_BITS = 0x7FFFFFFF;
+  private static final int MIN_TRANSFER_STRIDE = 16;
+
+  private volatile AtomicReferenceArray<Node<K, V>> table;
+  private volatile Transfer<K, V> transfer; //Running resize, if any
+  private final Object resizeLock = new Object();
+  private final LongAdder count = new LongAdder();
+
+  /**
+   * Create a hash map with no entries. The backing table has room for
+   * {@code INITIAL_CAPACITY} entries.
+   */
+  public ConcurrentHashMap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a hash map with no entries. The backing table length is the
+   * smallest power of two no less than {@code initialCapacity}.
+   *
+   * @param initialCapacity initial capacity of the backing table
+   * @throws IllegalArgumentException if initialCapacity is non-positive
+   */
+  public ConcurrentHashMap(int initialCapacity) {
+    if (initialCapacity <= 0) throw new IllegalArgumentException("Cannot create hashmap with non-positive capacity.");
+
+    table = new AtomicReferenceArray<>(tableLengthFor(initialCapacity));
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in.
+   *
+   * New entries are added to the back of the chain. The table is grown once
+   * the number of entries exceeds MAX_LOAD_FACTOR, after the entry is added.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    return putVal(key, value, false);
+  }
+
+  /**
+   * Adds the given key-value pair only if the key is not already in the map.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the value was added, otherwise the value already
+   * associated with the key
+   */
+  public V putIfAbsent(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    return putVal(key, value, true);
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    int hash = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    while (true) {
+      int index = hash & (tab.length() - 1);
+      Node<K, V> head = tab.get(index);
+
+      if (head == null) {
+        throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+      } else if (head.hash == MOVED) { //Bin was moved -> help and retry in new table
+        tab = helpTransfer(((ForwardingNode<K, V>) head).transfer);
+      } else if (head.hash == RESERVED) { //Bin is being computed -> wait for it
+        synchronized (head) { }
+      } else {
+        synchronized (head) {
+          if (tab.get(index) == head) { //Head is unchanged, bin is ours
+            Node<K, V> prev = null;
+
+            for (Node<K, V> curr = head; curr != null; curr = curr.next) {
+              if (curr.hash == hash && curr.key.equals(key)) { //Match
+                if (prev == null) {
+                  tab.set(index, curr.next); //Remove head
+                } else {
+                  prev.next = curr.next; //Unlink
+                }
+
+                count.decrement();
+                return curr.value;
+              }
+
+              prev = curr;
+            }
+
+            throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the value associated with the given key. Never locks.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    Node<K, V> node = find(key);
+    if (node == null) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return node.value;
+  }
+
+  /**
+   * Returns whether or not the key is in the map. Never locks.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return find(key) != null;
+  }
+
+  /**
+   * Returns the value for the key, computing and adding it first if the key
+   * is not in the map. The whole operation is atomic: the mapping function
+   * is called at most once per call, and no other write to the key's bin
+   * happens while it runs, so it must be short and must not touch this map.
+   *
+   * @param key the key to search for
+   * @param mappingFunction function computing the value of an absent key
+   * @throws IllegalArgumentException if key or mappingFunction is null
+   * @return the existing or computed value, or null if the function returned
+   * null (in which case nothing is added)
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    if (key == null) throw new IllegalArgumentException("Cannot compute data with null key in hashmap.");
+    if (mappingFunction == null) throw new IllegalArgumentException("Cannot compute data with null function.");
+
+    int hash = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    while (true) {
+      int index = hash & (tab.length() - 1);
+      Node<K, V> head = tab.get(index);
+
+      if (head == null) { //Reserve the empty bin while computing
+        Node<K, V> reservation = new Node<>(RESERVED, null, null, null);
+        boolean reserved = false;
+        V value = null;
+
+        synchronized (reservation) {
+          if (tab.compareAndSet(index, null, reservation)) {
+            reserved = true;
+
+            try {
+              value = mappingFunction.apply(key);
+            } finally {
+              tab.set(index, value == null ? null : new Node<>(hash, key, value, null));
+            }
+          }
+        }
+
+        if (reserved) {
+          if (value != null) addCount(tab, 1);
+          return value;
+        }
+      } else if (head.hash == MOVED) {
+        tab = helpTransfer(((ForwardingNode<K, V>) head).transfer);
+      } else if (head.hash == RESERVED) {
+        synchronized (head) { }
+      } else {
+        V value = null;
+
+        synchronized (head) {
+          if (tab.get(index) == head) {
+            Node<K, V> last = null;
+
+            for (Node<K, V> curr = head; curr != null; curr = curr.next) {
+              if (curr.hash == hash && curr.key.equals(key)) return curr.value; //Already present
+
+              last = curr;
+            }
+
+            value = mappingFunction.apply(key);
+            if (value == null) return null;
+
+            last.next = new Node<>(hash, key, value, null); //Add to back
+          }
+        }
+
+        if (value != null) {
+          addCount(tab, 1);
+          return value;
+        }
+      }
+    }
+  }
+
+  /**
+   * Atomically combines the given value with the key's current value. If
+   * the key is not in the map, the value is added as is. If the remapping
+   * function returns null, the entry is removed.
+   *
+   * @param key the key to merge into
+   * @param value the value to add or combine
+   * @param remappingFunction function combining the old and given values
+   * @throws IllegalArgumentException if any argument is null
+   * @return the new value associated with the key, or null if it was removed
+   */
+  public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+    if (key == null) throw new IllegalArgumentException("Cannot merge data with null key in hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot merge null value in hashmap.");
+    if (remappingFunction == null) throw new IllegalArgumentException("Cannot merge data with null function.");
+
+    int hash = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    while (true) {
+      int index = hash & (tab.length() - 1);
+      Node<K, V> head = tab.get(index);
+
+      if (head == null) {
+        if (tab.compareAndSet(index, null, new Node<>(hash, key, value, null))) {
+          addCount(tab, 1);
+          return value;
+        }
+      } else if (head.hash == MOVED) {
+        tab = helpTransfer(((ForwardingNode<K, V>) head).transfer);
+      } else if (head.hash == RESERVED) {
+        synchronized (head) { }
+      } else {
+        boolean added = false;
+
+        synchronized (head) {
+          if (tab.get(index) == head) {
+            Node<K, V> prev = null;
+
+            for (Node<K, V> curr = head; curr != null; curr = curr.next) {
+              if (curr.hash == hash && curr.key.equals(key)) { //Combine with existing value
+                V newVal = remappingFunction.apply(curr.value, value);
+
+                if (newVal != null) {
+                  curr.value = newVal;
+                } else if (prev == null) {
+                  tab.set(index, curr.next);
+                  count.decrement();
+                } else {
+                  prev.next = curr.next;
+                  count.decrement();
+                }
+
+                return newVal;
+              }
+
+              prev = curr;
+            }
+
+            prev.next = new Node<>(hash, key, value, null); //Add to back
+            added = true;
+          }
+        }
+
+        if (added) {
+          addCount(tab, 1);
+          return value;
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes every entry from the map, one bin at a time. Entries added by
+   * other threads while the clear is running may survive it. The table
+   * keeps its current length, since swapping tables under concurrent writers
+   * could lose their updates.
+   */
+  public void clear() {
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    int index = 0;
+
+    while (index < tab.length()) {
+      Node<K, V> head = tab.get(index);
+
+      if (head == null) {
+        index++;
+      } else if (head.hash == MOVED) { //Finish moving, then restart on the new table
+        tab = helpTransfer(((ForwardingNode<K, V>) head).transfer);
+        index = 0;
+      } else if (head.hash == RESERVED) {
+        synchronized (head) { }
+      } else {
+        synchronized (head) {
+          if (tab.get(index) == head) {
+            int removed = 0;
+
+            for (Node<K, V> curr = head; curr != null; curr = curr.next) {
+              removed++;
+            }
+
+            tab.set(index, null);
+            count.add(-removed);
+            index++;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of elements in the map. The count is only a snapshot
+   * while other threads are writing.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    long sum = count.sum();
+    return sum < 0 ? 0 : (sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum);
+  }
+
+  /**
+   * Returns a Set of the keys contained in this map. Use
+   * {@code java.util.HashSet}. The set reflects some state of the map
+   * between the start and end of the call.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    for (int i = 0; i < tab.length(); i++) {
+      for (Node<K, V> curr : bin(tab, i)) {
+        set.add(curr.key);
+      }
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List of the values contained in this map. The list reflects
+   * some state of the map between the start and end of the call.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    for (int i = 0; i < tab.length(); i++) {
+      for (Node<K, V> curr : bin(tab, i)) {
+        list.add(curr.value);
+      }
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}. Entries added or removed during the walk may or may
+   * not be seen.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    for (int i = 0; i < tab.length(); i++) {
+      for (Node<K, V> curr : bin(tab, i)) {
+        action.accept(curr.key, curr.value);
+      }
+    }
+  }
+
+  /**
+   * Grow the backing table to the smallest power of two no less than
+   * {@code length}. The calling thread moves bins alongside any other thread
+   * that touches the map until the resize is done.
+   *
+   * The table never shrinks, so a length no greater than the current one is
+   * ignored.
+   *
+   * @param length new length of the backing table
+   * @throws IllegalArgumentException if length is non-positive or less than
+   * the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length < size()) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    int newLength = tableLengthFor(length);
+
+    while (true) {
+      AtomicReferenceArray<Node<K, V>> tab = table;
+      if (newLength <= tab.length()) return;
+
+      Transfer<K, V> running = transfer;
+
+      if (running != null) { //Finish the running resize first
+        helpTransfer(running);
+      } else if (startTransfer(tab, newLength)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * Bins do not hold MapEntry objects, so this builds a snapshot of the
+   * table with each chain copied into MapEntry objects.
+   *
+   * @return a copy of the backing table, INCLUDE EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    MapEntry<K, V>[] entries = (MapEntry<K, V>[]) new MapEntry[tab.length()];
+
+    for (int i = 0; i < tab.length(); i++) {
+      MapEntry<K, V> tail = null;
+
+      for (Node<K, V> curr : bin(tab, i)) {
+        MapEntry<K, V> entry = new MapEntry<>(curr.key, curr.value);
+
+        if (tail == null) {
+          entries[i] = entry;
+        } else {
+          tail.setNext(entry);
+        }
+
+        tail = entry;
+      }
+    }
+
+    return entries;
+  }
+
+  /**
+   * Shared body of put and putIfAbsent.
+   *
+   * @param key key to add
+   * @param value value to add
+   * @param onlyIfAbsent whether an existing value should be kept
+   * @return the previous value, or null if the key was not in the map
+   */
+  private V putVal(K key, V value, boolean onlyIfAbsent) {
+    int hash = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    while (true) {
+      int index = hash & (tab.length() - 1);
+      Node<K, V> head = tab.get(index);
+
+      if (head == null) { //Empty bin -> no lock needed
+        if (tab.compareAndSet(index, null, new Node<>(hash, key, value, null))) {
+          addCount(tab, 1);
+          return null;
+        }
+      } else if (head.hash == MOVED) { //Bin was moved -> help and retry in new table
+        tab = helpTransfer(((ForwardingNode<K, V>) head).transfer);
+      } else if (head.hash == RESERVED) { //Bin is being computed -> wait for it
+        synchronized (head) { }
+      } else {
+        boolean added = false;
+
+        synchronized (head) {
+          if (tab.get(index) == head) { //Head is unchanged, bin is ours
+            Node<K, V> last = null;
+
+            for (Node<K, V> curr = head; curr != null; curr = curr.next) {
+              if (curr.hash == hash && curr.key.equals(key)) { //Key already exists
+                V oldVal = curr.value;
+                if (!onlyIfAbsent) curr.value = value;
+                return oldVal;
+              }
+
+              last = curr;
+            }
+
+            last.next = new Node<>(hash, key, value, null); //Add to back
+            added = true;
+          }
+        }
+
+        //Counted outside the lock, since counting may help resize other bins
+        if (added) {
+          addCount(tab, 1);
+          return null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the node holding the given key without locking.
+   *
+   * @param key the key to search for
+   * @return the node holding the key, or null if it is not in the map
+   */
+  private Node<K, V> find(K key) {
+    int hash = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+
+    while (true) {
+      Node<K, V> curr = tab.get(hash & (tab.length() - 1));
+
+      if (curr != null && curr.hash == MOVED) { //Bin was moved -> look in new table
+        tab = ((ForwardingNode<K, V>) curr).transfer.newTable;
+      } else {
+        for (; curr != null; curr = curr.next) {
+          if (curr.hash == hash && curr.key.equals(key)) return curr;
+        }
+
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Collects the nodes of a bin, following forwarding nodes into the bins
+   * the old bin was split into.
+   *
+   * @param tab the table holding the bin
+   * @param index the bin to collect
+   * @return the nodes in the bin
+   */
+  private List<Node<K, V>> bin(AtomicReferenceArray<Node<K, V>> tab, int index) {
+    List<Node<K, V>> nodes = new LinkedList<>();
+    Node<K, V> head = tab.get(index);
+
+    if (head != null && head.hash == MOVED) {
+      AtomicReferenceArray<Node<K, V>> newTable = ((ForwardingNode<K, V>) head).transfer.newTable;
+
+      //Every new bin congruent to index came from this bin
+      for (int i = index; i < newTable.length(); i += tab.length()) {
+        nodes.addAll(bin(newTable, i));
+      }
+    } else {
+      for (Node<K, V> curr = head; curr != null; curr = curr.next) {
+        if (curr.hash >= 0) nodes.add(curr);
+      }
+    }
+
+    return nodes;
+  }
+
+  /**
+   * Updates the element count and starts a resize once the table exceeds
+   * MAX_LOAD_FACTOR.
+   *
+   * @param tab the table the entry was added to
+   * @param delta change in the number of elements
+   */
+  private void addCount(AtomicReferenceArray<Node<K, V>> tab, int delta) {
+    count.add(delta);
+
+    if (count.sum() > tab.length() * MAX_LOAD_FACTOR && tab == table) {
+      Transfer<K, V> running = transfer;
+
+      if (running != null) {
+        helpTransfer(running);
+      } else {
+        startTransfer(tab, tab.length() << 1);
+      }
+    }
+  }
+
+  /**
+   * Starts moving {@code tab} into a new table and helps until no bins are
+   * left to claim.
+   *
+   * @param tab the table to move
+   * @param newLength the power-of-two length of the new table
+   * @return whether this thread started the resize
+   */
+  private boolean startTransfer(AtomicReferenceArray<Node<K, V>> tab, int newLength) {
+    Transfer<K, V> t;
+
+    //Resizes are rare, so starting one may lock
+    synchronized (resizeLock) {
+      if (transfer != null || table != tab) return false; //Already running, or tab is stale
+
+      t = new Transfer<>(tab, new AtomicReferenceArray<>(newLength));
+      transfer = t;
+    }
+
+    helpTransfer(t);
+    return true;
+  }
+
+  /**
+   * Claims strides of bins from the given resize and moves them until none
+   * are left. The thread that moves the last bin publishes the new table.
+   *
+   * @param t the running resize
+   * @return the table being moved into
+   */
+  private AtomicReferenceArray<Node<K, V>> helpTransfer(Transfer<K, V> t) {
+    int length = t.oldTable.length();
+    int stride = Math.max(MIN_TRANSFER_STRIDE, length / (8 * Runtime.getRuntime().availableProcessors()));
+    int start;
+
+    while ((start = t.nextBin.get()) < length) {
+      int end = Math.min(start + stride, length);
+      if (!t.nextBin.compareAndSet(start, end)) continue; //Lost the claim -> retry
+
+      for (int i = start; i < end; i++) {
+        transferBin(t, i);
+      }
+
+      if (t.remaining.addAndGet(start - end) == 0) { //Last bin moved
+        table = t.newTable; //Publish before allowing the next resize
+        transfer = null;
+      }
+    }
+
+    return t.newTable;
+  }
+
+  /**
+   * Copies one bin of the old table into the new table and replaces it with
+   * a forwarding node. Nodes are copied rather than relinked so that readers
+   * still walking the old chain are not misled.
+   *
+   * @param t the running resize
+   * @param index the bin to move
+   */
+  private void transferBin(Transfer<K, V> t, int index) {
+    AtomicReferenceArray<Node<K, V>> oldTable = t.oldTable;
+    AtomicReferenceArray<Node<K, V>> newTable = t.newTable;
+    int newMask = newTable.length() - 1;
+
+    while (true) {
+      Node<K, V> head = oldTable.get(index);
+
+      if (head == null) {
+        if (oldTable.compareAndSet(index, null, t.forwardingNode)) return;
+      } else {
+        synchronized (head) { //Also waits out a computeIfAbsent on the bin
+          if (oldTable.get(index) == head && head.hash != RESERVED) {
+            for (Node<K, V> curr = head; curr != null; curr = curr.next) {
+              int newIndex = curr.hash & newMask;
+              newTable.set(newIndex, new Node<>(curr.hash, curr.key, curr.value, newTable.get(newIndex)));
+            }
+
+            oldTable.set(index, t.forwardingNode);
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Mixes the high bits of a hash into the low bits and clears the sign bit,
+   * which is reserved for special nodes.
+   *
+   * @param h the key's hash code
+   * @return the spread hash
+   */
+  private static int spread(int h) {
+    return (h ^ (h >>> 16)) & HASH_BITS;
+  }
+
+  /**
+   * Smallest power of two no less than the given capacity.
+   *
+   * @param capacity requested capacity
+   * @return the table length
+   */
+  private static int tableLengthFor(int capacity) {
+    int length = 1;
+
+    while (length < capacity) {
+      length <<= 1;
+    }
+
+    return length;
+  }
+
+  /**
+   * A link in a bin's chain. The key and hash never change once a node is
+   * published, so readers only need the volatile value and next fields.
+   */
+  private static class Node<K, V> {
+    final int hash;
+    final K key;
+    volatile V value;
+    volatile Node<K, V> next;
+
+    Node(int hash, K key, V value, Node<K, V> next) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  /**
+   * Placed in a bin of the old table once it has been moved.
+   */
+  private static class ForwardingNode<K, V> extends Node<K, V> {
+    final Transfer<K, V> transfer;
+
+    ForwardingNode(Transfer<K, V> transfer) {
+      super(MOVED, null, null, null);
+      this.transfer = transfer;
+    }
+  }
+
+  /**
+   * State of a running resize shared by all helping threads.
+   */
+  private static class Transfer<K, V> {
+    final AtomicReferenceArray<Node<K, V>> oldTable;
+    final AtomicReferenceArray<Node<K, V>> newTable;
+    final ForwardingNode<K, V> forwardingNode;
+    final AtomicInteger nextBin = new AtomicInteger(); //Next bin to claim
+    final AtomicInteger remaining; //Bins not yet moved
+
+    Transfer(AtomicReferenceArray<Node<K, V>> oldTable, AtomicReferenceArray<Node<K, V>> newTable) {
+      this.oldTable = oldTable;
+      this.newTable = newTable;
+      this.forwardingNode = new ForwardingNode<>(this);
+      this.remaining = new AtomicInteger(oldTable.length());
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/**
+ * Cuckoo filter, an approximate set that also supports removal.
+ *
+ * Each element is reduced to a short fingerprint stored in one of two
+ * buckets of four slots. The second bucket is the first XOR a hash of the
+ * fingerprint, so an entry can be moved between its buckets knowing only its
+ * fingerprint. When both buckets are full, a random resident is kicked to
+ * its other bucket, and so on until a free slot is found. The fingerprint
+ * length is chosen from the target false-positive rate.
+ *
+ * If a chain of kicks gives up, the homeless fingerprint is kept in a
+ * one-entry stash; only when the stash is also taken does add report the
+ * filter as full.
+ */
+public class CuckooFilter<T> implements MembershipFilter<T> {
+  private static final int SLOTS_PER_BUCKET = 4;
+  private static final int MAX_KICKS = 500;
+  private static final double MAX_LOAD = 0.95;
+
+  private final short[] slots; //Fingerprints, 0 marks an empty slot
+  private final int bucketMask;
+  private final int fingerprintMask;
+  private int size;
+  private long random;
+  private int stashBucket;
+  private short stashFingerprint;
+
+  /**
+   * Creates a filter that holds at least the given number of elements at
+   * roughly the given false-positive rate.
+   *
+   * @param capacity number of elements the filter is sized for
+   * @param falsePositiveRate target rate of false positives, between 0 and 1
+   * @throws IllegalArgumentException if capacity is non-positive or
+   * falsePositiveRate is not strictly between 0 and 1
+   */
+  public CuckooFilter(int capacity, double falsePositiveRate) {
+    if (capacity <= 0) throw new IllegalArgumentException("Cannot create filter for non-positive number of elements.");
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) throw new IllegalArgumentException("Cannot create filter with false-positive rate outside (0, 1).");
+
+    //A lookup compares 2 * 4 fingerprints, each matching with chance 2^-f
+    int bits = (int) Math.ceil(Math.log(2.0 * SLOTS_PER_BUCKET / falsePositiveRate) / Math.log(2));
+    fingerprintMask = (1 << Math.max(4, Math.min(16, bits))) - 1;
+
+    int buckets = 1;
+
+    while (buckets * SLOTS_PER_BUCKET * MAX_LOAD < capacity && buckets < (1 << 28)) {
+      buckets <<= 1;
+    }
+
+    slots = new short[buckets * SLOTS_PER_BUCKET];
+    bucketMask = buckets - 1;
+    random = 0x9E3779B97F4A7C15L;
+  }
+
+  /**
+   * Stores the element's fingerprint in one of its two buckets, kicking out
+   * other fingerprints if both are full.
+   *
+   * Adding an element more than once stores more than one copy, and each
+   * copy has to be removed separately.
+   *
+   * @param element the element to add
+   * @throws IllegalArgumentException if element is null
+   * @return false if the filter is full and could not record the element,
+   * true otherwise
+   */
+  public boolean add(T element) {
+    if (element == null) throw new IllegalArgumentException("Cannot add null element to filter.");
+    if (stashFingerprint != 0) return false;
+
+    long hash = MembershipFilter.hash(element);
+    short fingerprint = fingerprintOf(hash);
+    int bucket = (int) hash & bucketMask;
+
+    if (insert(bucket, fingerprint) || insert(alternate(bucket, fingerprint), fingerprint)) {
+      size++;
+      return true;
+    }
+
+    //Kicks random residents to their other bucket until one finds room
+    for (int kick = 0; kick < MAX_KICKS; kick++) {
+      int slot = bucket * SLOTS_PER_BUCKET + nextRandom(SLOTS_PER_BUCKET);
+      short victim = slots[slot];
+      slots[slot] = fingerprint;
+      fingerprint = victim;
+      bucket = alternate(bucket, fingerprint);
+
+      if (insert(bucket, fingerprint)) {
+        size++;
+        return true;
+      }
+    }
+
+    //The element itself is stored; the last homeless fingerprint waits in the stash
+    stashBucket = bucket;
+    stashFingerprint = fingerprint;
+    size++;
+    return true;
+  }
+
+  /**
+   * Returns whether the element's fingerprint is in either of its buckets.
+   *
+   * @param element the element to test
+   * @throws IllegalArgumentException if element is null
+   * @return false if the element was definitely not added
+   */
+  public boolean mightContain(T element) {
+    if (element == null) throw new IllegalArgumentException("Cannot test null element against filter.");
+
+    long hash = MembershipFilter.hash(element);
+    short fingerprint = fingerprintOf(hash);
+    int bucket1 = (int) hash & bucketMask;
+    int bucket2 = alternate(bucket1, fingerprint);
+
+    if (stashFingerprint == fingerprint && (stashBucket == bucket1 || stashBucket == bucket2)) return true;
+
+    return find(bucket1, fingerprint) >= 0 || find(bucket2, fingerprint) >= 0;
+  }
+
+  /**
+   * Removes one copy of the element's fingerprint.
+   *
+   * @param element the element to remove
+   * @throws IllegalArgumentException if element is null
+   * @return whether a matching fingerprint was found and removed
+   */
+  @Override
+  public boolean remove(T element) {
+    if (element == null) throw new IllegalArgumentException("Cannot remove null element from filter.");
+
+    long hash = MembershipFilter.hash(element);
+    short fingerprint = fingerprintOf(hash);
+    int bucket1 = (int) hash & bucketMask;
+    int bucket2 = alternate(bucket1, fingerprint);
+
+    if (stashFingerprint == fingerprint && (stashBucket == bucket1 || stashBucket == bucket2)) {
+      stashFingerprint = 0;
+      size--;
+      return true;
+    }
+
+    int slot = find(bucket1, fingerprint);
+    if (slot < 0) slot = find(bucket2, fingerprint);
+    if (slot < 0) return false;
+
+    slots[slot] = 0;
+    size--;
+
+    //Freed room lets the stashed fingerprint back into the table
+    if (stashFingerprint != 0 && (insert(stashBucket, stashFingerprint)
+        || insert(alternate(stashBucket, stashFingerprint), stashFingerprint))) {
+      stashFingerprint = 0;
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns true, since fingerprints can be removed.
+   *
+   * @return true
+   */
+  @Override
+  public boolean supportsRemoval() {
+    return true;
+  }
+
+  /**
+   * Empties every bucket and the stash.
+   */
+  public void clear() {
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = 0;
+    }
+
+    stashFingerprint = 0;
+    size = 0;
+  }
+
+  /**
+   * Returns the number of fingerprints stored.
+   *
+   * @return number of elements added and not removed
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the number of bits in each fingerprint.
+   *
+   * @return the fingerprint length
+   */
+  public int getFingerprintBits() {
+    return Integer.bitCount(fingerprintMask);
+  }
+
+  /**
+   * Stores the fingerprint in a free slot of the bucket, if there is one.
+   */
+  private boolean insert(int bucket, short fingerprint) {
+    int base = bucket * SLOTS_PER_BUCKET;
+
+    for (int i = base; i < base + SLOTS_PER_BUCKET; i++) {
+      if (slots[i] == 0) {
+        slots[i] = fingerprint;
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @return the slot of the bucket holding the fingerprint, or -1
+   */
+  private int find(int bucket, short fingerprint) {
+    int base = bucket * SLOTS_PER_BUCKET;
+
+    for (int i = base; i < base + SLOTS_PER_BUCKET; i++) {
+      if (slots[i] == fingerprint) return i;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Fingerprint from the upper bits of the hash, never 0.
+   */
+  private short fingerprintOf(long hash) {
+    int fingerprint = (int) (hash >>> 40) & fingerprintMask;
+    return (short) (fingerprint == 0 ? 1 : fingerprint);
+  }
+
+  /**
+   * The fingerprint's other bucket. Applying this twice gives back the
+   * original bucket.
+   */
+  private int alternate(int bucket, short fingerprint) {
+    return (bucket ^ (int) ((fingerprint & 0xFFFF) * 0x5BD1E995L >>> 8)) & bucketMask;
+  }
+
+  /**
+   * Next random number below bound, from a xorshift generator.
+   */
+  private int nextRandom(int bound) {
+    random ^= random << 13;
+    random ^= random >>> 7;
+    random ^= random << 17;
+    return (int) ((random >>> 33) % bound);
+  }
+}
@@ -0,0 +1,208 @@
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * HashMap wrapper that consults a membership filter before the wrapped map,
+ * so lookups of absent keys usually return without touching it.
+ *
+ * Worth it when most lookups miss and a miss in the wrapped map is costly,
+ * such as a long bucket walk or a disk read in MappedHashMap. If the filter
+ * cannot remove elements, removed keys stay in it and only raise its false
+ * positive rate. If the filter fills up, every lookup falls through to the
+ * wrapped map until the next clear.
+ */
+public class FilteredHashMap<K, V> implements HashMapInterface<K, V> {
+  private final HashMapInterface<K, V> map;
+  private final MembershipFilter<K> filter;
+  private boolean saturated;
+
+  /**
+   * Wraps the given map. The filter must be empty or already hold every key
+   * in the map.
+   *
+   * @param map the map to wrap
+   * @param filter the filter consulted before the map
+   * @throws IllegalArgumentException if map or filter is null
+   */
+  public FilteredHashMap(HashMapInterface<K, V> map, MembershipFilter<K> filter) {
+    if (map == null) throw new IllegalArgumentException("Cannot wrap null map.");
+    if (filter == null) throw new IllegalArgumentException("Cannot filter with null filter.");
+
+    this.map = map;
+    this.filter = filter;
+
+    for (K key : map.keySet()) {
+      record(key);
+    }
+  }
+
+  /**
+   * Adds the given key-value pair to the wrapped map and records new keys in
+   * the filter.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    V oldVal = map.put(key, value);
+
+    if (oldVal == null) record(key);
+
+    return oldVal;
+  }
+
+  /**
+   * Removes the entry with a matching key from the wrapped map, and from the
+   * filter if it supports removal.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+    if (!mightContain(key)) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    V val = map.remove(key);
+
+    if (!saturated && filter.supportsRemoval()) filter.remove(key);
+
+    return val;
+  }
+
+  /**
+   * Gets the value associated with the given key, skipping the wrapped map
+   * if the filter rules the key out.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+    if (!mightContain(key)) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return map.get(key);
+  }
+
+  /**
+   * Returns whether or not the key is in the map, skipping the wrapped map
+   * if the filter rules the key out.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return mightContain(key) && map.containsKey(key);
+  }
+
+  /**
+   * Clears the wrapped map and the filter.
+   */
+  public void clear() {
+    map.clear();
+    filter.clear();
+    saturated = false;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    return map.keySet();
+  }
+
+  /**
+   * Returns a List view of the values contained in this map.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    return map.values();
+  }
+
+  /**
+   * Performs the given action on every entry of the wrapped map.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    map.forEach(action);
+  }
+
+  /**
+   * Resize the wrapped map's backing table to {@code length}.
+   *
+   * @param length new length of the backing table
+   * @throws IllegalArgumentException if length is non-positive or less than
+   * the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    map.resizeBackingTable(length);
+  }
+
+  /**
+   * Returns the wrapped map's stats.
+   *
+   * @return the wrapped map's stats
+   */
+  public HashMapStats stats() {
+    return map.stats();
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * @return the wrapped map's table
+   */
+  public MapEntry<K, V>[] getTable() {
+    return map.getTable();
+  }
+
+  /**
+   * Returns whether the filter has stopped answering for the map because it
+   * filled up.
+   *
+   * @return whether every lookup falls through to the wrapped map
+   */
+  public boolean isSaturated() {
+    return saturated;
+  }
+
+  /**
+   * Records a new key, falling back to the wrapped map for every lookup if
+   * the filter is full.
+   */
+  private void record(K key) {
+    if (!saturated && !filter.add(key)) saturated = true;
+  }
+
+  /**
+   * @return whether the key has to be looked up in the wrapped map
+   */
+  private boolean mightContain(K key) {
+    return saturated || filter.mightContain(key);
+  }
+}
@@ -1,8 +1,17 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.StrictMath.abs;
 
@@ -12,6 +21,8 @@ import static java.lang.StrictMath.abs;
  * @author Mikayla Crawford
  */
 public class HashMap<K, V> implements HashMapInterface<K, V> {
+  private static final int BULK_THRESHOLD = 4096; //Smallest run of puts worth forking
+
   // Do not make any new instance variables.
   private MapEntry<K, V>[] table;
   private int size;
@@ -92,6 +103,91 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
     return null;
   }
 
+  /**
+   * Adds every key-value pair in the given arrays to the HashMap, as if by
+   * calling put on each pair in order.
+   *
+   * The table is resized at most once, up front, to fit every pair. The
+   * pairs are then sorted by bucket and split into runs of whole buckets
+   * that are inserted in parallel on the common fork-join pool, so no two
+   * threads ever touch the same chain.
+   *
+   * @param keys keys to add into the HashMap
+   * @param values values to add into the HashMap, matched by index
+   * @throws IllegalArgumentException if either array or any key or value is
+   * null, or the arrays differ in length
+   */
+  public void putAll(K[] keys, V[] values) {
+    if (keys == null || values == null) throw new IllegalArgumentException("Cannot add null arrays to hashmap.");
+    if (keys.length != values.length) throw new IllegalArgumentException("Cannot add arrays of different lengths to hashmap.");
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+      if (values[i] == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+    }
+
+    //Sizes the table once for every pending entry
+    long needed = (long) size + keys.length;
+    if (table.length * MAX_LOAD_FACTOR < needed) {
+      resizeBackingTable((int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(needed / MAX_LOAD_FACTOR) + 1));
+    }
+
+    long[] order = bucketOrder(keys);
+    size += ForkJoinPool.commonPool().invoke(new BulkPut(keys, values, order, 0, order.length));
+  }
+
+  /**
+   * Gets the values associated with each of the given keys.
+   *
+   * The lookups are sorted by bucket first, so the table is visited in
+   * order instead of at random.
+   *
+   * @param keys the keys to search for
+   * @throws IllegalArgumentException if the array or any key is null
+   * @return list of the values for each key, matched by index, holding null
+   * for any key that is not in the map
+   */
+  public List<V> getAll(K[] keys) {
+    if (keys == null) throw new IllegalArgumentException("Cannot retrieve data with null keys from hashmap.");
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+    }
+
+    V[] results = (V[]) new Object[keys.length];
+
+    for (long packed : bucketOrder(keys)) {
+      int pos = (int) packed;
+      MapEntry<K, V> curr = table[(int) (packed >>> 32)];
+
+      while (curr != null && !curr.getKey().equals(keys[pos])) {
+        curr = curr.getNext();
+      }
+
+      if (curr != null) results[pos] = curr.getValue();
+    }
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Sorts the positions of the given keys by the bucket they fall in,
+   * keeping positions within a bucket in increasing order.
+   *
+   * @param keys the keys to sort
+   * @return each key's bucket in the upper 32 bits and its position in the
+   * lower 32 bits, sorted
+   */
+  private long[] bucketOrder(K[] keys) {
+    int length = table.length;
+    long[] order = new long[keys.length];
+
+    Arrays.parallelSetAll(order, i -> ((long) (Math.abs(keys[i].hashCode()) % length) << 32) | i);
+    Arrays.parallelSort(order);
+
+    return order;
+  }
+
   /**
    * Removes the entry with a matching key from the HashMap.
    *
@@ -258,6 +354,61 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
     return list;
   }
 
+  /**
+   * Performs the given action on every entry, walking the table directly in
+   * order of increasing index and each chain from front to back. Nothing is
+   * allocated.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   * @throws java.util.ConcurrentModificationException if the action adds or
+   * removes entries
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+    MapEntry<K, V>[] expectedTable = table;
+    int expectedSize = size;
+
+    for (int i = 0; i < expectedTable.length; i++) {
+      for (MapEntry<K, V> curr = expectedTable[i]; curr != null; curr = curr.getNext()) {
+        action.accept(curr.getKey(), curr.getValue());
+      }
+
+      if (table != expectedTable || size != expectedSize) throw new ConcurrentModificationException();
+    }
+  }
+
+  /**
+   * Returns a cursor over the entries of this map. The cursor can be reset
+   * and walked again, so one cursor can serve any number of scans.
+   *
+   * @return a cursor positioned before the first entry
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Returns a spliterator over the entries of this map. It hands out the
+   * map's own entries, so nothing is allocated per entry, and it splits by
+   * ranges of the backing table for parallel scans.
+   *
+   * @return a spliterator over the entries of this map
+   */
+  public Spliterator<MapEntry<K, V>> spliterator() {
+    return new EntrySpliterator(0, -1, 0);
+  }
+
+  /**
+   * Returns a stream over the entries of this map.
+   *
+   * @param parallel whether the stream should be parallel
+   * @return a stream of the map's entries
+   */
+  public Stream<MapEntry<K, V>> stream(boolean parallel) {
+    return StreamSupport.stream(spliterator(), parallel);
+  }
+
   /**
    * Resize the backing table to {@code length}.
    *
@@ -273,6 +424,9 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
     if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
     if (length < size) throw new IllegalArgumentException("Cannot shrink backing table.");
 
+    ResizeEvent event = new ResizeEvent(); //Only recorded while flight recording is on
+    event.begin();
+
     MapEntry<K, V>[] newTable = (MapEntry<K, V>[]) new MapEntry[length];
 
     //Loops through the table
@@ -297,6 +451,14 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
       }
     }
 
+    if (event.shouldCommit()) {
+      event.mapClass = getClass().getName();
+      event.oldLength = table.length;
+      event.newLength = length;
+      event.size = size;
+      event.commit();
+    }
+
     table = newTable;
   }
 
@@ -309,4 +471,240 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
   public MapEntry<K, V>[] getTable() {
       return table;
   }
+
+  /**
+   * Inserts a bucket-sorted run of pairs, splitting it on bucket boundaries
+   * until runs are small enough to insert directly.
+   */
+  private final class BulkPut extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    private final K[] keys;
+    private final V[] values;
+    private final long[] order;
+    private final int lo;
+    private final int hi;
+
+    BulkPut(K[] keys, V[] values, long[] order, int lo, int hi) {
+      this.keys = keys;
+      this.values = values;
+      this.order = order;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    /**
+     * @return the number of new entries added to the table
+     */
+    protected Integer compute() {
+      if (hi - lo > BULK_THRESHOLD) {
+        int mid = (lo + hi) >>> 1;
+
+        //Moves the split point to the start of a bucket
+        while (mid < hi && (order[mid] >>> 32) == (order[mid - 1] >>> 32)) {
+          mid++;
+        }
+
+        if (mid < hi) {
+          BulkPut left = new BulkPut(keys, values, order, lo, mid);
+          left.fork();
+          int right = new BulkPut(keys, values, order, mid, hi).compute();
+          return left.join() + right;
+        }
+      }
+
+      int added = 0;
+
+      for (int i = lo; i < hi; i++) {
+        int index = (int) (order[i] >>> 32);
+        int pos = (int) order[i];
+        MapEntry<K, V> curr = table[index];
+
+        while (curr != null && !curr.getKey().equals(keys[pos])) {
+          curr = curr.getNext();
+        }
+
+        if (curr != null) { //Key already exists
+          curr.setValue(values[pos]);
+        } else {
+          table[index] = new MapEntry<>(keys[pos], values[pos], table[index]); //Add to front
+          added++;
+        }
+      }
+
+      return added;
+    }
+  }
+
+  /**
+   * Reusable cursor over the entries of the map.
+   *
+   * Call {@link #advance()} to move to each entry in turn, then read it with
+   * {@link #key()} and {@link #value()}. Adding or removing entries while a
+   * walk is in progress causes the next advance to fail.
+   */
+  public final class Cursor {
+    private MapEntry<K, V>[] expectedTable;
+    private int expectedSize;
+    private int index;
+    private MapEntry<K, V> current;
+
+    private Cursor() {
+      reset();
+    }
+
+    /**
+     * Moves the cursor before the first entry so the map can be walked
+     * again.
+     */
+    public void reset() {
+      expectedTable = table;
+      expectedSize = size;
+      index = 0;
+      current = null;
+    }
+
+    /**
+     * Moves to the next entry.
+     *
+     * @return true if the cursor is on an entry; false if the walk is over
+     * @throws java.util.ConcurrentModificationException if entries were added
+     * or removed since the walk started
+     */
+    public boolean advance() {
+      if (table != expectedTable || size != expectedSize) throw new ConcurrentModificationException();
+
+      if (current != null) current = current.getNext();
+
+      //Skips to the next non-empty bucket
+      while (current == null && index < expectedTable.length) {
+        current = expectedTable[index++];
+      }
+
+      return current != null;
+    }
+
+    /**
+     * Gets the key of the current entry.
+     *
+     * @return the current key
+     * @throws java.util.NoSuchElementException if the cursor is not on an
+     * entry
+     */
+    public K key() {
+      if (current == null) throw new NoSuchElementException("Cursor is not on an entry.");
+
+      return current.getKey();
+    }
+
+    /**
+     * Gets the value of the current entry.
+     *
+     * @return the current value
+     * @throws java.util.NoSuchElementException if the cursor is not on an
+     * entry
+     */
+    public V value() {
+      if (current == null) throw new NoSuchElementException("Cursor is not on an entry.");
+
+      return current.getValue();
+    }
+  }
+
+  /**
+   * Spliterator over a range of buckets. The table and size are captured on
+   * first use, and any change to either afterwards fails the traversal.
+   */
+  private final class EntrySpliterator implements Spliterator<MapEntry<K, V>> {
+    private MapEntry<K, V>[] expectedTable;
+    private int expectedSize;
+    private int index; //Next bucket to visit
+    private int fence; //One past the last bucket, or -1 until first use
+    private int estimate;
+    private MapEntry<K, V> current;
+
+    EntrySpliterator(int origin, int fence, int estimate) {
+      this.index = origin;
+      this.fence = fence;
+      this.estimate = estimate;
+    }
+
+    public boolean tryAdvance(Consumer<? super MapEntry<K, V>> action) {
+      if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+      int end = getFence();
+
+      while (current != null || index < end) {
+        if (current == null) {
+          current = expectedTable[index++];
+        } else {
+          MapEntry<K, V> entry = current;
+          current = current.getNext();
+          action.accept(entry);
+          checkForModification();
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    public void forEachRemaining(Consumer<? super MapEntry<K, V>> action) {
+      if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+      int end = getFence();
+
+      for (; current != null; current = current.getNext()) {
+        action.accept(current);
+      }
+
+      for (; index < end; index++) {
+        for (MapEntry<K, V> curr = expectedTable[index]; curr != null; curr = curr.getNext()) {
+          action.accept(curr);
+        }
+      }
+
+      checkForModification();
+    }
+
+    public Spliterator<MapEntry<K, V>> trySplit() {
+      int end = getFence();
+      int mid = (index + end) >>> 1;
+
+      //Only splits on bucket boundaries
+      if (current != null || mid <= index) return null;
+
+      EntrySpliterator prefix = new EntrySpliterator(index, mid, estimate >>>= 1);
+      prefix.expectedTable = expectedTable;
+      prefix.expectedSize = expectedSize;
+      index = mid;
+
+      return prefix;
+    }
+
+    public long estimateSize() {
+      getFence();
+      return estimate;
+    }
+
+    public int characteristics() {
+      return (fence < 0 || estimate == size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
+
+    /**
+     * Binds the spliterator to the current table on first use.
+     */
+    private int getFence() {
+      if (fence < 0) {
+        expectedTable = table;
+        expectedSize = size;
+        estimate = size;
+        fence = table.length;
+      }
+
+      return fence;
+    }
+
+    private void checkForModification() {
+      if (table != expectedTable || size != expectedSize) throw new ConcurrentModificationException();
+    }
+  }
 }
@@ -1,5 +1,6 @@
 import java.util.Set;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * Interface for a HashMap.
@@ -114,6 +115,26 @@ public interface HashMapInterface<K, V> {
      */
     void resizeBackingTable(int length);
 
+    /**
+     * Performs the given action on every entry of the map.
+     *
+     * This is the way to visit every entry. {@code getTable()} is only meant
+     * for tests and does not show every layout, such as tree buckets or a
+     * table that is being rehashed. The default looks up each key of
+     * {@code keySet()} with {@code get()}, and maps override it with a walk
+     * of their own storage. The action must not add or remove entries.
+     *
+     * @param action the action to perform on each key and value
+     * @throws IllegalArgumentException if action is null
+     */
+    default void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+        for (K key : keySet()) {
+            action.accept(key, get(key));
+        }
+    }
+
     /**
      * METHOD FOR TESTING ONLY.
      *
@@ -121,4 +142,17 @@ public interface HashMapInterface<K, V> {
      * EMPTY SPACES
      */
     MapEntry<K, V>[] getTable();
+
+    /**
+     * Returns a snapshot of how the entries are spread over the backing
+     * table: bucket occupancy, chain lengths, probe lengths and effective
+     * load factor. Open-addressing maps override this to walk their slots.
+     *
+     * Maps that record lookups and resizes include those counters as well.
+     *
+     * @return the map's stats
+     */
+    default HashMapStats stats() {
+        return HashMapStats.of(this);
+    }
 }
@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Writes any HashMapInterface to a compact binary file and loads it back.
+ *
+ * The file is a 16-byte header {@code [magic][version][entry count]}
+ * followed by one record per entry laid out as
+ * {@code [key length][value length][key bytes][value bytes]}. Keys and
+ * values are encoded by pluggable serializers. Both directions stream
+ * through a large direct buffer and a FileChannel, so nothing but the
+ * buffer and the entries themselves is allocated, and loading creates the
+ * map with a table already big enough for every entry so it never resizes.
+ */
+public final class HashMapSnapshot {
+  private static final int MAGIC = 0x484D_5331; //"HMS1"
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 16;
+  private static final int RECORD_HEADER_BYTES = 8;
+  private static final int BUFFER_BYTES = 1 << 20;
+
+  private HashMapSnapshot() {
+  }
+
+  /**
+   * Writes every entry of the map to the given file, replacing any existing
+   * contents.
+   *
+   * Entries are visited with the map's {@code forEach}, which walks the
+   * map's own storage, so every entry is written whatever the layout of the
+   * map and without any intermediate collection.
+   *
+   * @param map the map to write
+   * @param path the file to write
+   * @param keySerializer serializer for keys
+   * @param valueSerializer serializer for values
+   * @throws IllegalArgumentException if any argument is null
+   * @throws IOException if the file cannot be written
+   * @return the number of entries written
+   */
+  public static <K, V> long write(HashMapInterface<K, V> map, Path path, Serializer<K> keySerializer,
+      Serializer<V> valueSerializer) throws IOException {
+    if (map == null) throw new IllegalArgumentException("Cannot write null map.");
+    if (path == null) throw new IllegalArgumentException("Cannot write hashmap to null path.");
+    if (keySerializer == null || valueSerializer == null) throw new IllegalArgumentException("Cannot write hashmap with null serializer.");
+
+    long count;
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      RecordWriter<K, V> writer = new RecordWriter<>(channel, keySerializer, valueSerializer);
+
+      try {
+        map.forEach(writer);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      flush(channel, writer.buffer);
+      count = writer.count;
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Loads a file written by {@link #write} into a new map.
+   *
+   * The factory is given a table length that holds every entry under
+   * MAX_LOAD_FACTOR, for example {@code HashMap::new}, so the map is never
+   * resized while loading.
+   *
+   * @param path the file to read
+   * @param keySerializer serializer the keys were written with
+   * @param valueSerializer serializer the values were written with
+   * @param factory creates an empty map with the given initial capacity
+   * @throws IllegalArgumentException if any argument is null
+   * @throws IOException if the file cannot be read or is not a map snapshot
+   * @return the loaded map
+   */
+  public static <K, V, M extends HashMapInterface<K, V>> M read(Path path, Serializer<K> keySerializer,
+      Serializer<V> valueSerializer, IntFunction<M> factory) throws IOException {
+    if (path == null) throw new IllegalArgumentException("Cannot read hashmap from null path.");
+    if (keySerializer == null || valueSerializer == null) throw new IllegalArgumentException("Cannot read hashmap with null serializer.");
+    if (factory == null) throw new IllegalArgumentException("Cannot read hashmap with null factory.");
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer.limit(0);
+      buffer = fill(channel, buffer, HEADER_BYTES, path);
+
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) throw new IOException("Not a hashmap snapshot: " + path);
+
+      long count = buffer.getLong();
+      if (count < 0 || count > Integer.MAX_VALUE) throw new IOException("Corrupt hashmap snapshot: " + path);
+
+      M map = factory.apply(tableLengthFor((int) count));
+
+      for (long i = 0; i < count; i++) {
+        buffer = fill(channel, buffer, RECORD_HEADER_BYTES, path);
+        int keyLength = buffer.getInt();
+        int valueLength = buffer.getInt();
+
+        if (keyLength < 0 || valueLength < 0) throw new IOException("Corrupt hashmap snapshot: " + path);
+
+        buffer = fill(channel, buffer, keyLength + valueLength, path);
+        K key = keySerializer.read(buffer, keyLength);
+        V value = valueSerializer.read(buffer, valueLength);
+        map.put(key, value);
+      }
+
+      return map;
+    }
+  }
+
+  /**
+   * Smallest table length that holds the given number of entries, and one
+   * pending put, under MAX_LOAD_FACTOR.
+   *
+   * @param count the number of entries
+   * @return the table length
+   */
+  private static int tableLengthFor(int count) {
+    long length = (long) Math.ceil((count + 1) / HashMapInterface.MAX_LOAD_FACTOR) + 1;
+    return (int) Math.min(Math.max(length, HashMapInterface.INITIAL_CAPACITY), Integer.MAX_VALUE - 8);
+  }
+
+  /**
+   * Writes out everything put into the buffer and clears it.
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    buffer.clear();
+  }
+
+  /**
+   * Reads from the channel until at least {@code needed} bytes are
+   * available, allocating a larger buffer if a single record does not fit.
+   *
+   * @return the buffer, positioned at the unread bytes
+   * @throws IOException if the file ends first
+   */
+  private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int needed, Path path) throws IOException {
+    if (buffer.remaining() >= needed) return buffer;
+
+    if (buffer.capacity() < needed) {
+      ByteBuffer larger = ByteBuffer.allocateDirect(needed);
+      larger.put(buffer);
+      buffer = larger;
+    } else {
+      buffer.compact();
+    }
+
+    while (buffer.position() < needed) {
+      if (channel.read(buffer) < 0) throw new IOException("Truncated hashmap snapshot: " + path);
+    }
+
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Appends every entry it is given to a buffer as a record, writing the
+   * buffer out to the channel whenever the next record does not fit. Write
+   * errors are rethrown as UncheckedIOException.
+   */
+  private static final class RecordWriter<K, V> implements BiConsumer<K, V> {
+    private final FileChannel channel;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private ByteBuffer buffer;
+    private long count;
+
+    RecordWriter(FileChannel channel, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+      this.channel = channel;
+      this.keySerializer = keySerializer;
+      this.valueSerializer = valueSerializer;
+      buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+      buffer.position(HEADER_BYTES); //Header is filled in once the count is known
+    }
+
+    public void accept(K key, V value) {
+      int keyLength = keySerializer.sizeOf(key);
+      int valueLength = valueSerializer.sizeOf(value);
+      int needed = RECORD_HEADER_BYTES + keyLength + valueLength;
+
+      if (buffer.remaining() < needed) {
+        try {
+          flush(channel, buffer);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+
+        if (buffer.capacity() < needed) buffer = ByteBuffer.allocateDirect(needed);
+      }
+
+      buffer.putInt(keyLength);
+      buffer.putInt(valueLength);
+      keySerializer.write(key, buffer);
+      valueSerializer.write(value, buffer);
+      count++;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Checks that {@link HashMapSnapshot} round-trips every HashMapInterface
+ * implementation.
+ *
+ * Running the class fills each map with the same entries, writes a snapshot,
+ * reads it back into a HashMap and compares the result with the entries that
+ * were put. The entries include a group of strings sharing one hashCode, so
+ * the treeified map writes from a tree bucket, and the incremental map is
+ * written in the middle of a rehash. A mismatch throws an AssertionError.
+ */
+public final class HashMapSnapshotTest {
+  private static final int ENTRIES = 1000;
+
+  private HashMapSnapshotTest() {
+  }
+
+  /**
+   * Runs the round trip for every implementation.
+   *
+   * @param args unused
+   * @throws IOException if a snapshot or mapped map cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    Path dir = Files.createTempDirectory("snapshot-test");
+
+    try {
+      check("HashMap", () -> new HashMap<>());
+      check("InstrumentedHashMap", () -> new InstrumentedHashMap<>());
+      check("SeededHashMap", () -> new SeededHashMap<>());
+      check("OpenAddressingHashMap", () -> new OpenAddressingHashMap<>());
+      check("SwissHashMap", () -> new SwissHashMap<>());
+      check("TreeifiedHashMap", () -> new TreeifiedHashMap<>(TreeifiedHashMap.MIN_TREEIFY_CAPACITY));
+      check("ConcurrentHashMap", () -> new ConcurrentHashMap<>());
+      check("SnapshotHashMap", () -> new SnapshotHashMap<>());
+      check("OffHeapHashMap", () -> new OffHeapHashMap<>(Serializer.STRING, Serializer.INTEGER));
+      check("FilteredHashMap", () -> new FilteredHashMap<>(new TreeifiedHashMap<>(), new BloomFilter<>(ENTRIES, 0.01)));
+      checkMidRehash();
+
+      try (MappedHashMap<String, Integer> mapped = new MappedHashMap<>(dir.resolve("mapped"), Serializer.STRING,
+          Serializer.INTEGER)) {
+        roundTrip("MappedHashMap", mapped, fill(mapped));
+      }
+
+      System.out.println("All snapshots round-tripped.");
+    } finally {
+      try (var files = Files.list(dir)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          Files.delete(file);
+        }
+      }
+
+      Files.delete(dir);
+    }
+  }
+
+  /**
+   * Fills a new map from the factory and round-trips it.
+   */
+  private static void check(String name, Supplier<HashMapInterface<String, Integer>> factory) throws IOException {
+    HashMapInterface<String, Integer> map = factory.get();
+    roundTrip(name, map, fill(map));
+  }
+
+  /**
+   * Round-trips an IncrementalHashMap that still has entries in its old
+   * table.
+   */
+  private static void checkMidRehash() throws IOException {
+    IncrementalHashMap<String, Integer> map = new IncrementalHashMap<>();
+    Map<String, Integer> expected = new java.util.HashMap<>();
+    int i = 0;
+
+    //Stops right after a regrow, before later operations move the old buckets
+    while (expected.size() < 8 || !map.isRehashing()) {
+      map.put("key" + i, i);
+      expected.put("key" + i, i);
+      i++;
+    }
+
+    roundTrip("IncrementalHashMap", map, expected);
+  }
+
+  /**
+   * Puts the test entries into the map.
+   *
+   * @return the entries that were put
+   */
+  private static Map<String, Integer> fill(HashMapInterface<String, Integer> map) {
+    Map<String, Integer> expected = new java.util.HashMap<>();
+
+    for (int i = 0; i < ENTRIES; i++) {
+      map.put("key" + i, i);
+      expected.put("key" + i, i);
+    }
+
+    //"Aa" and "BB" share a hashCode, so all 16 four-pair strings collide
+    for (int bits = 0; bits < 16; bits++) {
+      StringBuilder key = new StringBuilder();
+
+      for (int pair = 0; pair < 4; pair++) {
+        key.append((bits >> pair & 1) == 0 ? "Aa" : "BB");
+      }
+
+      map.put(key.toString(), -bits - 1);
+      expected.put(key.toString(), -bits - 1);
+    }
+
+    return expected;
+  }
+
+  /**
+   * Writes the map, reads the snapshot back and compares it with the
+   * expected entries.
+   *
+   * @throws AssertionError if an entry is missing, extra or different
+   */
+  private static void roundTrip(String name, HashMapInterface<String, Integer> map, Map<String, Integer> expected)
+      throws IOException {
+    Path path = Files.createTempFile("snapshot", ".bin");
+
+    try {
+      long written = HashMapSnapshot.write(map, path, Serializer.STRING, Serializer.INTEGER);
+      HashMap<String, Integer> read = HashMapSnapshot.read(path, Serializer.STRING, Serializer.INTEGER, HashMap::new);
+
+      if (written != expected.size()) throw new AssertionError(name + " wrote " + written + " of " + expected.size() + " entries.");
+      if (read.size() != expected.size()) throw new AssertionError(name + " read back " + read.size() + " of " + expected.size() + " entries.");
+
+      for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+        if (!read.containsKey(entry.getKey()) || !read.get(entry.getKey()).equals(entry.getValue())) {
+          throw new AssertionError(name + " lost or changed the entry for " + entry.getKey() + ".");
+        }
+      }
+
+      System.out.println(name + ": " + written + " entries");
+    } finally {
+      Files.delete(path);
+    }
+  }
+}
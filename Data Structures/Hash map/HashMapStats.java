@@ -0,0 +1,331 @@
+import java.util.Arrays;
+
+/**
+ * Snapshot of how the entries of a hash map are spread over its backing
+ * table, together with any lookup and resize counters the map recorded.
+ *
+ * The layout figures are read from {@code getTable()} by default, so they
+ * are available for every HashMapInterface. Maps whose buckets are not all
+ * plain chains in that table, such as tree buckets or a table being rehashed,
+ * count their buckets themselves and use {@link #ofBucketSizes(int[], int)}.
+ * Open-addressing maps have no chains, so they walk their slots and use
+ * {@link #ofProbeLengths(int[], int[], int)}: a bucket is then a home
+ * position, its chain is the entries whose probe sequence starts there, and
+ * the probe-length histogram records how far each entry sits along its
+ * sequence. Probe and resize figures are only recorded by maps that opt in, such as
+ * InstrumentedHashMap.
+ */
+public class HashMapStats {
+  private final int capacity;
+  private final int size;
+  private final int occupiedBuckets;
+  private final int[] chainLengths;
+  private final int[] probeLengths;
+  private final long gets;
+  private final long probes;
+  private final long resizes;
+  private final long resizeNanos;
+
+  /**
+   * Creates a snapshot from a chain-length histogram and recorded counters.
+   *
+   * @param capacity length of the backing table
+   * @param size number of entries in the map
+   * @param chainLengths number of buckets holding each chain length
+   * @param gets number of recorded gets
+   * @param probes number of entries compared over those gets
+   * @param resizes number of recorded resizes
+   * @param resizeNanos total time spent resizing, in nanoseconds
+   */
+  public HashMapStats(int capacity, int size, int[] chainLengths, long gets, long probes, long resizes,
+      long resizeNanos) {
+    this(capacity, size, chainLengths, chainProbeLengths(chainLengths), gets, probes, resizes, resizeNanos);
+  }
+
+  /**
+   * Creates a snapshot from chain-length and probe-length histograms and
+   * recorded counters.
+   */
+  private HashMapStats(int capacity, int size, int[] chainLengths, int[] probeLengths, long gets, long probes,
+      long resizes, long resizeNanos) {
+    int occupied = 0;
+
+    for (int i = 1; i < chainLengths.length; i++) {
+      occupied += chainLengths[i];
+    }
+
+    this.capacity = capacity;
+    this.size = size;
+    this.occupiedBuckets = occupied;
+    this.chainLengths = chainLengths.clone();
+    this.probeLengths = probeLengths.clone();
+    this.gets = gets;
+    this.probes = probes;
+    this.resizes = resizes;
+    this.resizeNanos = resizeNanos;
+  }
+
+  /**
+   * Reads the layout of the given map's backing table.
+   *
+   * @param map the map to inspect
+   * @throws IllegalArgumentException if map is null
+   * @return a snapshot with no recorded gets or resizes
+   */
+  public static HashMapStats of(HashMapInterface<?, ?> map) {
+    return of(map, 0L, 0L, 0L, 0L);
+  }
+
+  /**
+   * Reads the layout of the given map's backing table and attaches the
+   * given counters.
+   *
+   * @param map the map to inspect
+   * @param gets number of recorded gets
+   * @param probes number of entries compared over those gets
+   * @param resizes number of recorded resizes
+   * @param resizeNanos total time spent resizing, in nanoseconds
+   * @throws IllegalArgumentException if map is null
+   * @return the snapshot
+   */
+  public static HashMapStats of(HashMapInterface<?, ?> map, long gets, long probes, long resizes, long resizeNanos) {
+    if (map == null) throw new IllegalArgumentException("Cannot collect stats of null map.");
+
+    MapEntry<?, ?>[] table = map.getTable();
+    int[] bucketSizes = new int[table.length];
+
+    for (int i = 0; i < table.length; i++) {
+      for (MapEntry<?, ?> curr = table[i]; curr != null; curr = curr.getNext()) {
+        bucketSizes[i]++;
+      }
+    }
+
+    return new HashMapStats(table.length, map.size(), histogram(bucketSizes), gets, probes, resizes, resizeNanos);
+  }
+
+  /**
+   * Builds a snapshot from the number of entries in each bucket. Each bucket
+   * counts as a chain of that many entries.
+   *
+   * @param bucketSizes number of entries in each bucket
+   * @param size number of entries in the map
+   * @throws IllegalArgumentException if bucketSizes is null
+   * @return a snapshot with no recorded gets or resizes
+   */
+  public static HashMapStats ofBucketSizes(int[] bucketSizes, int size) {
+    if (bucketSizes == null) throw new IllegalArgumentException("Cannot collect stats of null buckets.");
+
+    return new HashMapStats(bucketSizes.length, size, histogram(bucketSizes), 0L, 0L, 0L, 0L);
+  }
+
+  /**
+   * Builds a snapshot of an open-addressing table from the number of entries
+   * whose probe sequence starts at each home position and the probe length
+   * of each slot's entry.
+   *
+   * @param homeSizes number of entries homed at each position
+   * @param probeLengths number of slots or groups examined to reach the
+   * entry in each slot, or 0 for a slot without one
+   * @param size number of entries in the map
+   * @throws IllegalArgumentException if either array is null
+   * @return a snapshot with no recorded gets or resizes
+   */
+  public static HashMapStats ofProbeLengths(int[] homeSizes, int[] probeLengths, int size) {
+    if (homeSizes == null || probeLengths == null) throw new IllegalArgumentException("Cannot collect stats of null buckets.");
+
+    int[] probeHistogram = histogram(probeLengths);
+    probeHistogram[0] = 0; //Empty slots are not entries
+
+    return new HashMapStats(homeSizes.length, size, histogram(homeSizes), probeHistogram, 0L, 0L, 0L, 0L);
+  }
+
+  /**
+   * Probe lengths implied by chains: the i-th entry of a chain is reached
+   * on the i-th probe, so i-probe entries are the chains at least i long.
+   *
+   * @param chainLengths number of buckets holding each chain length
+   * @return the probe-length histogram
+   */
+  private static int[] chainProbeLengths(int[] chainLengths) {
+    int[] probeLengths = new int[chainLengths.length];
+
+    for (int length = chainLengths.length - 1; length > 0; length--) {
+      probeLengths[length] = chainLengths[length] + (length + 1 < chainLengths.length ? probeLengths[length + 1] : 0);
+    }
+
+    return probeLengths;
+  }
+
+  /**
+   * Counts how many buckets hold each number of entries.
+   *
+   * @param bucketSizes number of entries in each bucket
+   * @return the chain-length histogram, trimmed after the longest chain
+   */
+  private static int[] histogram(int[] bucketSizes) {
+    int[] histogram = new int[2];
+
+    for (int length : bucketSizes) {
+      if (length >= histogram.length) histogram = Arrays.copyOf(histogram, Math.max(length + 1, 2 * histogram.length));
+
+      histogram[length]++;
+    }
+
+    int longest = histogram.length - 1;
+
+    while (longest > 1 && histogram[longest] == 0) {
+      longest--;
+    }
+
+    return Arrays.copyOf(histogram, longest + 1);
+  }
+
+  /**
+   * Gets the length of the backing table.
+   *
+   * @return the number of buckets
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Gets the number of entries in the map.
+   *
+   * @return the size of the map
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Gets the number of buckets holding at least one entry.
+   *
+   * @return the number of occupied buckets
+   */
+  public int getOccupiedBuckets() {
+    return occupiedBuckets;
+  }
+
+  /**
+   * Gets the fraction of buckets holding at least one entry.
+   *
+   * @return occupied buckets over capacity
+   */
+  public double getOccupancy() {
+    return capacity == 0 ? 0.0 : (double) occupiedBuckets / capacity;
+  }
+
+  /**
+   * Gets the number of entries per bucket.
+   *
+   * @return size over capacity
+   */
+  public double getEffectiveLoadFactor() {
+    return capacity == 0 ? 0.0 : (double) size / capacity;
+  }
+
+  /**
+   * Gets the chain-length histogram. Index i holds the number of buckets
+   * whose chain has exactly i entries.
+   *
+   * @return a copy of the histogram
+   */
+  public int[] getChainLengthHistogram() {
+    return chainLengths.clone();
+  }
+
+  /**
+   * Gets the length of the longest chain.
+   *
+   * @return the longest chain length
+   */
+  public int getMaxChainLength() {
+    return occupiedBuckets == 0 ? 0 : chainLengths.length - 1;
+  }
+
+  /**
+   * Gets the probe-length histogram. Index i holds the number of entries
+   * reached on the i-th probe of their bucket's chain or probe sequence.
+   *
+   * @return a copy of the histogram
+   */
+  public int[] getProbeLengthHistogram() {
+    return probeLengths.clone();
+  }
+
+  /**
+   * Gets the largest number of probes needed to reach any entry.
+   *
+   * @return the longest probe length
+   */
+  public int getMaxProbeLength() {
+    int longest = probeLengths.length - 1;
+
+    while (longest > 0 && probeLengths[longest] == 0) {
+      longest--;
+    }
+
+    return longest;
+  }
+
+  /**
+   * Gets the number of probes a successful get would take on average if
+   * every key were looked up once, as implied by the probe lengths.
+   *
+   * @return the expected probes per hit
+   */
+  public double getExpectedProbesPerHit() {
+    long total = 0;
+
+    for (int length = 1; length < probeLengths.length; length++) {
+      total += (long) probeLengths[length] * length;
+    }
+
+    return size == 0 ? 0.0 : (double) total / size;
+  }
+
+  /**
+   * Gets the number of recorded gets.
+   *
+   * @return the number of gets
+   */
+  public long getGetCount() {
+    return gets;
+  }
+
+  /**
+   * Gets the average number of entries compared per recorded get.
+   *
+   * @return the average probes per get, or NaN if no gets were recorded
+   */
+  public double getAverageProbesPerGet() {
+    return gets == 0 ? Double.NaN : (double) probes / gets;
+  }
+
+  /**
+   * Gets the number of recorded resizes.
+   *
+   * @return the number of resizes
+   */
+  public long getResizeCount() {
+    return resizes;
+  }
+
+  /**
+   * Gets the total time spent in recorded resizes.
+   *
+   * @return the resize time in nanoseconds
+   */
+  public long getResizeNanos() {
+    return resizeNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("capacity=%d size=%d occupancy=%.3f loadFactor=%.3f maxChain=%d chains=%s maxProbe=%d "
+        + "probesPerGet=%.3f resizes=%d resizeMillis=%.3f", capacity, size, getOccupancy(), getEffectiveLoadFactor(),
+        getMaxChainLength(), Arrays.toString(chainLengths), getMaxProbeLength(), getAverageProbesPerGet(), resizes,
+        resizeNanos / 1e6);
+  }
+}
@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Harness that measures how evenly a hash strategy spreads keys over a
+ * power-of-two table.
+ *
+ * Running the class compares the legacy, mixed and seeded strategies on key
+ * sets that are known to trouble weak hashes: sequential and strided
+ * integers, longs differing only in their high bits, strings sharing a
+ * prefix, and strings built to share a single hashCode.
+ */
+public final class HashQuality {
+  private HashQuality() {
+  }
+
+  /**
+   * Hashes every key into a table of the given length and reports how the
+   * keys spread over the buckets.
+   *
+   * @param strategy the strategy to measure
+   * @param keys the keys to hash
+   * @param buckets the table length, a power of two
+   * @throws IllegalArgumentException if strategy or keys is null, or buckets
+   * is not a positive power of two
+   * @return the report
+   */
+  public static Report measure(HashStrategy strategy, Iterable<?> keys, int buckets) {
+    if (strategy == null) throw new IllegalArgumentException("Cannot measure null strategy.");
+    if (keys == null) throw new IllegalArgumentException("Cannot measure null keys.");
+    if (buckets <= 0 || Integer.bitCount(buckets) != 1) throw new IllegalArgumentException("Cannot measure table length that is not a power of two.");
+
+    int[] counts = new int[buckets];
+    long n = 0;
+
+    for (Object key : keys) {
+      counts[strategy.hash(key) & (buckets - 1)]++;
+      n++;
+    }
+
+    return new Report(n, counts);
+  }
+
+  /**
+   * Prints a comparison of the built-in strategies on adversarial key sets.
+   *
+   * @param args ignored
+   */
+  public static void main(String[] args) {
+    int n = 1 << 16;
+    int buckets = Integer.highestOneBit((int) (n / HashMapInterface.MAX_LOAD_FACTOR)) << 1;
+
+    List<Object> sequential = new ArrayList<>();
+    List<Object> strided = new ArrayList<>();
+    List<Object> highBits = new ArrayList<>();
+    List<Object> prefixed = new ArrayList<>();
+
+    for (int i = 0; i < n; i++) {
+      sequential.add(i);
+      strided.add(i << 10);
+      highBits.add((long) i << 32 | i);
+      prefixed.add("user-" + i);
+    }
+
+    //Every string of 16 "Aa"/"BB" blocks has the same hashCode
+    List<Object> colliding = new ArrayList<>();
+
+    for (int i = 0; i < n; i++) {
+      StringBuilder sb = new StringBuilder();
+
+      for (int bit = 0; bit < 16; bit++) {
+        sb.append((i >>> bit & 1) == 0 ? "Aa" : "BB");
+      }
+
+      colliding.add(sb.toString());
+    }
+
+    String[] names = {"sequential ints", "ints * 1024", "longs i:i", "\"user-\" + i", "equal hashCode strings"};
+    List<List<Object>> sets = List.of(sequential, strided, highBits, prefixed, colliding);
+    String[] strategyNames = {"legacy", "mixed", "seeded"};
+    HashStrategy[] strategies = {HashStrategy.legacy(), HashStrategy.mixed(), HashStrategy.seeded()};
+
+    System.out.printf("%d keys in %d buckets%n", n, buckets);
+
+    for (int s = 0; s < sets.size(); s++) {
+      System.out.println(names[s] + ":");
+
+      for (int t = 0; t < strategies.length; t++) {
+        System.out.printf("  %-7s %s%n", strategyNames[t], measure(strategies[t], sets.get(s), buckets));
+      }
+    }
+  }
+
+  /**
+   * How a set of keys spread over the buckets of a table.
+   */
+  public static final class Report {
+    private final long keys;
+    private final int buckets;
+    private final int occupied;
+    private final int maxLoad;
+    private final double chiSquare;
+
+    /**
+     * Summarizes the number of keys that landed in each bucket.
+     *
+     * @param keys the total number of keys
+     * @param counts the number of keys in each bucket
+     */
+    Report(long keys, int[] counts) {
+      double expected = (double) keys / counts.length;
+      double chi = 0;
+      int used = 0;
+      int max = 0;
+
+      for (int count : counts) {
+        if (count > 0) used++;
+        max = Math.max(max, count);
+        chi += (count - expected) * (count - expected) / expected;
+      }
+
+      this.keys = keys;
+      this.buckets = counts.length;
+      this.occupied = used;
+      this.maxLoad = max;
+      this.chiSquare = chi;
+    }
+
+    /**
+     * Gets the number of keys that share a bucket with an earlier key.
+     *
+     * @return keys minus occupied buckets
+     */
+    public long getCollisions() {
+      return keys - occupied;
+    }
+
+    /**
+     * Gets the number of collisions a uniformly random hash would give on
+     * average for the same keys and buckets.
+     *
+     * @return the expected collisions
+     */
+    public double getExpectedCollisions() {
+      return keys - buckets * (1 - Math.pow(1 - 1.0 / buckets, keys));
+    }
+
+    /**
+     * Gets the number of keys in the fullest bucket.
+     *
+     * @return the longest chain
+     */
+    public int getMaxLoad() {
+      return maxLoad;
+    }
+
+    /**
+     * Gets the chi-square statistic of the bucket counts divided by its
+     * degrees of freedom. A uniform hash scores close to 1; larger values
+     * mean clumping.
+     *
+     * @return the normalized chi-square statistic
+     */
+    public double getUniformity() {
+      return buckets == 1 ? 0.0 : chiSquare / (buckets - 1);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("collisions=%d (uniform %.0f) maxLoad=%d uniformity=%.2f", getCollisions(),
+          getExpectedCollisions(), maxLoad, getUniformity());
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Turns keys into the hashes a hash map indexes with.
+ *
+ * Maps that take a strategy index with {@code hash & (length - 1)} on a
+ * power-of-two table, so a strategy must spread entropy into the low bits.
+ */
+public interface HashStrategy {
+    /**
+     * Returns the hash of the key.
+     *
+     * @param key the key to hash, never null
+     * @return the hash of the key
+     */
+    int hash(Object key);
+
+    /**
+     * Strategy that uses each key's own hashCode unchanged. Keys whose hash
+     * codes differ only in their high bits all collide once masked.
+     *
+     * @return the legacy strategy
+     */
+    static HashStrategy legacy() {
+        return Object::hashCode;
+    }
+
+    /**
+     * Strategy that mixes hash codes with a fixed multiplier and shift, so
+     * every bit of the hash code reaches the low bits. Deterministic, but not
+     * resistant to chosen keys.
+     *
+     * @return the mixing strategy
+     */
+    static HashStrategy mixed() {
+        return key -> {
+            int h = key.hashCode() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        };
+    }
+
+    /**
+     * Strategy keyed with a fresh random seed, so collisions cannot be
+     * predicted from outside the process. Strings are hashed from their
+     * characters with SipHash-1-3 and longs from their full value, so keys
+     * crafted to share a hashCode are still spread out.
+     *
+     * @return a new seeded strategy
+     */
+    static HashStrategy seeded() {
+        return new SeededHashStrategy();
+    }
+}
@@ -0,0 +1,440 @@
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of HashMap using external chaining and incremental
+ * rehashing.
+ *
+ * When the table is regrown, the old table is kept alongside the new one and
+ * every following operation moves at most {@code BUCKETS_PER_STEP} of its
+ * buckets across. No single put ever pays for rehashing the whole map, so
+ * put latency stays flat as the map grows. Entries are relinked into the new
+ * table rather than copied, so moving them allocates nothing.
+ */
+public class IncrementalHashMap<K, V> implements HashMapInterface<K, V> {
+  /**
+   * Number of old buckets moved per operation while rehashing. The new table
+   * holds about twice as many entries before its next regrow as the old one
+   * has buckets, so any value of 2 or more finishes in time.
+   */
+  public static final int BUCKETS_PER_STEP = 4;
+
+  private MapEntry<K, V>[] table;
+  private MapEntry<K, V>[] oldTable; //Non-null only while rehashing
+  private int rehashIndex; //Next bucket of oldTable to move
+  private int size;
+
+  /**
+   * Create a hash map with no entries. The backing array has an initial
+   * capacity of {@code INITIAL_CAPACITY}.
+   */
+  public IncrementalHashMap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a hash map with no entries. The backing array has an initial
+   * capacity of {@code initialCapacity}.
+   *
+   * @param initialCapacity initial capacity of the backing array
+   */
+  public IncrementalHashMap(int initialCapacity) {
+    table = (MapEntry<K, V>[]) new MapEntry[initialCapacity];
+    size = 0;
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in.
+   *
+   * New entries are added to the front of the chain in the new table. The
+   * table is regrown to 2 * old length + 1 BEFORE adding if the pending entry
+   * would exceed MAX_LOAD_FACTOR; the entries are then moved over the
+   * following operations.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    rehashStep();
+
+    //If next element will exceed load factor -> regrow table
+    if (table.length * MAX_LOAD_FACTOR < size + 1) {
+      resizeBackingTable(2*table.length + 1);
+    }
+
+    MapEntry<K, V> existing = findEntry(key);
+
+    if (existing != null) { //Key already exists
+      V oldVal = existing.getValue();
+      existing.setValue(value);
+      return oldVal;
+    }
+
+    int index = indexFor(key, table.length);
+    table[index] = new MapEntry<>(key, value, table[index]); //Add to front
+    size++;
+    return null;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    rehashStep();
+
+    MapEntry<K, V> removed = null;
+
+    if (oldTable != null) removed = removeFrom(oldTable, key);
+    if (removed == null) removed = removeFrom(table, key);
+    if (removed == null) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    size--;
+
+    return removed.getValue();
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    rehashStep();
+
+    MapEntry<K, V> entry = findEntry(key);
+    if (entry == null) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return entry.getValue();
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    rehashStep();
+
+    return findEntry(key) != null;
+  }
+
+  /**
+   * Clears the table, drops any rehash in progress and resets the table to
+   * the default length.
+   */
+  public void clear() {
+    table = (MapEntry<K, V>[]) new MapEntry[INITIAL_CAPACITY];
+    oldTable = null;
+    rehashIndex = 0;
+    size = 0;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    if (oldTable != null) addKeys(oldTable, set);
+    addKeys(table, set);
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map. Entries not yet
+   * moved out of the old table come first.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    if (oldTable != null) addValues(oldTable, list);
+    addValues(table, list);
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}. Entries not yet moved out of the old table come
+   * first.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    if (oldTable != null) forEachIn(oldTable, action);
+    forEachIn(table, action);
+  }
+
+  /**
+   * Starts moving the map into a backing table of {@code length}.
+   *
+   * The new table takes every new entry straight away, while existing
+   * entries are moved a few buckets at a time by later operations. A rehash
+   * that is still in progress is finished first.
+   *
+   * @param length new length of the backing table
+   * @throws IllegalArgumentException if length is non-positive or less than
+   * the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length < size) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    finishRehash();
+
+    oldTable = table;
+    rehashIndex = 0;
+    table = (MapEntry<K, V>[]) new MapEntry[length];
+  }
+
+  /**
+   * Moves every remaining entry of the old table into the new one.
+   */
+  public void finishRehash() {
+    while (oldTable != null) {
+      rehashStep();
+    }
+  }
+
+  /**
+   * Returns whether entries are still being moved out of an old table.
+   *
+   * @return true if a rehash is in progress; false otherwise
+   */
+  public boolean isRehashing() {
+    return oldTable != null;
+  }
+
+  /**
+   * Returns a snapshot of how the entries are spread over the backing
+   * table. While rehashing, the old buckets that have not been moved yet
+   * still hold entries, so they are counted after the new table's buckets.
+   *
+   * @return the map's stats
+   */
+  public HashMapStats stats() {
+    int pending = oldTable == null ? 0 : oldTable.length - rehashIndex;
+    int[] bucketSizes = new int[table.length + pending];
+
+    for (int i = 0; i < table.length; i++) {
+      for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+        bucketSizes[i]++;
+      }
+    }
+
+    for (int i = 0; i < pending; i++) {
+      for (MapEntry<K, V> curr = oldTable[rehashIndex + i]; curr != null; curr = curr.getNext()) {
+        bucketSizes[table.length + i]++;
+      }
+    }
+
+    return HashMapStats.ofBucketSizes(bucketSizes, size);
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * While rehashing, entries that have not been moved yet are not in this
+   * table. Call {@link #finishRehash()} first to see every entry.
+   *
+   * @return the backing array of the data structure, not a copy. INCLUDE
+   * EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    return table;
+  }
+
+  /**
+   * Moves up to BUCKETS_PER_STEP buckets of the old table into the new one,
+   * relinking the existing entries.
+   */
+  private void rehashStep() {
+    if (oldTable == null) return;
+
+    int end = Math.min(rehashIndex + BUCKETS_PER_STEP, oldTable.length);
+
+    for (; rehashIndex < end; rehashIndex++) {
+      MapEntry<K, V> curr = oldTable[rehashIndex];
+      oldTable[rehashIndex] = null;
+
+      //Relinks each entry to the front of its new chain
+      while (curr != null) {
+        MapEntry<K, V> next = curr.getNext();
+        int index = indexFor(curr.getKey(), table.length);
+
+        curr.setNext(table[index]);
+        table[index] = curr;
+        curr = next;
+      }
+    }
+
+    if (rehashIndex == oldTable.length) { //Done moving
+      oldTable = null;
+      rehashIndex = 0;
+    }
+  }
+
+  /**
+   * Finds the entry for a key in whichever table currently holds it.
+   *
+   * @param key the key to search for
+   * @return the entry for the key, or null if it is not in the map
+   */
+  private MapEntry<K, V> findEntry(K key) {
+    if (oldTable != null) {
+      MapEntry<K, V> entry = findIn(oldTable, key);
+      if (entry != null) return entry;
+    }
+
+    return findIn(table, key);
+  }
+
+  /**
+   * Walks the chain a key would be in for the given table.
+   *
+   * @param tab the table to search
+   * @param key the key to search for
+   * @return the entry for the key, or null if it is not in tab
+   */
+  private MapEntry<K, V> findIn(MapEntry<K, V>[] tab, K key) {
+    MapEntry<K, V> curr = tab[indexFor(key, tab.length)];
+
+    while (curr != null) {
+      if (curr.getKey().equals(key)) return curr;
+
+      curr = curr.getNext();
+    }
+
+    return null;
+  }
+
+  /**
+   * Unlinks the entry for a key from the given table.
+   *
+   * @param tab the table to remove from
+   * @param key the key to remove
+   * @return the removed entry, or null if the key is not in tab
+   */
+  private MapEntry<K, V> removeFrom(MapEntry<K, V>[] tab, K key) {
+    int index = indexFor(key, tab.length);
+    MapEntry<K, V> prev = null;
+    MapEntry<K, V> curr = tab[index];
+
+    while (curr != null) {
+      if (curr.getKey().equals(key)) { //Match
+        if (prev == null) {
+          tab[index] = curr.getNext(); //Update front
+        } else {
+          prev.setNext(curr.getNext()); //Update prev's next
+        }
+
+        curr.setNext(null);
+        return curr;
+      }
+
+      prev = curr;
+      curr = curr.getNext();
+    }
+
+    return null;
+  }
+
+  /**
+   * Adds every key in the given table to a set.
+   *
+   * @param tab the table to read
+   * @param set the set to add to
+   */
+  private void addKeys(MapEntry<K, V>[] tab, Set<K> set) {
+    for (int i = 0; i < tab.length; i++) {
+      for (MapEntry<K, V> curr = tab[i]; curr != null; curr = curr.getNext()) {
+        set.add(curr.getKey());
+      }
+    }
+  }
+
+  /**
+   * Adds every value in the given table to a list, in table order.
+   *
+   * @param tab the table to read
+   * @param list the list to add to
+   */
+  private void addValues(MapEntry<K, V>[] tab, List<V> list) {
+    for (int i = 0; i < tab.length; i++) {
+      for (MapEntry<K, V> curr = tab[i]; curr != null; curr = curr.getNext()) {
+        list.add(curr.getValue());
+      }
+    }
+  }
+
+  /**
+   * Performs the action on every entry in the given table, in table order.
+   *
+   * @param tab the table to read
+   * @param action the action to perform on each key and value
+   */
+  private void forEachIn(MapEntry<K, V>[] tab, BiConsumer<? super K, ? super V> action) {
+    for (int i = 0; i < tab.length; i++) {
+      for (MapEntry<K, V> curr = tab[i]; curr != null; curr = curr.getNext()) {
+        action.accept(curr.getKey(), curr.getValue());
+      }
+    }
+  }
+
+  /**
+   * Computes the bucket of a key for a table of the given length.
+   *
+   * @param key the key to hash
+   * @param length the length of the table
+   * @return the bucket index of the key
+   */
+  private static int indexFor(Object key, int length) {
+    return (key.hashCode() & 0x7FFFFFFF) % length;
+  }
+}
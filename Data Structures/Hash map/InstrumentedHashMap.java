@@ -0,0 +1,96 @@
+import java.util.NoSuchElementException;
+
+/**
+ * HashMap that records how many entries each get compares and how often and
+ * for how long the backing table is resized.
+ *
+ * Counting is opt in: a plain HashMap pays nothing for it. The counters are
+ * not synchronized, matching the map itself.
+ */
+public class InstrumentedHashMap<K, V> extends HashMap<K, V> {
+  private long gets;
+  private long probes;
+  private long resizes;
+  private long resizeNanos;
+
+  /**
+   * Create a hash map with no entries. The backing array has an initial
+   * capacity of {@code INITIAL_CAPACITY}.
+   */
+  public InstrumentedHashMap() {
+    super();
+  }
+
+  /**
+   * Create a hash map with no entries. The backing array has an initial
+   * capacity of {@code initialCapacity}.
+   *
+   * @param initialCapacity initial capacity of the backing array
+   */
+  public InstrumentedHashMap(int initialCapacity) {
+    super(initialCapacity);
+  }
+
+  /**
+   * Gets the value associated with the given key, counting every entry of
+   * the chain compared along the way.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  @Override
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    MapEntry<K, V>[] table = getTable();
+    MapEntry<K, V> curr = table[Math.abs(key.hashCode()) % table.length];
+    gets++;
+
+    while (curr != null) {
+      probes++;
+
+      if (curr.getKey().equals(key)) return curr.getValue();
+
+      curr = curr.getNext();
+    }
+
+    throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+  }
+
+  /**
+   * Resize the backing table to {@code length}, timing the rehash.
+   *
+   * @param length new length of the backing table
+   * @throws IllegalArgumentException if length is non-positive or less than
+   * the number of items in the hash map.
+   */
+  @Override
+  public void resizeBackingTable(int length) {
+    long start = System.nanoTime();
+    super.resizeBackingTable(length);
+    resizeNanos += System.nanoTime() - start;
+    resizes++;
+  }
+
+  /**
+   * Returns a snapshot of the table layout and the counters recorded so far.
+   *
+   * @return the map's stats
+   */
+  @Override
+  public HashMapStats stats() {
+    return HashMapStats.of(this, gets, probes, resizes, resizeNanos);
+  }
+
+  /**
+   * Zeroes the get and resize counters.
+   */
+  public void resetStats() {
+    gets = 0;
+    probes = 0;
+    resizes = 0;
+    resizeNanos = 0;
+  }
+}
@@ -0,0 +1,303 @@
+/**
+ * Hash map from primitive int keys to primitive int values.
+ *
+ * Keys and values are stored directly in int arrays, so no call boxes its
+ * arguments. The table length is always a power of two, collisions are
+ * resolved with linear probing and removal uses backward-shift deletion.
+ * Key 0 marks an empty slot, so it is held outside of the table.
+ *
+ * Lookups for a missing key return the map's no-value sentinel instead of
+ * throwing {@code NoSuchElementException}.
+ */
+public class IntIntMap {
+  private static final int EMPTY = 0;
+
+  private int[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+  private boolean hasZeroKey;
+  private int zeroValue;
+  private final int noValue;
+
+  /**
+   * Create a map with no entries, room for {@code INITIAL_CAPACITY} entries
+   * and a no-value sentinel of 0.
+   */
+  public IntIntMap() {
+    this(HashMapInterface.INITIAL_CAPACITY, 0);
+  }
+
+  /**
+   * Create a map with no entries and room for {@code expectedSize} entries
+   * before the table has to grow.
+   *
+   * @param expectedSize number of entries the map should hold without
+   * resizing
+   * @param noValue value returned when a key is not in the map
+   * @throws IllegalArgumentException if expectedSize is negative
+   */
+  public IntIntMap(int expectedSize, int noValue) {
+    if (expectedSize < 0) throw new IllegalArgumentException("Cannot create map with negative capacity.");
+
+    int length = tableLengthFor(expectedSize);
+    keys = new int[length];
+    values = new int[length];
+    mask = length - 1;
+    this.noValue = noValue;
+  }
+
+  /**
+   * Adds the given key-value pair to the map, replacing the value if the key
+   * is already present.
+   *
+   * @param key key to add into the map
+   * @param value value to add into the map
+   * @return the old value associated with the key, or the no-value sentinel
+   * if the key was not in the map
+   */
+  public int put(int key, int value) {
+    if (key == EMPTY) {
+      int oldVal = hasZeroKey ? zeroValue : noValue;
+      if (!hasZeroKey) size++;
+      hasZeroKey = true;
+      zeroValue = value;
+      return oldVal;
+    }
+
+    //If next element will exceed load factor -> regrow table
+    if (keys.length * HashMapInterface.MAX_LOAD_FACTOR < size + 1) {
+      rehash(keys.length << 1);
+    }
+
+    int index = mix(key) & mask;
+
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) { //Key already exists
+        int oldVal = values[index];
+        values[index] = value;
+        return oldVal;
+      }
+
+      index = (index + 1) & mask;
+    }
+
+    keys[index] = key;
+    values[index] = value;
+    size++;
+    return noValue;
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @return the value associated with the key, or the no-value sentinel if
+   * the key is not in the map
+   */
+  public int get(int key) {
+    if (key == EMPTY) return hasZeroKey ? zeroValue : noValue;
+
+    int index = find(key);
+    return index < 0 ? noValue : values[index];
+  }
+
+  /**
+   * Removes the entry with a matching key from the map.
+   *
+   * @param key the key to remove
+   * @return the value previously associated with the key, or the no-value
+   * sentinel if the key was not in the map
+   */
+  public int remove(int key) {
+    if (key == EMPTY) {
+      if (!hasZeroKey) return noValue;
+      hasZeroKey = false;
+      size--;
+      return zeroValue;
+    }
+
+    int index = find(key);
+    if (index < 0) return noValue;
+
+    int val = values[index];
+    deleteSlot(index);
+    size--;
+    return val;
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(int key) {
+    return key == EMPTY ? hasZeroKey : find(key) >= 0;
+  }
+
+  /**
+   * Returns the value returned by lookups for keys that are not in the map.
+   *
+   * @return the no-value sentinel
+   */
+  public int noValue() {
+    return noValue;
+  }
+
+  /**
+   * Clears the map and resets the table to the default length.
+   */
+  public void clear() {
+    int length = tableLengthFor(HashMapInterface.INITIAL_CAPACITY);
+    keys = new int[length];
+    values = new int[length];
+    mask = length - 1;
+    hasZeroKey = false;
+    size = 0;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the map
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the keys contained in this map.
+   *
+   * @return array of length {@code size} holding the keys in this map
+   */
+  public int[] keySet() {
+    int[] arr = new int[size];
+    int count = 0;
+
+    if (hasZeroKey) arr[count++] = EMPTY;
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) arr[count++] = keys[i];
+    }
+
+    return arr;
+  }
+
+  /**
+   * Returns the values contained in this map, in the same order as
+   * {@link #keySet()}.
+   *
+   * @return array of length {@code size} holding the values in this map
+   */
+  public int[] values() {
+    int[] arr = new int[size];
+    int count = 0;
+
+    if (hasZeroKey) arr[count++] = zeroValue;
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) arr[count++] = values[i];
+    }
+
+    return arr;
+  }
+
+  /**
+   * Finds the slot holding the given non-zero key.
+   *
+   * @param key the key to search for
+   * @return the slot index of the key, or -1 if it is not in the table
+   */
+  private int find(int key) {
+    int index = mix(key) & mask;
+
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) return index;
+
+      index = (index + 1) & mask;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Empties the given slot and shifts back any later entries of the probe
+   * run that would otherwise become unreachable.
+   *
+   * @param hole the slot to empty
+   */
+  private void deleteSlot(int hole) {
+    int curr = (hole + 1) & mask;
+
+    while (keys[curr] != EMPTY) {
+      int home = mix(keys[curr]) & mask;
+
+      //Entry may move into the hole if the hole lies between its home and curr
+      if (((curr - home) & mask) >= ((curr - hole) & mask)) {
+        keys[hole] = keys[curr];
+        values[hole] = values[curr];
+        hole = curr;
+      }
+
+      curr = (curr + 1) & mask;
+    }
+
+    keys[hole] = EMPTY;
+  }
+
+  /**
+   * Moves every entry into a new table of the given power-of-two length.
+   *
+   * @param length the new table length
+   */
+  private void rehash(int length) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[length];
+    values = new int[length];
+    mask = length - 1;
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int index = mix(oldKeys[i]) & mask;
+
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a key so that sequential ids do not form long runs
+   * once masked.
+   *
+   * @param key the key to hash
+   * @return the mixed hash
+   */
+  private static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Smallest power-of-two table length that holds the given number of
+   * entries under MAX_LOAD_FACTOR.
+   *
+   * @param expectedSize number of entries to hold
+   * @return the table length
+   */
+  private static int tableLengthFor(int expectedSize) {
+    int length = 2;
+
+    while (length * HashMapInterface.MAX_LOAD_FACTOR < expectedSize + 1) {
+      length <<= 1;
+    }
+
+    return length;
+  }
+}
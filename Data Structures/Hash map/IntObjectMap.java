@@ -0,0 +1,300 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash map from primitive int keys to object values.
+ *
+ * Keys are stored directly in an int array, so no call boxes its key. The
+ * table length is always a power of two, collisions are resolved with linear
+ * probing and removal uses backward-shift deletion.
+ * Key 0 marks an empty slot, so it is held outside of the table.
+ *
+ * Null values are not allowed, so lookups for a missing key return null
+ * instead of throwing {@code NoSuchElementException}.
+ */
+public class IntObjectMap<V> {
+  private static final int EMPTY = 0;
+
+  private int[] keys;
+  private V[] values;
+  private int mask;
+  private int size;
+  private boolean hasZeroKey;
+  private V zeroValue;
+
+  /**
+   * Create a map with no entries and room for {@code INITIAL_CAPACITY}
+   * entries.
+   */
+  public IntObjectMap() {
+    this(HashMapInterface.INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a map with no entries and room for {@code expectedSize} entries
+   * before the table has to grow.
+   *
+   * @param expectedSize number of entries the map should hold without
+   * resizing
+   * @throws IllegalArgumentException if expectedSize is negative
+   */
+  public IntObjectMap(int expectedSize) {
+    if (expectedSize < 0) throw new IllegalArgumentException("Cannot create map with negative capacity.");
+
+    int length = tableLengthFor(expectedSize);
+    keys = new int[length];
+    values = (V[]) new Object[length];
+    mask = length - 1;
+  }
+
+  /**
+   * Adds the given key-value pair to the map, replacing the value if the key
+   * is already present.
+   *
+   * @param key key to add into the map
+   * @param value value to add into the map
+   * @throws IllegalArgumentException if value is null
+   * @return the old value associated with the key, or null if the key was
+   * not in the map
+   */
+  public V put(int key, V value) {
+    if (value == null) throw new IllegalArgumentException("Cannot add null value to map.");
+
+    if (key == EMPTY) {
+      V oldVal = zeroValue;
+      if (!hasZeroKey) size++;
+      hasZeroKey = true;
+      zeroValue = value;
+      return oldVal;
+    }
+
+    //If next element will exceed load factor -> regrow table
+    if (keys.length * HashMapInterface.MAX_LOAD_FACTOR < size + 1) {
+      rehash(keys.length << 1);
+    }
+
+    int index = mix(key) & mask;
+
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) { //Key already exists
+        V oldVal = values[index];
+        values[index] = value;
+        return oldVal;
+      }
+
+      index = (index + 1) & mask;
+    }
+
+    keys[index] = key;
+    values[index] = value;
+    size++;
+    return null;
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @return the value associated with the key, or null if the key is not in
+   * the map
+   */
+  public V get(int key) {
+    if (key == EMPTY) return zeroValue;
+
+    int index = find(key);
+    return index < 0 ? null : values[index];
+  }
+
+  /**
+   * Removes the entry with a matching key from the map.
+   *
+   * @param key the key to remove
+   * @return the value previously associated with the key, or null if the key
+   * was not in the map
+   */
+  public V remove(int key) {
+    if (key == EMPTY) {
+      if (!hasZeroKey) return null;
+      V val = zeroValue;
+      hasZeroKey = false;
+      zeroValue = null;
+      size--;
+      return val;
+    }
+
+    int index = find(key);
+    if (index < 0) return null;
+
+    V val = values[index];
+    deleteSlot(index);
+    size--;
+    return val;
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(int key) {
+    return key == EMPTY ? hasZeroKey : find(key) >= 0;
+  }
+
+  /**
+   * Clears the map and resets the table to the default length.
+   */
+  public void clear() {
+    int length = tableLengthFor(HashMapInterface.INITIAL_CAPACITY);
+    keys = new int[length];
+    values = (V[]) new Object[length];
+    mask = length - 1;
+    hasZeroKey = false;
+    zeroValue = null;
+    size = 0;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the map
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the keys contained in this map.
+   *
+   * @return array of length {@code size} holding the keys in this map
+   */
+  public int[] keySet() {
+    int[] arr = new int[size];
+    int count = 0;
+
+    if (hasZeroKey) arr[count++] = EMPTY;
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) arr[count++] = keys[i];
+    }
+
+    return arr;
+  }
+
+  /**
+   * Returns the values contained in this map, in the same order as
+   * {@link #keySet()}.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new ArrayList<V>(size);
+
+    if (hasZeroKey) list.add(zeroValue);
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) list.add(values[i]);
+    }
+
+    return list;
+  }
+
+  /**
+   * Finds the slot holding the given non-zero key.
+   *
+   * @param key the key to search for
+   * @return the slot index of the key, or -1 if it is not in the table
+   */
+  private int find(int key) {
+    int index = mix(key) & mask;
+
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) return index;
+
+      index = (index + 1) & mask;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Empties the given slot and shifts back any later entries of the probe
+   * run that would otherwise become unreachable.
+   *
+   * @param hole the slot to empty
+   */
+  private void deleteSlot(int hole) {
+    int curr = (hole + 1) & mask;
+
+    while (keys[curr] != EMPTY) {
+      int home = mix(keys[curr]) & mask;
+
+      //Entry may move into the hole if the hole lies between its home and curr
+      if (((curr - home) & mask) >= ((curr - hole) & mask)) {
+        keys[hole] = keys[curr];
+        values[hole] = values[curr];
+        hole = curr;
+      }
+
+      curr = (curr + 1) & mask;
+    }
+
+    keys[hole] = EMPTY;
+    values[hole] = null;
+  }
+
+  /**
+   * Moves every entry into a new table of the given power-of-two length.
+   *
+   * @param length the new table length
+   */
+  private void rehash(int length) {
+    int[] oldKeys = keys;
+    V[] oldValues = values;
+    keys = new int[length];
+    values = (V[]) new Object[length];
+    mask = length - 1;
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int index = mix(oldKeys[i]) & mask;
+
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a key so that sequential ids do not form long runs
+   * once masked.
+   *
+   * @param key the key to hash
+   * @return the mixed hash
+   */
+  private static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Smallest power-of-two table length that holds the given number of
+   * entries under MAX_LOAD_FACTOR.
+   *
+   * @param expectedSize number of entries to hold
+   * @return the table length
+   */
+  private static int tableLengthFor(int expectedSize) {
+    int length = 2;
+
+    while (length * HashMapInterface.MAX_LOAD_FACTOR < expectedSize + 1) {
+      length <<= 1;
+    }
+
+    return length;
+  }
+}
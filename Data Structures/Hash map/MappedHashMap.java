@@ -0,0 +1,763 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of HashMap whose table lives in memory-mapped files, so a
+ * map can be reopened without replaying any puts.
+ *
+ * The map is stored in two files next to the given path:
+ * <ul>
+ *   <li>{@code <path>.dat}, an append-only log of records laid out as
+ *   {@code [key length][value length][key bytes][value bytes]}</li>
+ *   <li>{@code <path>.idx}, a header followed by an open-addressing index of
+ *   8-byte {@code [hash][data offset + 1]} slots</li>
+ * </ul>
+ * Reopening only maps the two files, so nothing is deserialized until it is
+ * looked up.
+ *
+ * Removals and replacements leave dead records in the data file, and the
+ * header counts their bytes. Before a put, once the data file is past its
+ * initial length and dead bytes make up more than half of it, the live records are copied into a fresh
+ * data file and a new index pointing at them replaces the old one. The data
+ * alternates between {@code <path>.dat} and {@code <path>.dat2}, and the
+ * index header records which of the two is current. Only the atomic move of
+ * the new index switches files, so a crash during compaction leaves the old
+ * pair in place. Whichever file is not current is deleted when the map is
+ * opened.
+ *
+ * A record is fully written before an index slot points at it, and a
+ * resized index is built in a temporary file that atomically replaces the
+ * old one. Adding a key, or removing one with its backward shift, takes
+ * several writes to the index, and the header is marked dirty for their
+ * duration. If the process crashes during one of them, the next open finds
+ * the mark and runs a recovery scan. The scan rebuilds the index from its
+ * occupied slots, drops the duplicate a partial shift can leave, and
+ * recounts the size. A crash of the process therefore never loses a
+ * completed put. To survive an operating system crash, call {@link #sync()},
+ * which forces the data file before the index.
+ *
+ * Hashes are computed from the serialized key bytes, so they are stable
+ * across processes. Each file is limited to 2 GB.
+ */
+public class MappedHashMap<K, V> implements HashMapInterface<K, V>, Closeable {
+  private static final int MAGIC = 0x4D48_4D31; //"MHM1"
+  private static final int HEADER_BYTES = 32;
+  private static final int SLOT_BYTES = 8;
+  private static final int RECORD_HEADER_BYTES = 8;
+  private static final int INITIAL_DATA_CAPACITY = 4096;
+
+  //Header field offsets in the index file
+  private static final int SLOTS_OFFSET = 4;
+  private static final int SIZE_OFFSET = 8;
+  private static final int DATA_END_OFFSET = 12;
+  private static final int GARBAGE_OFFSET = 16;
+  private static final int DIRTY_OFFSET = 20;
+  private static final int GENERATION_OFFSET = 24;
+
+  private final Path indexPath;
+  private final Path dataPath;
+  private final Path alternateDataPath;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private FileChannel dataChannel;
+  private MappedByteBuffer index;
+  private MappedByteBuffer data;
+  private ByteBuffer scratch; //Heap buffer holding the serialized key being looked up
+  private int slots;
+  private int generation; //Number of compactions; its parity picks the data file
+
+  /**
+   * Opens the map stored at the given path, creating empty files with an
+   * index of {@code INITIAL_CAPACITY} slots if none exist.
+   *
+   * @param path base path of the map's files
+   * @param keySerializer serializer for keys
+   * @param valueSerializer serializer for values
+   * @throws IllegalArgumentException if any argument is null
+   * @throws IOException if the files cannot be opened or are not a map
+   */
+  public MappedHashMap(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+    if (path == null) throw new IllegalArgumentException("Cannot open hashmap at null path.");
+    if (keySerializer == null || valueSerializer == null) throw new IllegalArgumentException("Cannot create hashmap with null serializer.");
+
+    this.indexPath = path.resolveSibling(path.getFileName() + ".idx");
+    this.dataPath = path.resolveSibling(path.getFileName() + ".dat");
+    this.alternateDataPath = path.resolveSibling(path.getFileName() + ".dat2");
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    scratch = ByteBuffer.allocate(64);
+
+    if (Files.exists(indexPath)) {
+      openIndex();
+    } else {
+      createIndex(INITIAL_CAPACITY);
+    }
+
+    Files.deleteIfExists(dataPathFor(generation + 1)); //Left by a compaction before or after its switch
+    dataChannel = FileChannel.open(dataPathFor(generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_DATA_CAPACITY, dataChannel.size()));
+
+    if (index.getInt(DIRTY_OFFSET) != 0) { //Crashed in the middle of an add or remove
+      try {
+        rebuildIndex(slots);
+      } catch (UncheckedIOException e) {
+        dataChannel.close();
+        throw e.getCause();
+      }
+    }
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, a new record is
+   * appended and the key's slot is pointed at it.
+   *
+   * The index is regrown to 2 * old length + 1 BEFORE adding if the pending
+   * entry would exceed MAX_LOAD_FACTOR, and the data file is compacted first
+   * if more than half of it is dead records.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @throws UncheckedIOException if the files cannot be grown or compacted
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    //If next element will exceed load factor -> regrow table
+    if (slots * MAX_LOAD_FACTOR < size() + 1) {
+      resizeBackingTable(2*slots + 1);
+    }
+
+    //If dead records fill most of a data file past its initial length -> compact it
+    int dataEnd = index.getInt(DATA_END_OFFSET);
+    if (dataEnd >= INITIAL_DATA_CAPACITY && index.getInt(GARBAGE_OFFSET) > dataEnd / 2) {
+      compact();
+    }
+
+    ByteBuffer keyBytes = serializeKey(key);
+    int hash = keyBytes.hashCode() & 0x7FFFFFFF;
+    int slot = hash % slots;
+    V oldVal = null;
+
+    while (slotRef(slot) != 0) {
+      if (slotHash(slot) == hash && keyMatches(slotRef(slot) - 1, keyBytes)) { //Key already exists
+        oldVal = readValue(slotRef(slot) - 1);
+        break;
+      }
+
+      slot = next(slot);
+    }
+
+    //Record is complete before anything points at it
+    int offset = append(keyBytes, value);
+
+    if (oldVal != null) { //A single write switches the slot to the new record
+      index.putInt(GARBAGE_OFFSET, index.getInt(GARBAGE_OFFSET) + recordLength(slotRef(slot) - 1));
+      index.putInt(slotOffset(slot) + 4, offset + 1);
+    } else { //Slot is written before the size counts it
+      setDirty(true);
+      index.putInt(slotOffset(slot), hash);
+      index.putInt(slotOffset(slot) + 4, offset + 1);
+      index.putInt(SIZE_OFFSET, size() + 1);
+      setDirty(false);
+    }
+
+    return oldVal;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    int slot = find(key);
+    if (slot < 0) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    int offset = slotRef(slot) - 1;
+    V val = readValue(offset);
+
+    setDirty(true);
+    deleteSlot(slot);
+    index.putInt(SIZE_OFFSET, size() - 1);
+    index.putInt(GARBAGE_OFFSET, index.getInt(GARBAGE_OFFSET) + recordLength(offset));
+    setDirty(false);
+
+    return val;
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    int slot = find(key);
+    if (slot < 0) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return readValue(slotRef(slot) - 1);
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return find(key) >= 0;
+  }
+
+  /**
+   * Clears the map and resets the index to the default length. The data
+   * file is logically emptied; its space is reused by later puts.
+   *
+   * @throws UncheckedIOException if the index cannot be rewritten
+   */
+  public void clear() {
+    try {
+      createIndex(INITIAL_CAPACITY);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return index.getInt(SIZE_OFFSET);
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) set.add(readKey(slotRef(i) - 1));
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in order of
+   * increasing slot index.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) list.add(readValue(slotRef(i) - 1));
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) action.accept(readKey(slotRef(i) - 1), readValue(slotRef(i) - 1));
+    }
+  }
+
+  /**
+   * Resize the index to {@code length} slots.
+   *
+   * The new index is written to a temporary file, forced to disk and then
+   * atomically moved over the old one, so a crash leaves either the old or
+   * the new index in place.
+   *
+   * @param length new length of the index
+   * @throws IllegalArgumentException if length is non-positive or not greater
+   * than the number of items in the hash map.
+   * @throws UncheckedIOException if the new index cannot be written
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length <= size()) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    rebuildIndex(length);
+  }
+
+  /**
+   * Forces every change to disk, data file first.
+   */
+  public void sync() {
+    data.force();
+    index.force();
+  }
+
+  /**
+   * Syncs the map and closes its data file. The map must not be used
+   * afterwards.
+   *
+   * @throws IOException if the data file cannot be closed
+   */
+  public void close() throws IOException {
+    sync();
+    dataChannel.close();
+  }
+
+  /**
+   * Returns a snapshot of the probe runs in the index. Each slot is a bucket
+   * holding the entries whose home it is, and each entry's probe length is
+   * its distance from home plus one. Homes are computed from the hashes kept
+   * in the index, so the data file is not read.
+   *
+   * @return the map's stats
+   */
+  public HashMapStats stats() {
+    int[] homeSizes = new int[slots];
+    int[] probeLengths = new int[slots];
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) {
+        int home = slotHash(i) % slots;
+
+        homeSizes[home]++;
+        probeLengths[i] = distance(home, i) + 1;
+      }
+    }
+
+    return HashMapStats.ofProbeLengths(homeSizes, probeLengths, size());
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * Entries live in the mapped files, so this builds a new array of the same
+   * length as the index with a deserialized entry in each occupied slot.
+   *
+   * @return an array mirroring the index. INCLUDE EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    MapEntry<K, V>[] table = (MapEntry<K, V>[]) new MapEntry[slots];
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) {
+        int offset = slotRef(i) - 1;
+        table[i] = new MapEntry<>(readKey(offset), readValue(offset));
+      }
+    }
+
+    return table;
+  }
+
+  /**
+   * Rehashes every occupied slot into a new index of {@code length} slots,
+   * which atomically replaces the old index file. Slots pointing at the same
+   * record are only kept once, and the size is recounted, so this also
+   * repairs an index left dirty by a crash.
+   *
+   * @param length new length of the index
+   * @throws IllegalStateException if the index would exceed 2 GB
+   * @throws UncheckedIOException if the new index cannot be written
+   */
+  private void rebuildIndex(int length) {
+    if (HEADER_BYTES + (long) length * SLOT_BYTES > Integer.MAX_VALUE) throw new IllegalStateException("Mapped hashmap index exceeds 2 GB.");
+
+    Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+    try {
+      data.force(); //Records the new index points at must be durable first
+
+      MappedByteBuffer newIndex;
+
+      try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        newIndex = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) length * SLOT_BYTES);
+      }
+
+      newIndex.put(0, index, 0, HEADER_BYTES); //Copies header
+      newIndex.putInt(SLOTS_OFFSET, length);
+      int count = 0;
+
+      for (int i = 0; i < slots; i++) {
+        int ref = slotRef(i);
+
+        if (ref != 0) {
+          int hash = slotHash(i);
+          int slot = hash % length;
+
+          //Copies of a slot share its hash, so a duplicate is met on this probe
+          while (newIndex.getInt(slotOffset(slot) + 4) != 0 && newIndex.getInt(slotOffset(slot) + 4) != ref) {
+            slot = slot + 1 == length ? 0 : slot + 1;
+          }
+
+          if (newIndex.getInt(slotOffset(slot) + 4) == 0) {
+            newIndex.putInt(slotOffset(slot), hash);
+            newIndex.putInt(slotOffset(slot) + 4, ref);
+            count++;
+          }
+        }
+      }
+
+      newIndex.putInt(SIZE_OFFSET, count);
+      newIndex.putInt(DIRTY_OFFSET, 0);
+      newIndex.force();
+      Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+      index = newIndex;
+      slots = length;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Copies the live records into the other data file and swaps in a new
+   * index of the same length pointing at them. Slots keep their positions,
+   * so no key is rehashed. Both new files are forced before the new index
+   * atomically replaces the old one, which is the only step that switches
+   * the map over; the old data file is deleted afterwards.
+   *
+   * @throws UncheckedIOException if the new files cannot be written
+   */
+  private void compact() {
+    Path newDataPath = dataPathFor(generation + 1);
+    Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+    long live = 0;
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) live += recordLength(slotRef(i) - 1);
+    }
+
+    FileChannel newChannel = null;
+
+    try {
+      newChannel = FileChannel.open(newDataPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      MappedByteBuffer newData = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+          Math.min(Integer.MAX_VALUE, Math.max(INITIAL_DATA_CAPACITY, 2 * live)));
+      MappedByteBuffer newIndex;
+
+      try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        newIndex = channel.map(FileChannel.MapMode.READ_WRITE, 0, index.capacity());
+      }
+
+      newIndex.put(0, index, 0, HEADER_BYTES); //Copies header
+      int end = 0;
+
+      for (int i = 0; i < slots; i++) {
+        int ref = slotRef(i);
+
+        if (ref != 0) {
+          int length = recordLength(ref - 1);
+
+          newData.put(end, data, ref - 1, length);
+          newIndex.putInt(slotOffset(i), slotHash(i));
+          newIndex.putInt(slotOffset(i) + 4, end + 1);
+          end += length;
+        }
+      }
+
+      newIndex.putInt(DATA_END_OFFSET, end);
+      newIndex.putInt(GARBAGE_OFFSET, 0);
+      newIndex.putInt(GENERATION_OFFSET, generation + 1);
+      newData.force();
+      newIndex.force();
+      Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+      FileChannel oldChannel = dataChannel;
+      Path oldDataPath = dataPathFor(generation);
+      dataChannel = newChannel;
+      data = newData;
+      index = newIndex;
+      generation++;
+      newChannel = null;
+
+      oldChannel.close();
+      Files.deleteIfExists(oldDataPath);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      if (newChannel != null) {
+        try {
+          newChannel.close();
+        } catch (IOException e) {
+          //Already failing with the original exception
+        }
+      }
+    }
+  }
+
+  /**
+   * Data file of the given compaction generation.
+   */
+  private Path dataPathFor(int generation) {
+    return generation % 2 == 0 ? dataPath : alternateDataPath;
+  }
+
+  /**
+   * Maps an existing index file and checks its header.
+   *
+   * @throws IOException if the file cannot be mapped or is not an index
+   */
+  private void openIndex() throws IOException {
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      if (channel.size() < HEADER_BYTES) throw new IOException("Index file is truncated: " + indexPath);
+
+      index = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+
+    if (index.getInt(0) != MAGIC) throw new IOException("Not a hashmap index file: " + indexPath);
+
+    slots = index.getInt(SLOTS_OFFSET);
+    generation = index.getInt(GENERATION_OFFSET);
+    if (slots <= 0 || index.capacity() != HEADER_BYTES + (long) slots * SLOT_BYTES) throw new IOException("Index file is truncated: " + indexPath);
+  }
+
+  /**
+   * Writes a fresh, empty index file in place of any existing one.
+   *
+   * @param length number of index slots
+   * @throws IOException if the file cannot be written
+   */
+  private void createIndex(int length) throws IOException {
+    if (HEADER_BYTES + (long) length * SLOT_BYTES > Integer.MAX_VALUE) throw new IllegalStateException("Mapped hashmap index exceeds 2 GB.");
+
+    Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+    try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      index = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) length * SLOT_BYTES);
+    }
+
+    index.putInt(0, MAGIC);
+    index.putInt(SLOTS_OFFSET, length);
+    index.putInt(GENERATION_OFFSET, generation); //Keeps pointing at the current data file
+    index.force();
+    Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    slots = length;
+  }
+
+  /**
+   * Finds the index slot holding the given key.
+   *
+   * @param key the key to search for
+   * @return the slot of the key, or -1 if it is not in the map
+   */
+  private int find(K key) {
+    ByteBuffer keyBytes = serializeKey(key);
+    int hash = keyBytes.hashCode() & 0x7FFFFFFF;
+    int slot = hash % slots;
+
+    while (slotRef(slot) != 0) {
+      if (slotHash(slot) == hash && keyMatches(slotRef(slot) - 1, keyBytes)) return slot;
+
+      slot = next(slot);
+    }
+
+    return -1;
+  }
+
+  /**
+   * Empties the given slot and shifts back any later slots of the probe run
+   * that would otherwise become unreachable.
+   *
+   * @param hole the slot to empty
+   */
+  private void deleteSlot(int hole) {
+    int curr = next(hole);
+
+    while (slotRef(curr) != 0) {
+      int home = slotHash(curr) % slots;
+
+      //Slot may move into the hole if the hole lies between its home and curr
+      if (distance(home, curr) >= distance(hole, curr)) {
+        index.putLong(slotOffset(hole), index.getLong(slotOffset(curr)));
+        hole = curr;
+      }
+
+      curr = next(curr);
+    }
+
+    index.putLong(slotOffset(hole), 0L);
+  }
+
+  /**
+   * Appends a record to the data file, remapping it larger first if needed,
+   * and then advances the header's data end past it.
+   *
+   * @param keyBytes the serialized key
+   * @param value the value to serialize
+   * @return the offset of the new record
+   */
+  private int append(ByteBuffer keyBytes, V value) {
+    int valueLength = valueSerializer.sizeOf(value);
+    int offset = index.getInt(DATA_END_OFFSET);
+    long end = (long) offset + RECORD_HEADER_BYTES + keyBytes.remaining() + valueLength;
+
+    if (end > Integer.MAX_VALUE) throw new IllegalStateException("Mapped hashmap data exceeds 2 GB.");
+
+    if (end > data.capacity()) {
+      try {
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE, 2 * end));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    data.position(offset);
+    data.putInt(keyBytes.remaining());
+    data.putInt(valueLength);
+    data.put(keyBytes.duplicate());
+    valueSerializer.write(value, data);
+    VarHandle.storeStoreFence(); //Record reaches memory before the index moves past it
+    index.putInt(DATA_END_OFFSET, (int) end);
+
+    return offset;
+  }
+
+  /**
+   * Compares the serialized key against the key of a stored record.
+   *
+   * @param offset offset of the record
+   * @param keyBytes the serialized key
+   * @return whether the record holds the same key bytes
+   */
+  private boolean keyMatches(int offset, ByteBuffer keyBytes) {
+    int length = keyBytes.remaining();
+    if (data.getInt(offset) != length) return false;
+
+    return data.slice(offset + RECORD_HEADER_BYTES, length).equals(keyBytes);
+  }
+
+  /**
+   * Serializes a key into the scratch buffer, growing it if needed.
+   *
+   * @param key the key to serialize
+   * @return the scratch buffer, flipped for reading
+   */
+  private ByteBuffer serializeKey(K key) {
+    int length = keySerializer.sizeOf(key);
+    if (scratch.capacity() < length) scratch = ByteBuffer.allocate(Math.max(length, 2 * scratch.capacity()));
+
+    scratch.clear();
+    keySerializer.write(key, scratch);
+    scratch.flip();
+
+    return scratch;
+  }
+
+  /**
+   * Deserializes the key of the record at offset.
+   */
+  private K readKey(int offset) {
+    data.position(offset + RECORD_HEADER_BYTES);
+    return keySerializer.read(data, data.getInt(offset));
+  }
+
+  /**
+   * Deserializes the value of the record at offset.
+   */
+  private V readValue(int offset) {
+    data.position(offset + RECORD_HEADER_BYTES + data.getInt(offset));
+    return valueSerializer.read(data, data.getInt(offset + 4));
+  }
+
+  /**
+   * Total length of the record at offset, header included.
+   */
+  private int recordLength(int offset) {
+    return RECORD_HEADER_BYTES + data.getInt(offset) + data.getInt(offset + 4);
+  }
+
+  /**
+   * Hash stored in an index slot.
+   */
+  private int slotHash(int slot) {
+    return index.getInt(slotOffset(slot));
+  }
+
+  /**
+   * Data offset + 1 stored in an index slot, or 0 if the slot is empty.
+   */
+  private int slotRef(int slot) {
+    return index.getInt(slotOffset(slot) + 4);
+  }
+
+  /**
+   * Offset of a slot in the index file. The index is at most 2 GB, so the
+   * offset fits in an int.
+   */
+  private static int slotOffset(int slot) {
+    return (int) (HEADER_BYTES + (long) slot * SLOT_BYTES);
+  }
+
+  /**
+   * Marks the index as being in the middle of a multi-step change, or as
+   * consistent again. The fences keep the index writes between the two
+   * marks from being reordered around them.
+   */
+  private void setDirty(boolean dirty) {
+    VarHandle.storeStoreFence();
+    index.putInt(DIRTY_OFFSET, dirty ? 1 : 0);
+    VarHandle.storeStoreFence();
+  }
+
+  /**
+   * Slot after the given one, wrapping around the index.
+   */
+  private int next(int slot) {
+    return slot + 1 == slots ? 0 : slot + 1;
+  }
+
+  /**
+   * Number of forward probes from one slot to another.
+   */
+  private int distance(int from, int to) {
+    return to >= from ? to - from : to - from + slots;
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Interface for an approximate set that answers whether an element might
+ * have been added.
+ *
+ * A filter never gives a false negative: if an element was added and not
+ * removed, {@link #mightContain} returns true. It may give false positives
+ * at a rate chosen when the filter is created.
+ */
+public interface MembershipFilter<T> {
+    /**
+     * Records the element in the filter.
+     *
+     * @param element the element to add
+     * @throws IllegalArgumentException if element is null
+     * @return false if the filter is full and could not record the element,
+     * true otherwise
+     */
+    boolean add(T element);
+
+    /**
+     * Returns whether the element might have been added.
+     *
+     * @param element the element to test
+     * @throws IllegalArgumentException if element is null
+     * @return false if the element was definitely not added, true if it
+     * probably was
+     */
+    boolean mightContain(T element);
+
+    /**
+     * Removes one earlier addition of the element. Only call this for
+     * elements that were added, or other elements may start to give false
+     * negatives.
+     *
+     * @param element the element to remove
+     * @throws IllegalArgumentException if element is null
+     * @throws UnsupportedOperationException if the filter does not support
+     * removal
+     * @return whether a matching entry was found and removed
+     */
+    default boolean remove(T element) {
+        throw new UnsupportedOperationException("Filter does not support removal.");
+    }
+
+    /**
+     * Returns whether {@link #remove} is supported.
+     *
+     * @return whether elements can be removed
+     */
+    default boolean supportsRemoval() {
+        return false;
+    }
+
+    /**
+     * Removes every element from the filter.
+     */
+    void clear();
+
+    /**
+     * Mixes an element's hash code into 64 well-spread bits for filters to
+     * derive their positions from.
+     *
+     * @param element the element to hash
+     * @return the mixed hash
+     */
+    static long hash(Object element) {
+        //Finalizer from MurmurHash3
+        long h = element.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
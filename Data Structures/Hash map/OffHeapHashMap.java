@@ -0,0 +1,697 @@
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of HashMap that keeps its entries outside of the Java heap.
+ *
+ * Entries are serialized with the given key and value serializers and
+ * appended to direct data segments as
+ * {@code [key length][value length][key bytes][value bytes]}. A direct index
+ * of 12-byte slots ({@code [hash][data position + 1]}) is searched with
+ * linear probing, and removal uses backward-shift deletion. The heap only
+ * holds a handful of fields per map, so very large maps add nothing for the
+ * garbage collector to trace.
+ *
+ * Both the index and the data are split over ByteBuffers of at most 1 GB, so
+ * neither is limited by the 2 GB size of a single buffer. A data position
+ * holds its segment in the high bits and the offset within that segment in
+ * the low bits, and a record never spans two segments. The first data
+ * segment starts small and doubles until it reaches its full length, after
+ * which full-length segments are added.
+ *
+ * Space left behind by removed or resized records is reclaimed when a data
+ * segment fills up and less than half of the data segments hold live
+ * records. All live records are then copied into new segments.
+ */
+public class OffHeapHashMap<K, V> implements HashMapInterface<K, V> {
+  private static final int SLOT_BYTES = 12;
+  private static final int HEADER_BYTES = 8;
+  private static final int INITIAL_DATA_CAPACITY = 1024;
+  private static final int MAX_SEGMENT_SHIFT = 30;
+
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final int dataShift; //log2 of the most bytes in a data segment
+  private final long dataMask;
+  private final int indexShift; //log2 of the slots in an index segment
+  private final int indexMask;
+  private ByteBuffer[] index;
+  private ByteBuffer[] data;
+  private ByteBuffer scratch; //Heap buffer holding the serialized key being looked up
+  private int slots;
+  private int dataCount; //Data segments in use
+  private int dataEnd; //End of the records in the last data segment
+  private long liveBytes; //Bytes of live records in data
+  private int size;
+
+  /**
+   * Create a hash map with no entries. The index has an initial capacity of
+   * {@code INITIAL_CAPACITY}.
+   *
+   * @param keySerializer serializer for keys
+   * @param valueSerializer serializer for values
+   * @throws IllegalArgumentException if either serializer is null
+   */
+  public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+    this(keySerializer, valueSerializer, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a hash map with no entries. The index has an initial capacity of
+   * {@code initialCapacity}.
+   *
+   * @param keySerializer serializer for keys
+   * @param valueSerializer serializer for values
+   * @param initialCapacity initial capacity of the index
+   * @throws IllegalArgumentException if either serializer is null or
+   * initialCapacity is non-positive
+   */
+  public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialCapacity) {
+    this(keySerializer, valueSerializer, initialCapacity, MAX_SEGMENT_SHIFT);
+  }
+
+  /**
+   * Create a hash map with no entries whose buffers hold at most
+   * {@code 2^segmentShift} bytes each. Used for testing.
+   *
+   * @param keySerializer serializer for keys
+   * @param valueSerializer serializer for values
+   * @param initialCapacity initial capacity of the index
+   * @param segmentShift log2 of the most bytes in a buffer
+   * @throws IllegalArgumentException if either serializer is null,
+   * initialCapacity is non-positive, or segmentShift is not between 4 and 30
+   */
+  OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialCapacity, int segmentShift) {
+    if (keySerializer == null || valueSerializer == null) throw new IllegalArgumentException("Cannot create hashmap with null serializer.");
+    if (initialCapacity <= 0) throw new IllegalArgumentException("Cannot create hashmap with non-positive capacity.");
+    if (segmentShift < 4 || segmentShift > MAX_SEGMENT_SHIFT) throw new IllegalArgumentException("Cannot create hashmap with segments over 1 GB.");
+
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.dataShift = segmentShift;
+    this.dataMask = (1L << segmentShift) - 1;
+    this.indexShift = 31 - Integer.numberOfLeadingZeros((1 << segmentShift) / SLOT_BYTES);
+    this.indexMask = (1 << indexShift) - 1;
+    scratch = ByteBuffer.allocate(64);
+    allocate(initialCapacity);
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in. A value of the same serialized length
+   * is overwritten in place.
+   *
+   * The index is regrown to 2 * old length + 1 BEFORE adding if the pending
+   * entry would exceed MAX_LOAD_FACTOR.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    //If next element will exceed load factor -> regrow table
+    if (slots * MAX_LOAD_FACTOR < size + 1) {
+      resizeBackingTable((int) Math.min(2L*slots + 1, Integer.MAX_VALUE));
+    }
+
+    int hash = hash(key);
+    ByteBuffer keyBytes = serializeKey(key);
+    int slot = hash % slots;
+
+    while (slotRef(slot) != 0) {
+      long position = slotRef(slot) - 1;
+
+      if (slotHash(slot) == hash && keyMatches(position, keyBytes)) { //Key already exists
+        V oldVal = readValue(position);
+        int valueLength = valueSerializer.sizeOf(value);
+        ByteBuffer segment = segment(position);
+        int offset = offset(position);
+
+        if (valueLength == segment.getInt(offset + 4)) { //Same length -> overwrite in place
+          segment.position(offset + HEADER_BYTES + keyBytes.remaining());
+          valueSerializer.write(value, segment);
+        } else {
+          long newPosition = append(keyBytes, value, valueLength);
+          liveBytes -= recordLength(slotRef(slot) - 1); //Old record may have moved while appending
+          setSlotRef(slot, newPosition + 1);
+        }
+
+        return oldVal;
+      }
+
+      slot = next(slot);
+    }
+
+    long position = append(keyBytes, value, valueSerializer.sizeOf(value));
+    setSlot(slot, hash, position + 1);
+    size++;
+    return null;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    int slot = find(key);
+    if (slot < 0) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    long position = slotRef(slot) - 1;
+    V val = readValue(position);
+
+    liveBytes -= recordLength(position);
+    deleteSlot(slot);
+    size--;
+
+    return val;
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    int slot = find(key);
+    if (slot < 0) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return readValue(slotRef(slot) - 1);
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return find(key) >= 0;
+  }
+
+  /**
+   * Clears the map, releasing the old off-heap buffers, and resets the index
+   * to the default length.
+   */
+  public void clear() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of off-heap bytes currently reserved by this map.
+   *
+   * @return capacity of the index and data buffers combined
+   */
+  public long offHeapBytes() {
+    long bytes = 0;
+
+    for (ByteBuffer segment : index) {
+      bytes += segment.capacity();
+    }
+
+    for (int i = 0; i < dataCount; i++) {
+      bytes += data[i].capacity();
+    }
+
+    return bytes;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map. Every key is
+   * deserialized onto the heap.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) set.add(readKey(slotRef(i) - 1));
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in order of
+   * increasing slot index. Every value is deserialized onto the heap.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) list.add(readValue(slotRef(i) - 1));
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}. Every key and value is deserialized onto the heap.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) action.accept(readKey(slotRef(i) - 1), readValue(slotRef(i) - 1));
+    }
+  }
+
+  /**
+   * Resize the index to {@code length} slots. Entries are reinserted by
+   * their stored hash, so nothing is deserialized.
+   *
+   * @param length new length of the index
+   * @throws IllegalArgumentException if length is non-positive or not greater
+   * than the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length <= size) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    ByteBuffer[] oldIndex = index;
+    int oldSlots = slots;
+    index = allocateIndex(length);
+    slots = length;
+
+    for (int i = 0; i < oldSlots; i++) {
+      ByteBuffer segment = oldIndex[i >>> indexShift];
+      int offset = (i & indexMask) * SLOT_BYTES;
+      long ref = segment.getLong(offset + 4);
+
+      if (ref != 0) {
+        int hash = segment.getInt(offset);
+        int slot = hash % slots;
+
+        while (slotRef(slot) != 0) {
+          slot = next(slot);
+        }
+
+        setSlot(slot, hash, ref);
+      }
+    }
+  }
+
+  /**
+   * Returns a snapshot of the probe runs in the index. Each slot is a bucket
+   * holding the entries whose home it is, and each entry's probe length is
+   * its distance from home plus one. Homes are computed from the hashes kept
+   * in the index, so no key or value is read.
+   *
+   * @return the map's stats
+   */
+  public HashMapStats stats() {
+    int[] homeSizes = new int[slots];
+    int[] probeLengths = new int[slots];
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) {
+        int home = slotHash(i) % slots;
+
+        homeSizes[home]++;
+        probeLengths[i] = distance(home, i) + 1;
+      }
+    }
+
+    return HashMapStats.ofProbeLengths(homeSizes, probeLengths, size);
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * Entries live off-heap, so this builds a new array of the same length as
+   * the index with a deserialized entry in each occupied slot.
+   *
+   * @return an array mirroring the index. INCLUDE EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    MapEntry<K, V>[] table = (MapEntry<K, V>[]) new MapEntry[slots];
+
+    for (int i = 0; i < slots; i++) {
+      if (slotRef(i) != 0) {
+        long position = slotRef(i) - 1;
+        table[i] = new MapEntry<>(readKey(position), readValue(position));
+      }
+    }
+
+    return table;
+  }
+
+  /**
+   * Replaces the index and data with empty buffers. The old buffers become
+   * unreachable, so their native memory is released when they are collected.
+   *
+   * @param length number of index slots
+   */
+  private void allocate(int length) {
+    index = allocateIndex(length);
+    data = new ByteBuffer[1];
+    data[0] = ByteBuffer.allocateDirect((int) Math.min(INITIAL_DATA_CAPACITY, dataMask + 1));
+    slots = length;
+    dataCount = 1;
+    dataEnd = 0;
+    liveBytes = 0;
+    size = 0;
+  }
+
+  /**
+   * Allocates the segments of an empty index. Every segment is full length
+   * except the last one.
+   *
+   * @param length number of index slots
+   * @return the index segments
+   */
+  private ByteBuffer[] allocateIndex(int length) {
+    ByteBuffer[] segments = new ByteBuffer[(int) ((length + (long) indexMask) >>> indexShift)];
+
+    for (int i = 0; i < segments.length; i++) {
+      long slotsLeft = length - ((long) i << indexShift);
+      segments[i] = ByteBuffer.allocateDirect((int) Math.min(indexMask + 1, slotsLeft) * SLOT_BYTES);
+    }
+
+    return segments;
+  }
+
+  /**
+   * Finds the index slot holding the given key.
+   *
+   * @param key the key to search for
+   * @return the slot of the key, or -1 if it is not in the map
+   */
+  private int find(K key) {
+    int hash = hash(key);
+    ByteBuffer keyBytes = serializeKey(key);
+    int slot = hash % slots;
+
+    while (slotRef(slot) != 0) {
+      if (slotHash(slot) == hash && keyMatches(slotRef(slot) - 1, keyBytes)) return slot;
+
+      slot = next(slot);
+    }
+
+    return -1;
+  }
+
+  /**
+   * Empties the given slot and shifts back any later slots of the probe run
+   * that would otherwise become unreachable.
+   *
+   * @param hole the slot to empty
+   */
+  private void deleteSlot(int hole) {
+    int curr = next(hole);
+
+    while (slotRef(curr) != 0) {
+      int home = slotHash(curr) % slots;
+
+      //Slot may move into the hole if the hole lies between its home and curr
+      if (distance(home, curr) >= distance(hole, curr)) {
+        setSlot(hole, slotHash(curr), slotRef(curr));
+        hole = curr;
+      }
+
+      curr = next(curr);
+    }
+
+    setSlot(hole, 0, 0L);
+  }
+
+  /**
+   * Appends a record to the last data segment, making room first if needed.
+   *
+   * @param keyBytes the serialized key
+   * @param value the value to serialize
+   * @param valueLength the serialized length of value
+   * @return the data position of the new record
+   * @throws IllegalArgumentException if the record does not fit in a segment
+   */
+  private long append(ByteBuffer keyBytes, V value, int valueLength) {
+    long length = (long) HEADER_BYTES + keyBytes.remaining() + valueLength;
+    if (length > dataMask + 1) throw new IllegalArgumentException("Cannot add entry larger than a data segment to hashmap.");
+
+    if (data[dataCount - 1].capacity() - dataEnd < length) {
+      makeRoom((int) length);
+    }
+
+    ByteBuffer segment = data[dataCount - 1];
+    long position = (long) (dataCount - 1) << dataShift | dataEnd;
+
+    segment.position(dataEnd);
+    segment.putInt(keyBytes.remaining());
+    segment.putInt(valueLength);
+    segment.put(keyBytes.duplicate());
+    valueSerializer.write(value, segment);
+    dataEnd = segment.position();
+    liveBytes += length;
+
+    return position;
+  }
+
+  /**
+   * Makes room for a record at the end of the last data segment. A short
+   * first segment is regrown, mostly dead segments are compacted, and
+   * otherwise a full-length segment is added.
+   *
+   * @param needed length of the record
+   */
+  private void makeRoom(int needed) {
+    long allocated = 0;
+
+    for (int i = 0; i < dataCount; i++) {
+      allocated += data[i].capacity();
+    }
+
+    if ((dataCount == 1 && allocated <= dataMask) || 2 * liveBytes < allocated) {
+      compact(needed);
+    } else {
+      addDataSegment((int) dataMask + 1);
+    }
+  }
+
+  /**
+   * Moves every live record into new data segments with room for at least
+   * {@code needed} more bytes, dropping dead records on the way. The first
+   * new segment is twice the live bytes, up to the full segment length.
+   *
+   * @param needed number of free bytes required after compacting
+   */
+  private void compact(int needed) {
+    ByteBuffer[] oldData = data;
+    long capacity = Math.max(INITIAL_DATA_CAPACITY, 2 * (liveBytes + needed));
+
+    data = new ByteBuffer[Math.max(1, oldData.length)];
+    dataCount = 0;
+    addDataSegment((int) Math.min(dataMask + 1, capacity));
+
+    for (int i = 0; i < slots; i++) {
+      long ref = slotRef(i);
+
+      if (ref != 0) {
+        ByteBuffer oldSegment = oldData[(int) ((ref - 1) >>> dataShift)];
+        int offset = (int) ((ref - 1) & dataMask);
+        int length = HEADER_BYTES + oldSegment.getInt(offset) + oldSegment.getInt(offset + 4);
+
+        if (data[dataCount - 1].capacity() - dataEnd < length) {
+          addDataSegment((int) dataMask + 1);
+        }
+
+        data[dataCount - 1].put(dataEnd, oldSegment, offset, length);
+        setSlotRef(i, ((long) (dataCount - 1) << dataShift | dataEnd) + 1);
+        dataEnd += length;
+      }
+    }
+
+    if (data[dataCount - 1].capacity() - dataEnd < needed) {
+      addDataSegment((int) dataMask + 1);
+    }
+  }
+
+  /**
+   * Adds an empty data segment after the last one and starts appending to
+   * it.
+   *
+   * @param capacity length of the segment in bytes
+   */
+  private void addDataSegment(int capacity) {
+    if (dataCount == data.length) {
+      ByteBuffer[] newData = new ByteBuffer[2 * data.length];
+
+      System.arraycopy(data, 0, newData, 0, dataCount);
+      data = newData;
+    }
+
+    data[dataCount++] = ByteBuffer.allocateDirect(capacity);
+    dataEnd = 0;
+  }
+
+  /**
+   * Compares the serialized key against the key of a stored record.
+   *
+   * @param position data position of the record
+   * @param keyBytes the serialized key
+   * @return whether the record holds the same key bytes
+   */
+  private boolean keyMatches(long position, ByteBuffer keyBytes) {
+    ByteBuffer segment = segment(position);
+    int offset = offset(position);
+    int length = keyBytes.remaining();
+    if (segment.getInt(offset) != length) return false;
+
+    return segment.slice(offset + HEADER_BYTES, length).equals(keyBytes);
+  }
+
+  /**
+   * Serializes a key into the scratch buffer, growing it if needed.
+   *
+   * @param key the key to serialize
+   * @return the scratch buffer, flipped for reading
+   */
+  private ByteBuffer serializeKey(K key) {
+    int length = keySerializer.sizeOf(key);
+    if (scratch.capacity() < length) scratch = ByteBuffer.allocate(Math.max(length, 2 * scratch.capacity()));
+
+    scratch.clear();
+    keySerializer.write(key, scratch);
+    scratch.flip();
+
+    return scratch;
+  }
+
+  /**
+   * Deserializes the key of the record at position.
+   */
+  private K readKey(long position) {
+    ByteBuffer segment = segment(position);
+    int offset = offset(position);
+
+    segment.position(offset + HEADER_BYTES);
+    return keySerializer.read(segment, segment.getInt(offset));
+  }
+
+  /**
+   * Deserializes the value of the record at position.
+   */
+  private V readValue(long position) {
+    ByteBuffer segment = segment(position);
+    int offset = offset(position);
+
+    segment.position(offset + HEADER_BYTES + segment.getInt(offset));
+    return valueSerializer.read(segment, segment.getInt(offset + 4));
+  }
+
+  /**
+   * Total length of the record at position, header included.
+   */
+  private int recordLength(long position) {
+    ByteBuffer segment = segment(position);
+    int offset = offset(position);
+
+    return HEADER_BYTES + segment.getInt(offset) + segment.getInt(offset + 4);
+  }
+
+  /**
+   * Data segment holding the record at position.
+   */
+  private ByteBuffer segment(long position) {
+    return data[(int) (position >>> dataShift)];
+  }
+
+  /**
+   * Offset of the record at position within its data segment.
+   */
+  private int offset(long position) {
+    return (int) (position & dataMask);
+  }
+
+  /**
+   * Hash stored in an index slot.
+   */
+  private int slotHash(int slot) {
+    return index[slot >>> indexShift].getInt((slot & indexMask) * SLOT_BYTES);
+  }
+
+  /**
+   * Data position + 1 stored in an index slot, or 0 if the slot is empty.
+   */
+  private long slotRef(int slot) {
+    return index[slot >>> indexShift].getLong((slot & indexMask) * SLOT_BYTES + 4);
+  }
+
+  /**
+   * Stores a hash and a data position + 1 in an index slot.
+   */
+  private void setSlot(int slot, int hash, long ref) {
+    ByteBuffer segment = index[slot >>> indexShift];
+    int offset = (slot & indexMask) * SLOT_BYTES;
+
+    segment.putInt(offset, hash);
+    segment.putLong(offset + 4, ref);
+  }
+
+  /**
+   * Stores a data position + 1 in an index slot, keeping its hash.
+   */
+  private void setSlotRef(int slot, long ref) {
+    index[slot >>> indexShift].putLong((slot & indexMask) * SLOT_BYTES + 4, ref);
+  }
+
+  /**
+   * Slot after the given one, wrapping around the index.
+   */
+  private int next(int slot) {
+    return slot + 1 == slots ? 0 : slot + 1;
+  }
+
+  /**
+   * Number of forward probes from one slot to another.
+   */
+  private int distance(int from, int to) {
+    return to >= from ? to - from : to - from + slots;
+  }
+
+  /**
+   * Non-negative hash of a key.
+   */
+  private static int hash(Object key) {
+    return key.hashCode() & 0x7FFFFFFF;
+  }
+}
@@ -0,0 +1,358 @@
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of HashMap using open addressing with linear probing.
+ *
+ * Keys and values are stored in parallel arrays, so no MapEntry is allocated
+ * per entry. Removal uses backward-shift deletion instead of tombstones, which
+ * keeps every probe sequence as short as the entries currently in the map.
+ */
+public class OpenAddressingHashMap<K, V> implements HashMapInterface<K, V> {
+  private K[] keys;
+  private V[] values;
+  private int size;
+
+  /**
+   * Create a hash map with no entries. The backing arrays have an initial
+   * capacity of {@code INITIAL_CAPACITY}.
+   */
+  public OpenAddressingHashMap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a hash map with no entries. The backing arrays have an initial
+   * capacity of {@code initialCapacity}.
+   *
+   * @param initialCapacity initial capacity of the backing arrays
+   * @throws IllegalArgumentException if initialCapacity is non-positive
+   */
+  public OpenAddressingHashMap(int initialCapacity) {
+    if (initialCapacity <= 0) throw new IllegalArgumentException("Cannot create hashmap with non-positive capacity.");
+
+    keys = (K[]) new Object[initialCapacity];
+    values = (V[]) new Object[initialCapacity];
+    size = 0;
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in.
+   *
+   * Collisions are resolved with linear probing. The backing arrays are
+   * regrown to 2 * old length + 1 BEFORE adding if the pending entry would
+   * exceed MAX_LOAD_FACTOR.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    //If next element will exceed load factor -> regrow table
+    if (keys.length * MAX_LOAD_FACTOR < size + 1) {
+      resizeBackingTable(2*keys.length + 1);
+    }
+
+    int index = indexFor(key, keys.length);
+
+    //Probe until an empty slot or the matching key is found
+    while (keys[index] != null) {
+      if (keys[index].equals(key)) { //Key already exists
+        V oldVal = values[index];
+        values[index] = value; //Updates value
+        return oldVal;
+      }
+
+      index = next(index, keys.length);
+    }
+
+    keys[index] = key;
+    values[index] = value;
+    size++;
+    return null;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * Entries following the removed slot in the same probe run are shifted
+   * back so that no tombstone is left behind.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    int index = find(key);
+    if (index < 0) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    V val = values[index];
+    deleteSlot(index);
+    size--;
+
+    return val;
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    int index = find(key);
+    if (index < 0) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return values[index];
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return find(key) >= 0;
+  }
+
+  /**
+   * Clears the table and resets it to the default length.
+   */
+  public void clear() {
+    keys = (K[]) new Object[INITIAL_CAPACITY];
+    values = (V[]) new Object[INITIAL_CAPACITY];
+    size = 0;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) set.add(keys[i]);
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in order of
+   * increasing slot index.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) list.add(values[i]);
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) action.accept(keys[i], values[i]);
+    }
+  }
+
+  /**
+   * Resize the backing arrays to {@code length}.
+   *
+   * After resizing, the table's load factor is permitted to exceed
+   * MAX_LOAD_FACTOR, but there is always at least one free slot so probing
+   * terminates.
+   *
+   * @param length new length of the backing arrays
+   * @throws IllegalArgumentException if length is non-positive or not greater
+   * than the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length <= size) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    K[] oldKeys = keys;
+    V[] oldValues = values;
+    keys = (K[]) new Object[length];
+    values = (V[]) new Object[length];
+
+    //Reinserts every entry; keys are known to be unique so no equals is needed
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int index = indexFor(oldKeys[i], length);
+
+        while (keys[index] != null) {
+          index = next(index, length);
+        }
+
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Returns a snapshot of the probe runs. Each slot is a bucket holding the
+   * entries whose home it is, and each entry's probe length is its distance
+   * from home plus one.
+   *
+   * @return the map's stats
+   */
+  public HashMapStats stats() {
+    int[] homeSizes = new int[keys.length];
+    int[] probeLengths = new int[keys.length];
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        int home = indexFor(keys[i], keys.length);
+
+        homeSizes[home]++;
+        probeLengths[i] = distance(home, i) + 1;
+      }
+    }
+
+    return HashMapStats.ofProbeLengths(homeSizes, probeLengths, size);
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * Entries are not stored as MapEntry objects, so this builds a new array
+   * of the same length as the backing arrays with an entry in each
+   * occupied slot.
+   *
+   * @return an array mirroring the backing arrays. INCLUDE EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    MapEntry<K, V>[] table = (MapEntry<K, V>[]) new MapEntry[keys.length];
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) table[i] = new MapEntry<>(keys[i], values[i]);
+    }
+
+    return table;
+  }
+
+  /**
+   * Finds the slot holding the given key.
+   *
+   * @param key the key to search for
+   * @return the slot index of the key, or -1 if it is not in the map
+   */
+  private int find(K key) {
+    int index = indexFor(key, keys.length);
+
+    while (keys[index] != null) {
+      if (keys[index].equals(key)) return index;
+
+      index = next(index, keys.length);
+    }
+
+    return -1;
+  }
+
+  /**
+   * Empties the given slot and shifts back any later entries of the probe
+   * run that would otherwise become unreachable.
+   *
+   * @param hole the slot to empty
+   */
+  private void deleteSlot(int hole) {
+    int curr = next(hole, keys.length);
+
+    while (keys[curr] != null) {
+      int home = indexFor(keys[curr], keys.length);
+
+      //Entry may move into the hole if the hole lies between its home and curr
+      if (distance(home, curr) >= distance(hole, curr)) {
+        keys[hole] = keys[curr];
+        values[hole] = values[curr];
+        hole = curr;
+      }
+
+      curr = next(curr, keys.length);
+    }
+
+    keys[hole] = null;
+    values[hole] = null;
+  }
+
+  /**
+   * Number of forward probes needed to get from one slot to another.
+   *
+   * @param from the starting slot
+   * @param to the ending slot
+   * @return the cyclic distance from {@code from} to {@code to}
+   */
+  private int distance(int from, int to) {
+    return to >= from ? to - from : to + keys.length - from;
+  }
+
+  /**
+   * Computes the home slot of a key for a table of the given length.
+   *
+   * @param key the key to hash
+   * @param length the length of the table
+   * @return the home slot of the key
+   */
+  private static int indexFor(Object key, int length) {
+    return (key.hashCode() & 0x7FFFFFFF) % length;
+  }
+
+  /**
+   * Returns the slot after {@code index}, wrapping around the table.
+   *
+   * @param index the current slot
+   * @param length the length of the table
+   * @return the next slot
+   */
+  private static int next(int index, int length) {
+    return index + 1 == length ? 0 : index + 1;
+  }
+}
@@ -0,0 +1,627 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only map over a fixed key set, indexed by a minimal perfect hash.
+ *
+ * The hash function is built with the hash-and-displace (CHD) method: keys
+ * are first split into small buckets, then each bucket, largest first, is
+ * given a displacement that sends all of its keys to distinct free slots.
+ * Buckets of one key are simply pointed at a free slot. Every key therefore
+ * gets its own slot in a table exactly as long as the key set, with no
+ * chains or empty slots, and a lookup costs one hash of the key, one read of
+ * its bucket's displacement and one read of the slot.
+ *
+ * Keys are hashed from their serialized bytes, so the function is the same
+ * in every process and the whole map can be written to disk and loaded back
+ * without rebuilding it. Each thread serializes the keys it looks up into
+ * its own reused buffer, so lookups allocate nothing beyond what the
+ * serializer does.
+ *
+ * A loaded map keeps the file memory-mapped and reads nothing up front. A
+ * lookup compares the serialized key with the stored key bytes and only
+ * deserializes the value it returns.
+ */
+public class PerfectHashMap<K, V> {
+  private static final int MAGIC = 0x5048_4D31; //"PHM1"
+  private static final int HEADER_BYTES = 20;
+  private static final int KEYS_PER_BUCKET = 4;
+  private static final int MAX_DISPLACEMENT = 1 << 20;
+  private static final int MAX_SEEDS = 64;
+
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final long seed;
+  private final int size;
+  private final IntBuffer displacements; //Displacement of each bucket, or -(slot + 1) for a one-key bucket
+  private final K[] keys; //Entries in slot order, or null if they are read from file
+  private final V[] values;
+  private final ByteBuffer file; //Mapped file of a loaded map, or null
+  private final IntBuffer offsets; //File offset of the record in each slot of a loaded map
+  private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(64));
+
+  /**
+   * Creates a map over an already built hash function, holding its entries
+   * either in arrays or in a mapped file.
+   */
+  private PerfectHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, long seed, int size,
+      IntBuffer displacements, K[] keys, V[] values, ByteBuffer file, IntBuffer offsets) {
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.seed = seed;
+    this.size = size;
+    this.displacements = displacements;
+    this.keys = keys;
+    this.values = values;
+    this.file = file;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Builds a map holding the entries of the given map.
+   *
+   * @param map the entries to index
+   * @param keySerializer serializer for keys
+   * @param valueSerializer serializer for values
+   * @throws IllegalArgumentException if any argument is null
+   * @return the built map
+   */
+  public static <K, V> PerfectHashMap<K, V> build(HashMapInterface<K, V> map, Serializer<K> keySerializer,
+      Serializer<V> valueSerializer) {
+    if (map == null) throw new IllegalArgumentException("Cannot build perfect hashmap from null map.");
+
+    K[] keys = (K[]) map.keySet().toArray();
+    V[] values = (V[]) new Object[keys.length];
+
+    for (int i = 0; i < keys.length; i++) {
+      values[i] = map.get(keys[i]);
+    }
+
+    return build(keys, values, keySerializer, valueSerializer);
+  }
+
+  /**
+   * Builds a map from the given keys to the values at the same index.
+   *
+   * @param keys the distinct keys to index
+   * @param values the values, matched by index
+   * @param keySerializer serializer for keys
+   * @param valueSerializer serializer for values
+   * @throws IllegalArgumentException if any argument, key or value is null,
+   * the arrays differ in length, or two keys serialize to the same bytes
+   * @throws IllegalStateException if no hash function is found within
+   * {@code MAX_SEEDS} seeds
+   * @return the built map
+   */
+  public static <K, V> PerfectHashMap<K, V> build(K[] keys, V[] values, Serializer<K> keySerializer,
+      Serializer<V> valueSerializer) {
+    if (keys == null || values == null) throw new IllegalArgumentException("Cannot build perfect hashmap from null arrays.");
+    if (keys.length != values.length) throw new IllegalArgumentException("Cannot build perfect hashmap from arrays of different lengths.");
+    if (keySerializer == null || valueSerializer == null) throw new IllegalArgumentException("Cannot create hashmap with null serializer.");
+
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+      if (values[i] == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+    }
+
+    ByteBuffer scratch = ByteBuffer.allocate(64);
+    long[] hashes = new long[keys.length];
+
+    //Tries new seeds until every bucket can be placed
+    for (long seed = 0; seed < MAX_SEEDS; seed++) {
+      for (int i = 0; i < keys.length; i++) {
+        scratch = serialize(keySerializer, keys[i], scratch);
+        hashes[i] = hash(scratch, seed);
+      }
+
+      int[] order = place(hashes);
+
+      if (order != null) {
+        int[] displacements = Arrays.copyOfRange(order, keys.length, order.length);
+        K[] slotKeys = (K[]) new Object[keys.length];
+        V[] slotValues = (V[]) new Object[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+          slotKeys[order[i]] = keys[i];
+          slotValues[order[i]] = values[i];
+        }
+
+        return new PerfectHashMap<>(keySerializer, valueSerializer, seed, keys.length, IntBuffer.wrap(displacements),
+            slotKeys, slotValues, null, null);
+      }
+
+      //Equal hashes for equal key bytes can never be separated by a new seed
+      checkDistinct(keys, hashes, keySerializer);
+    }
+
+    throw new IllegalStateException("Cannot find perfect hash function after " + MAX_SEEDS + " seeds.");
+  }
+
+  /**
+   * Loads a map written by {@link #write(Path)} by mapping the file. Only
+   * the header is read; the hash function and the entries are read from the
+   * mapping as keys are looked up, so loading takes the same time for any
+   * size of map.
+   *
+   * @param path the file to read
+   * @param keySerializer serializer the keys were written with
+   * @param valueSerializer serializer the values were written with
+   * @throws IllegalArgumentException if any argument is null
+   * @throws IOException if the file cannot be read, is larger than 2 GB or
+   * is not a perfect hashmap
+   * @return the loaded map
+   */
+  public static <K, V> PerfectHashMap<K, V> load(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+      throws IOException {
+    if (path == null) throw new IllegalArgumentException("Cannot load hashmap from null path.");
+    if (keySerializer == null || valueSerializer == null) throw new IllegalArgumentException("Cannot create hashmap with null serializer.");
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) throw new IOException("Perfect hashmap file exceeds 2 GB: " + path);
+
+      MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if (file.capacity() < HEADER_BYTES || file.getInt(0) != MAGIC) throw new IOException("Not a perfect hashmap: " + path);
+
+      int size = file.getInt(4);
+      int buckets = file.getInt(8);
+      long seed = file.getLong(12);
+      long tables = HEADER_BYTES + ((long) buckets + size) * Integer.BYTES;
+
+      if (size < 0 || buckets <= 0 || tables > file.capacity()) throw new IOException("Perfect hashmap is truncated: " + path);
+
+      IntBuffer displacements = file.slice(HEADER_BYTES, buckets * Integer.BYTES).asIntBuffer();
+      IntBuffer offsets = file.slice(HEADER_BYTES + buckets * Integer.BYTES, size * Integer.BYTES).asIntBuffer();
+
+      return new PerfectHashMap<>(keySerializer, valueSerializer, seed, size, displacements, null, null, file, offsets);
+    }
+  }
+
+  /**
+   * Writes the map to the given file, replacing any existing contents.
+   *
+   * The file holds a header, the bucket displacements, the file offset of
+   * each slot's record and then every entry as
+   * {@code [key length][value length][key bytes][value bytes]} in slot
+   * order.
+   *
+   * @param path the file to write
+   * @throws IllegalArgumentException if path is null
+   * @throws IllegalStateException if the file would exceed 2 GB
+   * @throws IOException if the file cannot be written
+   */
+  public void write(Path path) throws IOException {
+    if (path == null) throw new IllegalArgumentException("Cannot write hashmap to null path.");
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    int buckets = displacements.limit();
+    long offset = HEADER_BYTES + ((long) buckets + size) * Integer.BYTES;
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      buffer.putInt(MAGIC);
+      buffer.putInt(size);
+      buffer.putInt(buckets);
+      buffer.putLong(seed);
+
+      for (int i = 0; i < buckets; i++) {
+        buffer = ensureRoom(channel, buffer, Integer.BYTES);
+
+        buffer.putInt(displacements.get(i));
+      }
+
+      //Record offsets follow from the record lengths
+      for (int i = 0; i < size; i++) {
+        if (offset > Integer.MAX_VALUE) throw new IllegalStateException("Perfect hashmap file exceeds 2 GB.");
+
+        buffer = ensureRoom(channel, buffer, Integer.BYTES);
+
+        buffer.putInt((int) offset);
+        offset += 2 * Integer.BYTES + keySerializer.sizeOf(keyAt(i)) + valueSerializer.sizeOf(valueAt(i));
+      }
+
+      if (offset > Integer.MAX_VALUE) throw new IllegalStateException("Perfect hashmap file exceeds 2 GB.");
+
+      for (int i = 0; i < size; i++) {
+        K key = keyAt(i);
+        V value = valueAt(i);
+        int keyLength = keySerializer.sizeOf(key);
+        int valueLength = valueSerializer.sizeOf(value);
+        buffer = ensureRoom(channel, buffer, 2 * Integer.BYTES + keyLength + valueLength);
+
+        buffer.putInt(keyLength);
+        buffer.putInt(valueLength);
+        keySerializer.write(key, buffer);
+        valueSerializer.write(value, buffer);
+      }
+
+      flush(channel, buffer);
+    }
+  }
+
+  /**
+   * Gets the value associated with the given key. A loaded map deserializes
+   * the value from the file on every call.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    int slot = slotOf(key);
+    if (slot < 0) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return valueAt(slot);
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return slotOf(key) >= 0;
+  }
+
+  /**
+   * Returns the slot the perfect hash assigns to the key. Keys outside the
+   * key set are also sent to some slot, so use {@link #containsKey} to test
+   * membership.
+   *
+   * @param key the key to hash
+   * @throws IllegalArgumentException if key is null
+   * @return a slot between 0 and size - 1
+   */
+  public int indexOf(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot hash null key.");
+    if (size == 0) return -1;
+
+    return slotFor(hash(serializeKey(key), seed), displacements, size);
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the map
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}. A loaded map deserializes every key.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < size; i++) {
+      set.add(keyAt(i));
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in slot order.
+   * A loaded map deserializes every value.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < size; i++) {
+      list.add(valueAt(i));
+    }
+
+    return list;
+  }
+
+  /**
+   * Finds the slot holding the given key.
+   *
+   * @param key the key to search for
+   * @return the slot of the key, or -1 if it is not in the map
+   */
+  private int slotOf(K key) {
+    if (size == 0) return -1;
+
+    ByteBuffer keyBytes = serializeKey(key);
+    int slot = slotFor(hash(keyBytes, seed), displacements, size);
+
+    if (keys != null) return keys[slot].equals(key) ? slot : -1;
+
+    //Compares the stored key bytes without deserializing them
+    int offset = offsets.get(slot);
+    int length = keyBytes.remaining();
+    if (file.getInt(offset) != length) return -1;
+
+    for (int i = 0; i < length; i++) {
+      if (file.get(offset + 2 * Integer.BYTES + i) != keyBytes.get(i)) return -1;
+    }
+
+    return slot;
+  }
+
+  /**
+   * Key in the given slot, deserialized if the map was loaded.
+   */
+  private K keyAt(int slot) {
+    if (keys != null) return keys[slot];
+
+    int offset = offsets.get(slot);
+    int keyLength = file.getInt(offset);
+    return keySerializer.read(file.slice(offset + 2 * Integer.BYTES, keyLength), keyLength);
+  }
+
+  /**
+   * Value in the given slot, deserialized if the map was loaded.
+   */
+  private V valueAt(int slot) {
+    if (values != null) return values[slot];
+
+    int offset = offsets.get(slot);
+    int valueLength = file.getInt(offset + Integer.BYTES);
+    return valueSerializer.read(file.slice(offset + 2 * Integer.BYTES + file.getInt(offset), valueLength), valueLength);
+  }
+
+  /**
+   * Serializes a key into this thread's scratch buffer, keeping the buffer
+   * for the next lookup.
+   *
+   * @return the scratch buffer holding the key between position and limit
+   */
+  private ByteBuffer serializeKey(K key) {
+    ByteBuffer buffer = serialize(keySerializer, key, scratch.get());
+    scratch.set(buffer);
+    return buffer;
+  }
+
+  /**
+   * Assigns every hash a distinct slot.
+   *
+   * @param hashes the key hashes
+   * @return the slot of each key followed by the displacement of each
+   * bucket, or null if some bucket could not be placed
+   */
+  private static int[] place(long[] hashes) {
+    int n = hashes.length;
+    int buckets = Math.max(1, (n + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET);
+    int[] result = new int[n + buckets];
+
+    //Groups the keys of each bucket together, largest buckets first
+    int[] start = new int[buckets + 1];
+
+    for (int i = 0; i < n; i++) {
+      start[bucketOf(hashes[i], buckets) + 1]++;
+    }
+
+    Integer[] bucketOrder = new Integer[buckets];
+
+    for (int b = 0; b < buckets; b++) {
+      bucketOrder[b] = b;
+    }
+
+    int[] counts = Arrays.copyOfRange(start, 1, buckets + 1);
+    Arrays.sort(bucketOrder, (a, b) -> counts[b] - counts[a]);
+
+    for (int b = 0; b < buckets; b++) {
+      start[b + 1] += start[b];
+    }
+
+    int[] members = new int[n];
+    int[] next = Arrays.copyOf(start, buckets);
+
+    for (int i = 0; i < n; i++) {
+      members[next[bucketOf(hashes[i], buckets)]++] = i;
+    }
+
+    boolean[] taken = new boolean[n];
+    int[] trial = new int[KEYS_PER_BUCKET * 8];
+    int freeCursor = 0;
+
+    for (int b : bucketOrder) {
+      int count = counts[b];
+
+      if (count == 0) break;
+
+      if (count == 1) { //Points a lone key straight at the next free slot
+        while (taken[freeCursor]) {
+          freeCursor++;
+        }
+
+        taken[freeCursor] = true;
+        result[members[start[b]]] = freeCursor;
+        result[n + b] = -(freeCursor + 1);
+        continue;
+      }
+
+      if (trial.length < count) trial = new int[count];
+
+      //Keys with equal hashes land together under every displacement
+      for (int j = start[b]; j < start[b + 1]; j++) {
+        for (int k = start[b]; k < j; k++) {
+          if (hashes[members[j]] == hashes[members[k]]) return null;
+        }
+      }
+
+      int d = 0;
+
+      //Searches for a displacement sending the whole bucket to free slots
+      while (!fits(hashes, members, start[b], count, d, taken, trial)) {
+        if (++d == MAX_DISPLACEMENT) return null;
+      }
+
+      for (int j = 0; j < count; j++) {
+        taken[trial[j]] = true;
+        result[members[start[b] + j]] = trial[j];
+      }
+
+      result[n + b] = d;
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks whether displacement d sends every key of a bucket to a distinct
+   * free slot, recording the slots in trial.
+   */
+  private static boolean fits(long[] hashes, int[] members, int from, int count, int d, boolean[] taken, int[] trial) {
+    int n = hashes.length;
+
+    for (int j = 0; j < count; j++) {
+      int slot = displace(hashes[members[from + j]], d, n);
+
+      if (taken[slot]) return false;
+
+      for (int k = 0; k < j; k++) {
+        if (trial[k] == slot) return false;
+      }
+
+      trial[j] = slot;
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks that keys with equal hashes have different serialized bytes.
+   * Keys are hashed from their bytes, so keys with the same bytes collide
+   * under every seed even if they are not equal.
+   *
+   * @throws IllegalArgumentException if two keys serialize to the same bytes
+   */
+  private static <K> void checkDistinct(K[] keys, long[] hashes, Serializer<K> keySerializer) {
+    java.util.HashMap<Long, Integer> seen = new java.util.HashMap<>();
+    ByteBuffer first = ByteBuffer.allocate(64);
+    ByteBuffer second = ByteBuffer.allocate(64);
+
+    for (int i = 0; i < keys.length; i++) {
+      Integer other = seen.putIfAbsent(hashes[i], i);
+
+      if (other == null) continue;
+
+      first = serialize(keySerializer, keys[other], first);
+      second = serialize(keySerializer, keys[i], second);
+
+      if (!first.equals(second)) continue;
+
+      if (keys[other].equals(keys[i])) throw new IllegalArgumentException("Cannot build perfect hashmap with duplicate key " + keys[i] + ".");
+      throw new IllegalArgumentException("Cannot build perfect hashmap with keys " + keys[other] + " and " + keys[i] + " that serialize to the same bytes.");
+    }
+  }
+
+  /**
+   * Slot of a key with the given hash.
+   */
+  private static int slotFor(long hash, IntBuffer displacements, int n) {
+    int d = displacements.get(bucketOf(hash, displacements.limit()));
+    return d < 0 ? -d - 1 : displace(hash, d, n);
+  }
+
+  /**
+   * Bucket of a hash, taken from its upper 32 bits.
+   */
+  private static int bucketOf(long hash, int buckets) {
+    return (int) (((hash >>> 32) * buckets) >>> 32);
+  }
+
+  /**
+   * Slot of a hash under displacement d.
+   */
+  private static int displace(long hash, int d, int n) {
+    long h = (hash ^ (d * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+    return (int) (((h >>> 32) * n) >>> 32);
+  }
+
+  /**
+   * Hashes the bytes between the buffer's position and limit.
+   *
+   * @param bytes the bytes to hash
+   * @param seed seed mixed into the hash
+   * @return the 64-bit hash
+   */
+  private static long hash(ByteBuffer bytes, long seed) {
+    long h = seed * 0x9E3779B97F4A7C15L + bytes.remaining();
+    int i = bytes.position();
+
+    for (; i + Long.BYTES <= bytes.limit(); i += Long.BYTES) {
+      h = Long.rotateLeft(h ^ (bytes.getLong(i) * 0x87C37B91114253D5L), 31) * 0x4CF5AD432745937FL;
+    }
+
+    for (; i < bytes.limit(); i++) {
+      h = (h ^ (bytes.get(i) & 0xFF)) * 0x100000001B3L;
+    }
+
+    //Finalizer from MurmurHash3
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+
+  /**
+   * Serializes a key into the buffer, allocating a larger one if needed.
+   *
+   * @return the buffer holding the key between position and limit
+   */
+  private static <K> ByteBuffer serialize(Serializer<K> serializer, K key, ByteBuffer buffer) {
+    int length = serializer.sizeOf(key);
+
+    if (buffer.capacity() < length) buffer = ByteBuffer.allocate(Math.max(length, 2 * buffer.capacity()));
+
+    buffer.clear();
+    serializer.write(key, buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Writes out the buffer if it has fewer than {@code needed} bytes free,
+   * allocating a larger one if a single record does not fit.
+   *
+   * @return the buffer to keep writing to
+   */
+  private static ByteBuffer ensureRoom(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+    if (buffer.remaining() >= needed) return buffer;
+
+    flush(channel, buffer);
+    return needed > buffer.capacity() ? ByteBuffer.allocateDirect(needed) : buffer;
+  }
+
+  /**
+   * Writes out everything put into the buffer and clears it.
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    buffer.clear();
+  }
+}
@@ -0,0 +1,660 @@
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map implemented as a hash array mapped trie.
+ *
+ * Each level of the trie consumes 5 bits of the key's hash and holds up to
+ * 32 children, packed densely behind a bitmap of which children exist. put
+ * and remove never change a map; they return a new version that copies only
+ * the O(log32 n) nodes on the path to the key and shares every other node
+ * with the old version, so older versions stay valid and cheap to keep.
+ *
+ * Keys whose full hashes are equal share a collision node. Bulk construction
+ * should go through {@link #asTransient()}, which edits nodes it owns in
+ * place instead of copying them.
+ */
+public final class PersistentHashMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+  private final Node root;
+  private final int size;
+
+  /**
+   * Creates a map over the given trie.
+   *
+   * @param root the root node, or null if the map is empty
+   * @param size the number of entries under the root
+   */
+  private PersistentHashMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty map.
+   *
+   * @return a map with no entries
+   */
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Returns a version of this map with the given key-value pair added,
+   * replacing the value if the key is already present.
+   *
+   * @param key key to add into the map
+   * @param value value to add into the map
+   * @throws IllegalArgumentException if key or value is null
+   * @return the new version, or this map if the key already maps to value
+   */
+  public PersistentHashMap<K, V> put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    Result result = new Result();
+    Node newRoot = (root == null ? BitmapNode.EMPTY : root).put(null, 0, spread(key.hashCode()), key, value, result);
+
+    if (newRoot == root) return this;
+
+    return new PersistentHashMap<>(newRoot, result.added ? size + 1 : size);
+  }
+
+  /**
+   * Returns a version of this map without the entry with a matching key.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the new version
+   */
+  public PersistentHashMap<K, V> remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    Result result = new Result();
+    Node newRoot = root == null ? null : root.remove(null, 0, spread(key.hashCode()), key, result);
+
+    if (!result.removed) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    Object val = root == null ? null : root.find(0, spread(key.hashCode()), key);
+    if (val == null) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return (V) val;
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return root != null && root.find(0, spread(key.hashCode()), key) != null;
+  }
+
+  /**
+   * Returns the empty map. Present for symmetry with HashMapInterface.
+   *
+   * @return a map with no entries
+   */
+  public PersistentHashMap<K, V> clear() {
+    return empty();
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the map
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+    forEach((key, value) -> set.add(key));
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in trie order.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+    forEach((key, value) -> list.add(value));
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry of the map, in trie order.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    if (root != null) root.forEach((BiConsumer<Object, Object>) action);
+  }
+
+  /**
+   * Returns a mutable copy of this map for building a new version in bulk.
+   * This map is not affected by edits to the copy.
+   *
+   * @return a transient map holding the same entries
+   */
+  public Transient<K, V> asTransient() {
+    return new Transient<>(root, size);
+  }
+
+  /**
+   * Mutable view of a trie used to build a new version in bulk.
+   *
+   * A transient owns every node it creates, and edits those nodes in place.
+   * Nodes it shares with persistent versions are still copied on first
+   * change, so those versions are never affected. Once {@link #persistent()}
+   * is called the transient can no longer be used. Transients are not
+   * thread safe.
+   */
+  public static final class Transient<K, V> {
+    private Object owner;
+    private Node root;
+    private int size;
+
+    /**
+     * Creates a transient over the given trie.
+     *
+     * @param root the root node, or null if empty
+     * @param size the number of entries under the root
+     */
+    private Transient(Node root, int size) {
+      this.owner = new Object();
+      this.root = root;
+      this.size = size;
+    }
+
+    /**
+     * Adds the given key-value pair, replacing the value if the key is
+     * already present.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @throws IllegalArgumentException if key or value is null
+     * @throws IllegalStateException if the transient has been made persistent
+     * @return null if the key was not already in the map. If it was in the
+     * map, return the old value associated with it
+     */
+    public V put(K key, V value) {
+      if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+      if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+      ensureEditable();
+
+      Result result = new Result();
+      root = (root == null ? BitmapNode.EMPTY : root).put(owner, 0, spread(key.hashCode()), key, value, result);
+
+      if (result.added) size++;
+
+      return (V) result.oldValue;
+    }
+
+    /**
+     * Removes the entry with a matching key.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws IllegalStateException if the transient has been made persistent
+     * @throws java.util.NoSuchElementException if the key does not exist
+     * @return the value previously associated with the key
+     */
+    public V remove(K key) {
+      if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+      ensureEditable();
+
+      Result result = new Result();
+      if (root != null) root = root.remove(owner, 0, spread(key.hashCode()), key, result);
+
+      if (!result.removed) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+      size--;
+      return (V) result.oldValue;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws IllegalStateException if the transient has been made persistent
+     * @throws java.util.NoSuchElementException if the key is not in the map
+     * @return the value associated with the given key
+     */
+    public V get(K key) {
+      if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+      ensureEditable();
+
+      Object val = root == null ? null : root.find(0, spread(key.hashCode()), key);
+      if (val == null) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+      return (V) val;
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws IllegalStateException if the transient has been made persistent
+     * @return whether or not the key is in the map
+     */
+    public boolean containsKey(K key) {
+      if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+      ensureEditable();
+
+      return root != null && root.find(0, spread(key.hashCode()), key) != null;
+    }
+
+    /**
+     * Returns the number of elements in the map.
+     *
+     * @throws IllegalStateException if the transient has been made persistent
+     * @return number of elements in the map
+     */
+    public int size() {
+      ensureEditable();
+      return size;
+    }
+
+    /**
+     * Freezes the edits into a persistent map. The transient cannot be used
+     * afterwards.
+     *
+     * @throws IllegalStateException if the transient has already been made
+     * persistent
+     * @return the persistent map
+     */
+    public PersistentHashMap<K, V> persistent() {
+      ensureEditable();
+      owner = null;
+
+      return root == null ? empty() : new PersistentHashMap<>(root, size);
+    }
+
+    /**
+     * @throws IllegalStateException if the transient has been made persistent
+     */
+    private void ensureEditable() {
+      if (owner == null) throw new IllegalStateException("Cannot use transient after it has been made persistent.");
+    }
+  }
+
+  /**
+   * Outcome of a put or remove below the root.
+   */
+  private static final class Result {
+    private boolean added;
+    private boolean removed;
+    private Object oldValue;
+  }
+
+  /**
+   * Node of the trie. A node may be edited in place only by the transient
+   * that owns it; every other change copies it.
+   */
+  private abstract static class Node {
+    final Object owner;
+
+    Node(Object owner) {
+      this.owner = owner;
+    }
+
+    /**
+     * @return whether the given transient may edit this node in place
+     */
+    final boolean editableBy(Object edit) {
+      return edit != null && edit == owner;
+    }
+
+    /**
+     * @return the value for the key, or null if it is not below this node
+     */
+    abstract Object find(int shift, int hash, Object key);
+
+    /**
+     * @return the node with the pair added; this node if nothing changed
+     */
+    abstract Node put(Object edit, int shift, int hash, Object key, Object value, Result result);
+
+    /**
+     * @return the node with the key removed; this node if it was absent, or
+     * null if the node is left empty
+     */
+    abstract Node remove(Object edit, int shift, int hash, Object key, Result result);
+
+    abstract void forEach(BiConsumer<Object, Object> action);
+  }
+
+  /**
+   * Trie node with up to 32 slots, one per 5-bit chunk of the hash. Only
+   * present slots are stored, as key-value pairs in slot order. A pair with
+   * a null key holds a child node in place of the value.
+   */
+  private static final class BitmapNode extends Node {
+    static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+    int bitmap;
+    Object[] array;
+
+    BitmapNode(Object owner, int bitmap, Object[] array) {
+      super(owner);
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    Object find(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) return null;
+
+      int i = 2 * index(bit);
+      Object k = array[i];
+
+      if (k == null) return ((Node) array[i + 1]).find(shift + BITS, hash, key);
+
+      return k.equals(key) ? array[i + 1] : null;
+    }
+
+    Node put(Object edit, int shift, int hash, Object key, Object value, Result result) {
+      int bit = bit(hash, shift);
+      int i = 2 * index(bit);
+
+      if ((bitmap & bit) == 0) { //Empty slot -> insert the pair
+        Object[] newArray = new Object[array.length + 2];
+        System.arraycopy(array, 0, newArray, 0, i);
+        newArray[i] = key;
+        newArray[i + 1] = value;
+        System.arraycopy(array, i, newArray, i + 2, array.length - i);
+        result.added = true;
+
+        if (editableBy(edit)) {
+          array = newArray;
+          bitmap |= bit;
+          return this;
+        }
+
+        return new BitmapNode(edit, bitmap | bit, newArray);
+      }
+
+      Object k = array[i];
+      Object v = array[i + 1];
+
+      if (k == null) { //Child node
+        Node child = ((Node) v).put(edit, shift + BITS, hash, key, value, result);
+        return child == v ? this : with(edit, i + 1, child);
+      }
+
+      if (k.equals(key)) { //Key already exists
+        result.oldValue = v;
+        if (v == value) return this;
+
+        return with(edit, i + 1, value);
+      }
+
+      //Two different keys in one slot -> push both down a level
+      result.added = true;
+      Node child = pair(edit, shift + BITS, spread(k.hashCode()), k, v, hash, key, value);
+      BitmapNode node = with(edit, i, null);
+      node.array[i + 1] = child;
+      return node;
+    }
+
+    Node remove(Object edit, int shift, int hash, Object key, Result result) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) return this;
+
+      int i = 2 * index(bit);
+      Object k = array[i];
+      Object v = array[i + 1];
+
+      if (k == null) { //Child node
+        Node child = ((Node) v).remove(edit, shift + BITS, hash, key, result);
+
+        if (child == v) return this;
+        if (child == null) return without(edit, bit, i);
+
+        //Pulls a lone pair up so the trie stays as shallow as possible
+        if (child instanceof BitmapNode && ((BitmapNode) child).array.length == 2
+            && ((BitmapNode) child).array[0] != null) {
+          BitmapNode node = with(edit, i, ((BitmapNode) child).array[0]);
+          node.array[i + 1] = ((BitmapNode) child).array[1];
+          return node;
+        }
+
+        return with(edit, i + 1, child);
+      }
+
+      if (!k.equals(key)) return this;
+
+      result.removed = true;
+      result.oldValue = v;
+      return without(edit, bit, i);
+    }
+
+    void forEach(BiConsumer<Object, Object> action) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (array[i] == null) {
+          ((Node) array[i + 1]).forEach(action);
+        } else {
+          action.accept(array[i], array[i + 1]);
+        }
+      }
+    }
+
+    /**
+     * @return the position among present slots of the slot for the bit
+     */
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * @return this node, or a copy if it is not owned by the edit, with the
+     * array element at i set to the given object
+     */
+    private BitmapNode with(Object edit, int i, Object obj) {
+      BitmapNode node = editableBy(edit) ? this : new BitmapNode(edit, bitmap, array.clone());
+      node.array[i] = obj;
+      return node;
+    }
+
+    /**
+     * @return this node, or a copy, with the pair at i and its bit removed,
+     * or null if no pairs remain
+     */
+    private BitmapNode without(Object edit, int bit, int i) {
+      if (bitmap == bit) return null;
+
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, i);
+      System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+
+      if (editableBy(edit)) {
+        array = newArray;
+        bitmap ^= bit;
+        return this;
+      }
+
+      return new BitmapNode(edit, bitmap ^ bit, newArray);
+    }
+  }
+
+  /**
+   * Node holding every pair whose keys have exactly the same hash.
+   */
+  private static final class CollisionNode extends Node {
+    final int hash;
+    Object[] array;
+
+    CollisionNode(Object owner, int hash, Object[] array) {
+      super(owner);
+      this.hash = hash;
+      this.array = array;
+    }
+
+    Object find(int shift, int hash, Object key) {
+      int i = indexOf(key);
+      return i < 0 ? null : array[i + 1];
+    }
+
+    Node put(Object edit, int shift, int hash, Object key, Object value, Result result) {
+      if (hash != this.hash) { //Nests this node under a bitmap node that splits the hashes
+        BitmapNode node = new BitmapNode(edit, bit(this.hash, shift), new Object[] {null, this});
+        return node.put(edit, shift, hash, key, value, result);
+      }
+
+      int i = indexOf(key);
+
+      if (i >= 0) { //Key already exists
+        result.oldValue = array[i + 1];
+        if (array[i + 1] == value) return this;
+
+        CollisionNode node = editableBy(edit) ? this : new CollisionNode(edit, hash, array.clone());
+        node.array[i + 1] = value;
+        return node;
+      }
+
+      Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      result.added = true;
+
+      if (editableBy(edit)) {
+        array = newArray;
+        return this;
+      }
+
+      return new CollisionNode(edit, hash, newArray);
+    }
+
+    Node remove(Object edit, int shift, int hash, Object key, Result result) {
+      int i = indexOf(key);
+      if (i < 0) return this;
+
+      result.removed = true;
+      result.oldValue = array[i + 1];
+
+      //A lone survivor becomes a bitmap node so the parent can pull it up
+      if (array.length == 4) {
+        int j = i == 0 ? 2 : 0;
+        return new BitmapNode(edit, bit(this.hash, shift), new Object[] {array[j], array[j + 1]});
+      }
+
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, i);
+      System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+
+      if (editableBy(edit)) {
+        array = newArray;
+        return this;
+      }
+
+      return new CollisionNode(edit, hash, newArray);
+    }
+
+    void forEach(BiConsumer<Object, Object> action) {
+      for (int i = 0; i < array.length; i += 2) {
+        action.accept(array[i], array[i + 1]);
+      }
+    }
+
+    /**
+     * @return the array position of the key, or -1 if it is absent
+     */
+    private int indexOf(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (array[i].equals(key)) return i;
+      }
+
+      return -1;
+    }
+  }
+
+  /**
+   * Builds the smallest subtree holding two pairs with different keys.
+   *
+   * @return a collision node if the hashes are equal, otherwise a bitmap
+   * node, nested as deep as the hashes agree
+   */
+  private static Node pair(Object edit, int shift, int hash1, Object key1, Object value1, int hash2, Object key2,
+      Object value2) {
+    if (hash1 == hash2) return new CollisionNode(edit, hash1, new Object[] {key1, value1, key2, value2});
+
+    int bit1 = bit(hash1, shift);
+    int bit2 = bit(hash2, shift);
+
+    if (bit1 == bit2) {
+      Node child = pair(edit, shift + BITS, hash1, key1, value1, hash2, key2, value2);
+      return new BitmapNode(edit, bit1, new Object[] {null, child});
+    }
+
+    Object[] array = Integer.compareUnsigned(bit1, bit2) < 0
+        ? new Object[] {key1, value1, key2, value2}
+        : new Object[] {key2, value2, key1, value1};
+
+    return new BitmapNode(edit, bit1 | bit2, array);
+  }
+
+  /**
+   * Bit of the slot the hash falls in at the given level.
+   *
+   * @param hash the spread hash
+   * @param shift the number of hash bits consumed by the levels above
+   * @return a single set bit
+   */
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  /**
+   * Mixes a hash code so that keys with similar low bits still spread over
+   * the root.
+   *
+   * @param h the hash code to mix
+   * @return the mixed hash
+   */
+  private static int spread(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,29 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event emitted each time a hash map's backing table is
+ * resized. The event's duration covers the whole rehash, so resizes can be
+ * lined up against latency spikes in a recording.
+ */
+@Name("datastructures.HashMapResize")
+@Label("Hash Map Resize")
+@Category({"Data Structures", "Hash Map"})
+@Description("Backing table of a hash map was resized")
+public class ResizeEvent extends Event {
+  @Label("Map Class")
+  String mapClass;
+
+  @Label("Old Length")
+  int oldLength;
+
+  @Label("New Length")
+  int newLength;
+
+  @Label("Size")
+  @Description("Number of entries moved into the new table")
+  int size;
+}
@@ -0,0 +1,322 @@
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of HashMap with external chaining over a power-of-two
+ * table, hashing keys through a pluggable HashStrategy.
+ *
+ * The bucket is picked with {@code hash & (length - 1)} instead of a modulo,
+ * which saves an integer division per operation. Masking keeps only the low
+ * bits, so the strategy must mix well. By default each map draws its own
+ * random seed, so the bucket layout differs between maps and processes and
+ * keys chosen from outside cannot be aimed at one chain.
+ */
+public class SeededHashMap<K, V> implements HashMapInterface<K, V> {
+  private final HashStrategy strategy;
+  private MapEntry<K, V>[] table;
+  private int size;
+
+  /**
+   * Create a hash map with no entries and a randomly seeded strategy. The
+   * backing array has room for at least {@code INITIAL_CAPACITY} buckets.
+   */
+  public SeededHashMap() {
+    this(INITIAL_CAPACITY, HashStrategy.seeded());
+  }
+
+  /**
+   * Create a hash map with no entries and a randomly seeded strategy. The
+   * backing array has room for at least {@code initialCapacity} buckets.
+   *
+   * @param initialCapacity minimum capacity of the backing array
+   * @throws IllegalArgumentException if initialCapacity is non-positive
+   */
+  public SeededHashMap(int initialCapacity) {
+    this(initialCapacity, HashStrategy.seeded());
+  }
+
+  /**
+   * Create a hash map with no entries that hashes keys with the given
+   * strategy. The backing array has room for at least
+   * {@code initialCapacity} buckets.
+   *
+   * @param initialCapacity minimum capacity of the backing array
+   * @param strategy the strategy used to hash keys
+   * @throws IllegalArgumentException if initialCapacity is non-positive or
+   * strategy is null
+   */
+  public SeededHashMap(int initialCapacity, HashStrategy strategy) {
+    if (initialCapacity <= 0) throw new IllegalArgumentException("Cannot create hashmap with non-positive capacity.");
+    if (strategy == null) throw new IllegalArgumentException("Cannot create hashmap with null hash strategy.");
+
+    this.strategy = strategy;
+    table = (MapEntry<K, V>[]) new MapEntry[tableLengthFor(initialCapacity)];
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in.
+   *
+   * New entries are added to the front of their chain. The table is doubled
+   * BEFORE adding if the pending entry would exceed MAX_LOAD_FACTOR.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    //If next element will exceed load factor -> regrow table
+    if (table.length * MAX_LOAD_FACTOR < size + 1) {
+      resizeBackingTable(table.length << 1);
+    }
+
+    int index = indexFor(key, table.length);
+
+    for (MapEntry<K, V> curr = table[index]; curr != null; curr = curr.getNext()) {
+      if (curr.getKey().equals(key)) { //Key already exists
+        V oldVal = curr.getValue();
+        curr.setValue(value);
+        return oldVal;
+      }
+    }
+
+    table[index] = new MapEntry<>(key, value, table[index]); //Add to front
+    size++;
+    return null;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    int index = indexFor(key, table.length);
+    MapEntry<K, V> prev = null;
+
+    for (MapEntry<K, V> curr = table[index]; curr != null; curr = curr.getNext()) {
+      if (curr.getKey().equals(key)) {
+        if (prev == null) { //Front of chain
+          table[index] = curr.getNext();
+        } else {
+          prev.setNext(curr.getNext());
+        }
+
+        curr.setNext(null);
+        size--;
+        return curr.getValue();
+      }
+
+      prev = curr;
+    }
+
+    throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    MapEntry<K, V> entry = find(key);
+    if (entry == null) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return entry.getValue();
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return find(key) != null;
+  }
+
+  /**
+   * Clears the table and resets it to the default length. The strategy, and
+   * so the seed, is kept.
+   */
+  public void clear() {
+    table = (MapEntry<K, V>[]) new MapEntry[tableLengthFor(INITIAL_CAPACITY)];
+    size = 0;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < table.length; i++) {
+      for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+        set.add(curr.getKey());
+      }
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in order of
+   * increasing index and from front to back of each chain.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < table.length; i++) {
+      for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+        list.add(curr.getValue());
+      }
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    for (int i = 0; i < table.length; i++) {
+      for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+        action.accept(curr.getKey(), curr.getValue());
+      }
+    }
+  }
+
+  /**
+   * Resize the backing table to the smallest power of two that is at least
+   * {@code length}.
+   *
+   * Entries are relinked rather than copied, so no entry is allocated.
+   *
+   * @param length minimum new length of the backing table
+   * @throws IllegalArgumentException if length is non-positive or less than
+   * the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length < size) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    MapEntry<K, V>[] newTable = (MapEntry<K, V>[]) new MapEntry[tableLengthFor(length)];
+
+    for (int i = 0; i < table.length; i++) {
+      MapEntry<K, V> curr = table[i];
+
+      while (curr != null) {
+        MapEntry<K, V> next = curr.getNext();
+        int index = indexFor(curr.getKey(), newTable.length);
+        curr.setNext(newTable[index]);
+        newTable[index] = curr;
+        curr = next;
+      }
+    }
+
+    table = newTable;
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * @return the backing array of the data structure, not a copy. INCLUDE
+   * EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    return table;
+  }
+
+  /**
+   * Gets the strategy keys are hashed with.
+   *
+   * @return the hash strategy
+   */
+  public HashStrategy getStrategy() {
+    return strategy;
+  }
+
+  /**
+   * Finds the entry holding the given key.
+   *
+   * @param key the key to search for
+   * @return the entry, or null if the key is not in the map
+   */
+  private MapEntry<K, V> find(K key) {
+    for (MapEntry<K, V> curr = table[indexFor(key, table.length)]; curr != null; curr = curr.getNext()) {
+      if (curr.getKey().equals(key)) return curr;
+    }
+
+    return null;
+  }
+
+  /**
+   * Computes the bucket of a key for a power-of-two table.
+   *
+   * @param key the key to hash
+   * @param length the power-of-two length of the table
+   * @return the bucket of the key
+   */
+  private int indexFor(Object key, int length) {
+    return strategy.hash(key) & (length - 1);
+  }
+
+  /**
+   * Smallest power of two that is not less than the given capacity.
+   *
+   * @param capacity the minimum number of buckets
+   * @return the table length
+   */
+  private static int tableLengthFor(int capacity) {
+    int length = 1;
+
+    while (length < capacity && length < (1 << 30)) {
+      length <<= 1;
+    }
+
+    return length;
+  }
+}
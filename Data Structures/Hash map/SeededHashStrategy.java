@@ -0,0 +1,126 @@
+import java.security.SecureRandom;
+
+/**
+ * Hash strategy keyed with a random 128-bit seed per instance.
+ *
+ * Strings are hashed from their characters with SipHash-1-3, a keyed hash
+ * designed so that an attacker who cannot see the seed cannot produce
+ * colliding keys. String is where flooding attacks come from in practice,
+ * since colliding hash codes such as "Aa" and "BB" are easy to build. Longs
+ * are mixed from their full 64-bit value. Other keys only expose their
+ * hashCode, so it is mixed with the seed through the MurmurHash3 finalizer,
+ * which spreads it well but cannot separate keys that already share a hash
+ * code.
+ */
+public class SeededHashStrategy implements HashStrategy {
+  private static final SecureRandom SEEDS = new SecureRandom();
+
+  private final long k0;
+  private final long k1;
+
+  /**
+   * Creates a strategy with a random seed.
+   */
+  public SeededHashStrategy() {
+    this(SEEDS.nextLong(), SEEDS.nextLong());
+  }
+
+  /**
+   * Creates a strategy with the given seed, for reproducible hashing.
+   *
+   * @param k0 the first half of the seed
+   * @param k1 the second half of the seed
+   */
+  public SeededHashStrategy(long k0, long k1) {
+    this.k0 = k0;
+    this.k1 = k1;
+  }
+
+  /**
+   * Returns the seeded hash of the key.
+   *
+   * @param key the key to hash, never null
+   * @return the hash of the key
+   */
+  public int hash(Object key) {
+    if (key instanceof String) return sipHash((String) key);
+
+    //Longs are mixed from their full value, since their hashCode folds halves together
+    long bits = key instanceof Long ? (Long) key : key.hashCode();
+
+    //Finalizer from MurmurHash3
+    long h = (bits ^ k0) * 0x9E3779B97F4A7C15L + k1;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * SipHash-1-3 of the string's UTF-16 characters, four to a word.
+   *
+   * @param s the string to hash
+   * @return the hash folded to 32 bits
+   */
+  private int sipHash(String s) {
+    long v0 = k0 ^ 0x736F6D6570736575L;
+    long v1 = k1 ^ 0x646F72616E646F6DL;
+    long v2 = k0 ^ 0x6C7967656E657261L;
+    long v3 = k1 ^ 0x7465646279746573L;
+    int length = s.length();
+    int i = 0;
+
+    while (true) {
+      boolean last = length - i < 4;
+      long m;
+
+      if (!last) {
+        m = s.charAt(i) | (long) s.charAt(i + 1) << 16 | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+        i += 4;
+      } else { //Remaining 0 to 3 characters, with the byte length in the top byte
+        m = (long) (2 * length) << 56;
+
+        for (int j = 0; i + j < length; j++) {
+          m |= (long) s.charAt(i + j) << (16 * j);
+        }
+      }
+
+      //One compression round
+      v3 ^= m;
+      v0 += v1;
+      v1 = Long.rotateLeft(v1, 13) ^ v0;
+      v0 = Long.rotateLeft(v0, 32);
+      v2 += v3;
+      v3 = Long.rotateLeft(v3, 16) ^ v2;
+      v0 += v3;
+      v3 = Long.rotateLeft(v3, 21) ^ v0;
+      v2 += v1;
+      v1 = Long.rotateLeft(v1, 17) ^ v2;
+      v2 = Long.rotateLeft(v2, 32);
+      v0 ^= m;
+
+      if (last) break;
+    }
+
+    v2 ^= 0xFF;
+
+    //Three finalization rounds
+    for (int round = 0; round < 3; round++) {
+      v0 += v1;
+      v1 = Long.rotateLeft(v1, 13) ^ v0;
+      v0 = Long.rotateLeft(v0, 32);
+      v2 += v3;
+      v3 = Long.rotateLeft(v3, 16) ^ v2;
+      v0 += v3;
+      v3 = Long.rotateLeft(v3, 21) ^ v0;
+      v2 += v1;
+      v1 = Long.rotateLeft(v1, 17) ^ v2;
+      v2 = Long.rotateLeft(v2, 32);
+    }
+
+    long h = v0 ^ v1 ^ v2 ^ v3;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -0,0 +1,91 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys or values to and from bytes for maps that keep their
+ * entries outside of the Java heap.
+ *
+ * Equal objects must always serialize to the same bytes, since off-heap maps
+ * compare keys by their serialized form.
+ */
+public interface Serializer<T> {
+    /**
+     * Serializer for {@code Integer}, written as 4 big-endian bytes.
+     */
+    Serializer<Integer> INTEGER = new Serializer<Integer>() {
+        public int sizeOf(Integer data) {
+            return Integer.BYTES;
+        }
+
+        public void write(Integer data, ByteBuffer buffer) {
+            buffer.putInt(data);
+        }
+
+        public Integer read(ByteBuffer buffer, int length) {
+            return buffer.getInt();
+        }
+    };
+
+    /**
+     * Serializer for {@code Long}, written as 8 big-endian bytes.
+     */
+    Serializer<Long> LONG = new Serializer<Long>() {
+        public int sizeOf(Long data) {
+            return Long.BYTES;
+        }
+
+        public void write(Long data, ByteBuffer buffer) {
+            buffer.putLong(data);
+        }
+
+        public Long read(ByteBuffer buffer, int length) {
+            return buffer.getLong();
+        }
+    };
+
+    /**
+     * Serializer for {@code String}, written as UTF-8.
+     */
+    Serializer<String> STRING = new Serializer<String>() {
+        public int sizeOf(String data) {
+            return data.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        public void write(String data, ByteBuffer buffer) {
+            buffer.put(data.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public String read(ByteBuffer buffer, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Returns the number of bytes the data serializes to.
+     *
+     * @param data the data to measure
+     * @return the serialized length of data
+     */
+    int sizeOf(T data);
+
+    /**
+     * Writes the data at the buffer's position, advancing it by exactly
+     * {@code sizeOf(data)} bytes.
+     *
+     * @param data the data to write
+     * @param buffer the buffer to write to
+     */
+    void write(T data, ByteBuffer buffer);
+
+    /**
+     * Reads data from the buffer's position, advancing it by {@code length}
+     * bytes.
+     *
+     * @param buffer the buffer to read from
+     * @param length the number of bytes the data was serialized to
+     * @return the data that was read
+     */
+    T read(ByteBuffer buffer, int length);
+}
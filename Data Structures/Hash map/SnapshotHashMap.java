@@ -0,0 +1,380 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Copy-on-write HashMap for tables that are read far more often than they
+ * are written.
+ *
+ * The entries live in an immutable snapshot that is replaced, never changed.
+ * Every write builds a new snapshot off to the side and publishes it with a
+ * single volatile write, so readers never lock and never allocate; they just
+ * read whichever snapshot is current. Writers are serialized with each
+ * other. Because each write copies the table, batches of changes should go
+ * through {@link #update(Consumer)}, which rebuilds the snapshot only once.
+ *
+ * A snapshot stores its entries sorted by bucket in flat arrays, with an
+ * offset array marking where each bucket starts, so there are no empty slots
+ * and a bucket's entries sit next to each other in memory.
+ */
+public class SnapshotHashMap<K, V> implements HashMapInterface<K, V> {
+  private volatile Snapshot<K, V> current;
+
+  /**
+   * Create a hash map with no entries. Snapshots have at least
+   * {@code INITIAL_CAPACITY} buckets.
+   */
+  public SnapshotHashMap() {
+    current = Snapshot.build((K[]) new Object[0], (V[]) new Object[0], 0, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a hash map holding the entries of the given map.
+   *
+   * @param map the map to copy
+   * @throws IllegalArgumentException if map is null
+   */
+  public SnapshotHashMap(HashMapInterface<K, V> map) {
+    this();
+    if (map == null) throw new IllegalArgumentException("Cannot copy null map.");
+
+    update(stage -> {
+      for (K key : map.keySet()) {
+        stage.put(key, map.get(key));
+      }
+    });
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap, publishing a new snapshot.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public synchronized V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    Snapshot<K, V> snap = current;
+    int index = snap.find(key);
+
+    if (index >= 0) { //Key already exists, so only the values change
+      V[] values = snap.values.clone();
+      V oldVal = values[index];
+      values[index] = value;
+      current = new Snapshot<>(snap.offsets, snap.hashes, snap.keys, values);
+      return oldVal;
+    }
+
+    K[] keys = Arrays.copyOf(snap.keys, snap.keys.length + 1);
+    V[] values = Arrays.copyOf(snap.values, snap.values.length + 1);
+    keys[keys.length - 1] = key;
+    values[values.length - 1] = value;
+    current = Snapshot.build(keys, values, keys.length, snap.buckets());
+    return null;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap, publishing a new
+   * snapshot.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public synchronized V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    Snapshot<K, V> snap = current;
+    int index = snap.find(key);
+    if (index < 0) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    V val = snap.values[index];
+    K[] keys = snap.keys.clone();
+    V[] values = snap.values.clone();
+
+    //Moves the last entry into the hole; build re-sorts them anyway
+    keys[index] = keys[keys.length - 1];
+    values[index] = values[values.length - 1];
+    current = Snapshot.build(keys, values, keys.length - 1, snap.buckets());
+
+    return val;
+  }
+
+  /**
+   * Gets the value associated with the given key. Never blocks.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    Snapshot<K, V> snap = current;
+    int index = snap.find(key);
+    if (index < 0) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return snap.values[index];
+  }
+
+  /**
+   * Returns whether or not the key is in the map. Never blocks.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return current.find(key) >= 0;
+  }
+
+  /**
+   * Applies a batch of changes and publishes them as one snapshot.
+   *
+   * The edits run against a private mutable copy of the current entries, so
+   * readers see either none or all of them.
+   *
+   * @param edits changes to apply to the copy
+   * @throws IllegalArgumentException if edits is null
+   */
+  public synchronized void update(Consumer<HashMapInterface<K, V>> edits) {
+    if (edits == null) throw new IllegalArgumentException("Cannot apply null edits to hashmap.");
+
+    Snapshot<K, V> snap = current;
+    HashMap<K, V> stage = new HashMap<>(2 * snap.keys.length + 1);
+
+    for (int i = 0; i < snap.keys.length; i++) {
+      stage.put(snap.keys[i], snap.values[i]);
+    }
+
+    edits.accept(stage);
+
+    K[] keys = (K[]) new Object[stage.size()];
+    V[] values = (V[]) new Object[stage.size()];
+    int[] count = new int[1];
+
+    stage.forEach((key, value) -> {
+      keys[count[0]] = key;
+      values[count[0]++] = value;
+    });
+
+    current = Snapshot.build(keys, values, keys.length, snap.buckets());
+  }
+
+  /**
+   * Publishes an empty snapshot with the default number of buckets.
+   */
+  public synchronized void clear() {
+    current = Snapshot.build((K[]) new Object[0], (V[]) new Object[0], 0, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return current.keys.length;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Snapshot<K, V> snap = current;
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < snap.keys.length; i++) {
+      set.add(snap.keys[i]);
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in order of
+   * increasing bucket.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    Snapshot<K, V> snap = current;
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < snap.values.length; i++) {
+      list.add(snap.values[i]);
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}. Only the snapshot current at the start is walked.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+    Snapshot<K, V> snap = current;
+
+    for (int i = 0; i < snap.keys.length; i++) {
+      action.accept(snap.keys[i], snap.values[i]);
+    }
+  }
+
+  /**
+   * Publishes a snapshot with at least {@code length} buckets.
+   *
+   * @param length minimum number of buckets
+   * @throws IllegalArgumentException if length is non-positive or less than
+   * the number of items in the hash map.
+   */
+  public synchronized void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length < size()) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    Snapshot<K, V> snap = current;
+    current = Snapshot.build(snap.keys.clone(), snap.values.clone(), snap.keys.length, length);
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * Entries are not stored as MapEntry objects, so this builds a new array
+   * with one chain per bucket of the current snapshot.
+   *
+   * @return an array mirroring the buckets. INCLUDE EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    Snapshot<K, V> snap = current;
+    MapEntry<K, V>[] table = (MapEntry<K, V>[]) new MapEntry[snap.buckets()];
+
+    for (int b = 0; b < table.length; b++) {
+      for (int i = snap.offsets[b + 1] - 1; i >= snap.offsets[b]; i--) {
+        table[b] = new MapEntry<>(snap.keys[i], snap.values[i], table[b]);
+      }
+    }
+
+    return table;
+  }
+
+  /**
+   * Immutable table of entries sorted by bucket.
+   *
+   * Bucket b holds the entries from {@code offsets[b]} up to, but not
+   * including, {@code offsets[b + 1]}. Each entry's spread hash is kept so
+   * most mismatches are rejected without calling equals.
+   */
+  private static final class Snapshot<K, V> {
+    private final int[] offsets;
+    private final int[] hashes;
+    private final K[] keys;
+    private final V[] values;
+    private final int mask;
+
+    Snapshot(int[] offsets, int[] hashes, K[] keys, V[] values) {
+      this.offsets = offsets;
+      this.hashes = hashes;
+      this.keys = keys;
+      this.values = values;
+      this.mask = offsets.length - 2;
+    }
+
+    /**
+     * Sorts the first {@code count} entries by bucket into a new snapshot.
+     *
+     * @param keys the keys, with no duplicates
+     * @param values the values, matched by index
+     * @param count the number of entries to use
+     * @param minBuckets minimum number of buckets
+     * @return the snapshot
+     */
+    static <K, V> Snapshot<K, V> build(K[] keys, V[] values, int count, int minBuckets) {
+      int buckets = 1;
+
+      //Roughly one entry per bucket keeps buckets short without wasting space
+      while ((buckets < count || buckets < minBuckets) && buckets < (1 << 30)) {
+        buckets <<= 1;
+      }
+
+      int[] offsets = new int[buckets + 1];
+      int[] hashes = new int[count];
+      int[] spread = new int[count];
+
+      for (int i = 0; i < count; i++) {
+        spread[i] = spread(keys[i].hashCode());
+        offsets[(spread[i] & (buckets - 1)) + 1]++;
+      }
+
+      for (int b = 0; b < buckets; b++) {
+        offsets[b + 1] += offsets[b];
+      }
+
+      K[] sortedKeys = (K[]) new Object[count];
+      V[] sortedValues = (V[]) new Object[count];
+      int[] next = Arrays.copyOf(offsets, buckets);
+
+      //Counting sort by bucket
+      for (int i = 0; i < count; i++) {
+        int pos = next[spread[i] & (buckets - 1)]++;
+        hashes[pos] = spread[i];
+        sortedKeys[pos] = keys[i];
+        sortedValues[pos] = values[i];
+      }
+
+      return new Snapshot<>(offsets, hashes, sortedKeys, sortedValues);
+    }
+
+    /**
+     * Finds the position of the given key.
+     *
+     * @param key the key to search for
+     * @return the position of the key, or -1 if it is not in the snapshot
+     */
+    int find(Object key) {
+      int hash = spread(key.hashCode());
+      int b = hash & mask;
+
+      for (int i = offsets[b]; i < offsets[b + 1]; i++) {
+        if (hashes[i] == hash && keys[i].equals(key)) return i;
+      }
+
+      return -1;
+    }
+
+    /**
+     * @return the number of buckets
+     */
+    int buckets() {
+      return offsets.length - 1;
+    }
+
+    /**
+     * Mixes the upper bits of a hash code into the lower ones used for the
+     * bucket.
+     */
+    private static int spread(int h) {
+      return h ^ (h >>> 16);
+    }
+  }
+}
@@ -0,0 +1,480 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of HashMap in the style of a Swiss table.
+ *
+ * Every slot has one control byte alongside its key and value. A full slot's
+ * control byte holds the low 7 bits of the key's hash, while the high bit
+ * marks the slot as empty or deleted. Slots are grouped eight at a time, and
+ * a whole group's control bytes are read as one long and compared against
+ * the hash in a handful of word-wide operations, so {@code equals} is only
+ * called on slots whose 7 hash bits already match.
+ *
+ * The table length is always a power of two and a multiple of the group
+ * width. Groups are probed quadratically, and removed slots are marked as
+ * deleted unless their group still has an empty slot.
+ */
+public class SwissHashMap<K, V> implements HashMapInterface<K, V> {
+  private static final int GROUP_WIDTH = 8;
+  private static final byte EMPTY = (byte) 0x80;
+  private static final byte DELETED = (byte) 0xFE;
+  private static final long LSBS = 0x0101010101010101L;
+  private static final long MSBS = 0x8080808080808080L;
+  private static final VarHandle GROUP = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private byte[] ctrl;
+  private K[] keys;
+  private V[] values;
+  private int groupMask;
+  private int size;
+  private int deleted;
+
+  /**
+   * Create a hash map with no entries. The backing arrays have room for at
+   * least {@code INITIAL_CAPACITY} slots.
+   */
+  public SwissHashMap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a hash map with no entries. The backing arrays have room for at
+   * least {@code initialCapacity} slots.
+   *
+   * @param initialCapacity minimum capacity of the backing arrays
+   * @throws IllegalArgumentException if initialCapacity is non-positive
+   */
+  public SwissHashMap(int initialCapacity) {
+    if (initialCapacity <= 0) throw new IllegalArgumentException("Cannot create hashmap with non-positive capacity.");
+
+    allocate(tableLengthFor(initialCapacity));
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in.
+   *
+   * The table is doubled BEFORE adding if the pending entry and any deleted
+   * slots would exceed MAX_LOAD_FACTOR. If most of those slots are deleted
+   * ones, the table is rebuilt at the same length instead.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    int hash = spread(key.hashCode());
+    int index = find(key, hash);
+
+    if (index >= 0) { //Key already exists
+      V oldVal = values[index];
+      values[index] = value;
+      return oldVal;
+    }
+
+    //If next element will exceed load factor -> purge deleted slots or regrow
+    if (ctrl.length * MAX_LOAD_FACTOR < size + deleted + 1) {
+      rehash(size + 1 <= ctrl.length * MAX_LOAD_FACTOR / 2 ? ctrl.length : ctrl.length << 1);
+    }
+
+    index = findInsertSlot(hash);
+    if (ctrl[index] == DELETED) deleted--;
+
+    ctrl[index] = h2(hash);
+    keys[index] = key;
+    values[index] = value;
+    size++;
+    return null;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    int index = find(key, spread(key.hashCode()));
+    if (index < 0) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+    V val = values[index];
+
+    //A probe only passes a group once the group is full, so a group that
+    //still has an empty slot never needs a deleted marker
+    if (matchEmpty(group(index & -GROUP_WIDTH)) != 0) {
+      ctrl[index] = EMPTY;
+    } else {
+      ctrl[index] = DELETED;
+      deleted++;
+    }
+
+    keys[index] = null;
+    values[index] = null;
+    size--;
+
+    return val;
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    int index = find(key, spread(key.hashCode()));
+    if (index < 0) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return values[index];
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return find(key, spread(key.hashCode())) >= 0;
+  }
+
+  /**
+   * Clears the table and resets it to the default length.
+   */
+  public void clear() {
+    allocate(tableLengthFor(INITIAL_CAPACITY));
+    size = 0;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < ctrl.length; i++) {
+      if (ctrl[i] >= 0) set.add(keys[i]);
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map, in order of
+   * increasing slot index.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < ctrl.length; i++) {
+      if (ctrl[i] >= 0) list.add(values[i]);
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    for (int i = 0; i < ctrl.length; i++) {
+      if (ctrl[i] >= 0) action.accept(keys[i], values[i]);
+    }
+  }
+
+  /**
+   * Resize the backing arrays to the smallest power of two, and multiple of
+   * the group width, that is at least {@code length}.
+   *
+   * After resizing, the table's load factor is permitted to exceed
+   * MAX_LOAD_FACTOR, but there is always at least one empty slot so probing
+   * terminates.
+   *
+   * @param length minimum new length of the backing arrays
+   * @throws IllegalArgumentException if length is non-positive or not greater
+   * than the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length <= size) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    rehash(tableLengthFor(length));
+  }
+
+  /**
+   * Returns a snapshot of the probe sequences. Each group is a bucket
+   * holding the entries whose sequence starts there, and each entry's probe
+   * length is the number of groups read to reach it.
+   *
+   * @return the map's stats
+   */
+  public HashMapStats stats() {
+    int[] homeSizes = new int[groupMask + 1];
+    int[] probeLengths = new int[ctrl.length];
+
+    for (int i = 0; i < ctrl.length; i++) {
+      if (ctrl[i] >= 0) {
+        int group = h1(spread(keys[i].hashCode())) & groupMask;
+        homeSizes[group]++;
+        probeLengths[i] = 1;
+
+        //Follows the quadratic sequence to the entry's group
+        for (int step = 1; group != i / GROUP_WIDTH; step++) {
+          group = (group + step) & groupMask;
+          probeLengths[i]++;
+        }
+      }
+    }
+
+    return HashMapStats.ofProbeLengths(homeSizes, probeLengths, size);
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * Entries are not stored as MapEntry objects, so this builds a new array
+   * of the same length as the backing arrays with an entry in each
+   * occupied slot.
+   *
+   * @return an array mirroring the backing arrays. INCLUDE EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    MapEntry<K, V>[] table = (MapEntry<K, V>[]) new MapEntry[ctrl.length];
+
+    for (int i = 0; i < ctrl.length; i++) {
+      if (ctrl[i] >= 0) table[i] = new MapEntry<>(keys[i], values[i]);
+    }
+
+    return table;
+  }
+
+  /**
+   * Finds the slot holding the given key.
+   *
+   * @param key the key to search for
+   * @param hash the spread hash of the key
+   * @return the slot index of the key, or -1 if it is not in the map
+   */
+  private int find(K key, int hash) {
+    long pattern = (h2(hash) & 0xFFL) * LSBS;
+    int group = h1(hash) & groupMask;
+
+    for (int step = 1; ; step++) {
+      int base = group * GROUP_WIDTH;
+      long word = group(base);
+
+      //Only slots whose 7 hash bits match are compared with equals
+      for (long match = matchByte(word, pattern); match != 0; match &= match - 1) {
+        int index = base + (Long.numberOfTrailingZeros(match) >>> 3);
+
+        if (ctrl[index] >= 0 && keys[index].equals(key)) return index;
+      }
+
+      //An empty slot ends every probe sequence that passes through the group
+      if (matchEmpty(word) != 0) return -1;
+
+      group = (group + step) & groupMask;
+    }
+  }
+
+  /**
+   * Finds the first empty or deleted slot along the hash's probe sequence.
+   *
+   * @param hash the spread hash of the key being added
+   * @return the slot index to add at
+   */
+  private int findInsertSlot(int hash) {
+    int group = h1(hash) & groupMask;
+
+    for (int step = 1; ; step++) {
+      int base = group * GROUP_WIDTH;
+      long match = matchEmptyOrDeleted(group(base));
+
+      if (match != 0) return base + (Long.numberOfTrailingZeros(match) >>> 3);
+
+      group = (group + step) & groupMask;
+    }
+  }
+
+  /**
+   * Moves every entry into new backing arrays of the given length, dropping
+   * any deleted slots.
+   *
+   * @param length the new power-of-two length
+   */
+  private void rehash(int length) {
+    byte[] oldCtrl = ctrl;
+    K[] oldKeys = keys;
+    V[] oldValues = values;
+    allocate(length);
+
+    //Reinserts every entry; keys are known to be unique so no equals is needed
+    for (int i = 0; i < oldCtrl.length; i++) {
+      if (oldCtrl[i] >= 0) {
+        int hash = spread(oldKeys[i].hashCode());
+        int index = findInsertSlot(hash);
+
+        ctrl[index] = h2(hash);
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Replaces the backing arrays with empty ones of the given length.
+   *
+   * @param length the new power-of-two length
+   */
+  private void allocate(int length) {
+    ctrl = new byte[length];
+    keys = (K[]) new Object[length];
+    values = (V[]) new Object[length];
+    groupMask = length / GROUP_WIDTH - 1;
+    deleted = 0;
+
+    for (int i = 0; i < length; i++) {
+      ctrl[i] = EMPTY;
+    }
+  }
+
+  /**
+   * Reads the control bytes of the group starting at the given slot.
+   *
+   * @param base the first slot of the group
+   * @return the group's control bytes, slot {@code base} in the lowest byte
+   */
+  private long group(int base) {
+    return (long) GROUP.get(ctrl, base);
+  }
+
+  /**
+   * Marks every byte of the word equal to the pattern's bytes.
+   *
+   * May also mark a byte directly above a true match, so candidates still
+   * have to be checked.
+   *
+   * @param word eight control bytes
+   * @param pattern one byte repeated eight times
+   * @return the high bit of each matching byte
+   */
+  private static long matchByte(long word, long pattern) {
+    long x = word ^ pattern;
+    return (x - LSBS) & ~x & MSBS;
+  }
+
+  /**
+   * Marks every empty control byte of the word.
+   *
+   * @param word eight control bytes
+   * @return the high bit of each empty byte
+   */
+  private static long matchEmpty(long word) {
+    //Only EMPTY has its high bit set and bit 1 clear
+    return word & ~(word << 6) & MSBS;
+  }
+
+  /**
+   * Marks every empty or deleted control byte of the word.
+   *
+   * @param word eight control bytes
+   * @return the high bit of each empty or deleted byte
+   */
+  private static long matchEmptyOrDeleted(long word) {
+    return word & MSBS;
+  }
+
+  /**
+   * Mixes a hash code so that both the group index and the control byte
+   * depend on every bit of it.
+   *
+   * @param h the hash code to mix
+   * @return the mixed hash
+   */
+  private static int spread(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Selects the key's first group from the upper bits of its hash.
+   *
+   * @param hash the spread hash
+   * @return the unmasked group index
+   */
+  private static int h1(int hash) {
+    return hash >>> 7;
+  }
+
+  /**
+   * Control byte of a full slot holding a key with the given hash.
+   *
+   * @param hash the spread hash
+   * @return the low 7 bits of the hash
+   */
+  private static byte h2(int hash) {
+    return (byte) (hash & 0x7F);
+  }
+
+  /**
+   * Smallest power-of-two length, at least one group wide, that is not less
+   * than the given capacity.
+   *
+   * @param capacity the minimum number of slots
+   * @return the table length
+   */
+  private static int tableLengthFor(int capacity) {
+    int length = GROUP_WIDTH;
+
+    while (length < capacity && length < (1 << 30)) {
+      length <<= 1;
+    }
+
+    return length;
+  }
+}
@@ -0,0 +1,634 @@
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of HashMap using external chaining, where long chains are
+ * converted into AVL trees.
+ *
+ * Once a chain grows past {@code TREEIFY_THRESHOLD} entries and all of its
+ * keys are mutually {@code Comparable}, the bucket is rebuilt as an AVL tree
+ * ordered by hash code and then by {@code compareTo}. Lookups in that bucket
+ * are then O(log n) even when many keys share a bucket. A tree that shrinks
+ * to {@code UNTREEIFY_THRESHOLD} entries is turned back into a chain.
+ *
+ * Keys are expected to have a {@code compareTo} that is consistent with
+ * {@code equals}.
+ */
+public class TreeifiedHashMap<K, V> implements HashMapInterface<K, V> {
+  /**
+   * Chain length above which a bucket is converted into a tree.
+   */
+  public static final int TREEIFY_THRESHOLD = 8;
+
+  /**
+   * Tree size at or below which a bucket is converted back into a chain.
+   */
+  public static final int UNTREEIFY_THRESHOLD = 6;
+
+  /**
+   * Smallest table length at which buckets are treeified. Smaller tables
+   * are expected to regrow soon, which splits long chains anyway.
+   */
+  public static final int MIN_TREEIFY_CAPACITY = 64;
+
+  private MapEntry<K, V>[] table;
+  private TreeBin<K, V>[] trees; //trees[i] is non-null when bucket i is a tree
+  private int size;
+
+  /**
+   * Create a hash map with no entries. The backing array has an initial
+   * capacity of {@code INITIAL_CAPACITY}.
+   */
+  public TreeifiedHashMap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Create a hash map with no entries. The backing array has an initial
+   * capacity of {@code initialCapacity}.
+   *
+   * @param initialCapacity initial capacity of the backing array
+   */
+  public TreeifiedHashMap(int initialCapacity) {
+    table = (MapEntry<K, V>[]) new MapEntry[initialCapacity];
+    trees = (TreeBin<K, V>[]) new TreeBin[initialCapacity];
+    size = 0;
+  }
+
+  /**
+   * Adds the given key-value pair to the HashMap.
+   * If an entry in the HashMap already has this key, replace the entry's
+   * value with the new one passed in.
+   *
+   * New entries are added to the front of a chain, or into the bucket's
+   * tree if it has been treeified. The table is regrown to
+   * 2 * old length + 1 BEFORE adding if the pending entry would exceed
+   * MAX_LOAD_FACTOR.
+   *
+   * @param key key to add into the HashMap
+   * @param value value to add into the HashMap
+   * @throws IllegalArgumentException if key or value is null
+   * @return null if the key was not already in the map.  If it was in the
+   * map, return the old value associated with it
+   */
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Cannot add data with null key to hashmap.");
+    if (value == null) throw new IllegalArgumentException("Cannot add data with null value to hashmap.");
+
+    //If next element will exceed load factor -> regrow table
+    if (table.length * MAX_LOAD_FACTOR < size + 1) {
+      resizeBackingTable(2*table.length + 1);
+    }
+
+    int index = indexFor(key, table.length);
+
+    if (trees[index] != null) {
+      if (trees[index].accepts(key)) {
+        return trees[index].put(key, value, this);
+      }
+
+      untreeify(index); //Key can't be ordered against the tree -> back to a chain
+    }
+
+    int chainLength = 0;
+
+    //Checks for existing key
+    for (MapEntry<K, V> curr = table[index]; curr != null; curr = curr.getNext()) {
+      if (curr.getKey().equals(key)) { //Key already exists
+        V oldVal = curr.getValue();
+        curr.setValue(value);
+        return oldVal;
+      }
+
+      chainLength++;
+    }
+
+    table[index] = new MapEntry<>(key, value, table[index]); //Add to front
+    size++;
+
+    if (chainLength >= TREEIFY_THRESHOLD) treeify(index);
+
+    return null;
+  }
+
+  /**
+   * Removes the entry with a matching key from the HashMap.
+   *
+   * @param key the key to remove
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key does not exist
+   * @return the value previously associated with the key
+   */
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot remove data with null key from hashmap.");
+
+    int index = indexFor(key, table.length);
+
+    if (trees[index] != null) {
+      TreeNode<K, V> removed = trees[index].accepts(key) ? trees[index].remove(key) : null;
+      if (removed == null) throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+
+      size--;
+      if (trees[index].count <= UNTREEIFY_THRESHOLD) untreeify(index);
+
+      return removed.value;
+    }
+
+    MapEntry<K, V> prev = null;
+
+    for (MapEntry<K, V> curr = table[index]; curr != null; curr = curr.getNext()) {
+      if (curr.getKey().equals(key)) { //Match
+        if (prev == null) {
+          table[index] = curr.getNext(); //Update front
+        } else {
+          prev.setNext(curr.getNext()); //Update prev's next
+        }
+
+        size--;
+        return curr.getValue();
+      }
+
+      prev = curr;
+    }
+
+    throw new NoSuchElementException("Cannot remove data that doesn't exist in hashmap.");
+  }
+
+  /**
+   * Gets the value associated with the given key.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @throws java.util.NoSuchElementException if the key is not in the map
+   * @return the value associated with the given key
+   */
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot retrieve data with null key from hashmap.");
+
+    V val = find(key);
+    if (val == null) throw new NoSuchElementException("Cannot retrieve data that doesn't exist in hashmap.");
+
+    return val;
+  }
+
+  /**
+   * Returns whether or not the key is in the map.
+   *
+   * @param key the key to search for
+   * @throws IllegalArgumentException if key is null
+   * @return whether or not the key is in the map
+   */
+  public boolean containsKey(K key) {
+    if (key == null) throw new IllegalArgumentException("Cannot determine if data with null key is in hashmap.");
+
+    return find(key) != null;
+  }
+
+  /**
+   * Clears the table and resets it to the default length.
+   */
+  public void clear() {
+    table = (MapEntry<K, V>[]) new MapEntry[INITIAL_CAPACITY];
+    trees = (TreeBin<K, V>[]) new TreeBin[INITIAL_CAPACITY];
+    size = 0;
+  }
+
+  /**
+   * Returns the number of elements in the map.
+   *
+   * @return number of elements in the HashMap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a Set view of the keys contained in this map.
+   * Use {@code java.util.HashSet}.
+   *
+   * @return set of keys in this map
+   */
+  public Set<K> keySet() {
+    Set<K> set = new HashSet<K>();
+
+    for (int i = 0; i < table.length; i++) {
+      if (trees[i] != null) {
+        for (TreeNode<K, V> node : trees[i].inorder()) {
+          set.add(node.key);
+        }
+      } else {
+        for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+          set.add(curr.getKey());
+        }
+      }
+    }
+
+    return set;
+  }
+
+  /**
+   * Returns a List view of the values contained in this map. Tree buckets
+   * are traversed in order.
+   *
+   * @return list of values in this map
+   */
+  public List<V> values() {
+    List<V> list = new LinkedList<V>();
+
+    for (int i = 0; i < table.length; i++) {
+      if (trees[i] != null) {
+        for (TreeNode<K, V> node : trees[i].inorder()) {
+          list.add(node.value);
+        }
+      } else {
+        for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+          list.add(curr.getValue());
+        }
+      }
+    }
+
+    return list;
+  }
+
+  /**
+   * Performs the given action on every entry, in the same order as
+   * {@link #values()}. Tree buckets are walked in order.
+   *
+   * @param action the action to perform on each key and value
+   * @throws IllegalArgumentException if action is null
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Cannot perform null action on hashmap.");
+
+    for (int i = 0; i < table.length; i++) {
+      if (trees[i] != null) {
+        for (TreeNode<K, V> node : trees[i].inorder()) {
+          action.accept(node.key, node.value);
+        }
+      } else {
+        for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+          action.accept(curr.getKey(), curr.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Resize the backing table to {@code length}.
+   *
+   * Every bucket is rebuilt as a chain in the new table, and any new chain
+   * that is long enough is treeified again.
+   *
+   * @param length new length of the backing table
+   * @throws IllegalArgumentException if length is non-positive or less than
+   * the number of items in the hash map.
+   */
+  public void resizeBackingTable(int length) {
+    if (length <= 0) throw new IllegalArgumentException("Cannot resize backing table to negative value.");
+    if (length < size) throw new IllegalArgumentException("Cannot shrink backing table.");
+
+    MapEntry<K, V>[] oldTable = table;
+    TreeBin<K, V>[] oldTrees = trees;
+    int[] chainLengths = new int[length];
+    table = (MapEntry<K, V>[]) new MapEntry[length];
+    trees = (TreeBin<K, V>[]) new TreeBin[length];
+
+    for (int i = 0; i < oldTable.length; i++) {
+      if (oldTrees[i] != null) {
+        for (TreeNode<K, V> node : oldTrees[i].inorder()) {
+          int index = indexFor(node.key, length);
+          table[index] = new MapEntry<>(node.key, node.value, table[index]);
+          chainLengths[index]++;
+        }
+      } else {
+        MapEntry<K, V> curr = oldTable[i];
+
+        //Relinks the existing entries
+        while (curr != null) {
+          MapEntry<K, V> next = curr.getNext();
+          int index = indexFor(curr.getKey(), length);
+
+          curr.setNext(table[index]);
+          table[index] = curr;
+          chainLengths[index]++;
+          curr = next;
+        }
+      }
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (chainLengths[i] > TREEIFY_THRESHOLD) treeify(i);
+    }
+  }
+
+  /**
+   * Returns whether the given bucket is currently held as a tree.
+   *
+   * @param index the bucket to check
+   * @return true if the bucket is a tree; false if it is a chain
+   */
+  public boolean isTreeified(int index) {
+    return trees[index] != null;
+  }
+
+  /**
+   * Returns a snapshot of how the entries are spread over the backing
+   * table. A tree bucket counts as a chain of as many entries as the tree
+   * holds, so the expected probes per hit overstate lookups in tree buckets.
+   *
+   * @return the map's stats
+   */
+  public HashMapStats stats() {
+    int[] bucketSizes = new int[table.length];
+
+    for (int i = 0; i < table.length; i++) {
+      if (trees[i] != null) {
+        bucketSizes[i] = trees[i].count;
+      } else {
+        for (MapEntry<K, V> curr = table[i]; curr != null; curr = curr.getNext()) {
+          bucketSizes[i]++;
+        }
+      }
+    }
+
+    return HashMapStats.ofBucketSizes(bucketSizes, size);
+  }
+
+  /**
+   * METHOD FOR TESTING ONLY.
+   *
+   * Treeified buckets hold null in this array; see {@link #isTreeified(int)}.
+   *
+   * @return the backing array of the data structure, not a copy. INCLUDE
+   * EMPTY SPACES
+   */
+  public MapEntry<K, V>[] getTable() {
+    return table;
+  }
+
+  /**
+   * Looks up the value for a key in its chain or tree.
+   *
+   * @param key the key to search for
+   * @return the value for the key, or null if it is not in the map
+   */
+  private V find(K key) {
+    int index = indexFor(key, table.length);
+
+    if (trees[index] != null) {
+      if (!trees[index].accepts(key)) return null;
+
+      TreeNode<K, V> node = trees[index].find(key);
+      return node == null ? null : node.value;
+    }
+
+    for (MapEntry<K, V> curr = table[index]; curr != null; curr = curr.getNext()) {
+      if (curr.getKey().equals(key)) return curr.getValue();
+    }
+
+    return null;
+  }
+
+  /**
+   * Converts the chain in a bucket into a tree, if the table is large enough
+   * and every key in the chain is Comparable and of the same class.
+   *
+   * @param index the bucket to convert
+   */
+  private void treeify(int index) {
+    if (table.length < MIN_TREEIFY_CAPACITY) return;
+
+    Class<?> keyClass = table[index].getKey().getClass();
+    if (!Comparable.class.isAssignableFrom(keyClass)) return;
+
+    for (MapEntry<K, V> curr = table[index]; curr != null; curr = curr.getNext()) {
+      if (curr.getKey().getClass() != keyClass) return;
+    }
+
+    TreeBin<K, V> bin = new TreeBin<>(keyClass);
+
+    for (MapEntry<K, V> curr = table[index]; curr != null; curr = curr.getNext()) {
+      bin.put(curr.getKey(), curr.getValue(), null);
+    }
+
+    trees[index] = bin;
+    table[index] = null;
+  }
+
+  /**
+   * Converts the tree in a bucket back into a chain.
+   *
+   * @param index the bucket to convert
+   */
+  private void untreeify(int index) {
+    MapEntry<K, V> chain = null;
+
+    for (TreeNode<K, V> node : trees[index].inorder()) {
+      chain = new MapEntry<>(node.key, node.value, chain);
+    }
+
+    table[index] = chain;
+    trees[index] = null;
+  }
+
+  /**
+   * Computes the bucket of a key for a table of the given length.
+   *
+   * @param key the key to hash
+   * @param length the length of the table
+   * @return the bucket index of the key
+   */
+  private static int indexFor(Object key, int length) {
+    return (key.hashCode() & 0x7FFFFFFF) % length;
+  }
+
+  /**
+   * A bucket held as an AVL tree ordered by hash code and then by
+   * {@code compareTo}. Every key in the tree is of the same class.
+   */
+  private static class TreeBin<K, V> {
+    private final Class<?> keyClass;
+    private TreeNode<K, V> root;
+    private int count;
+
+    TreeBin(Class<?> keyClass) {
+      this.keyClass = keyClass;
+    }
+
+    /**
+     * Whether a key can be ordered against the keys in this tree.
+     */
+    boolean accepts(Object key) {
+      return key.getClass() == keyClass;
+    }
+
+    /**
+     * Adds or replaces a mapping, updating the owning map's size when an
+     * entry is added.
+     */
+    V put(K key, V value, TreeifiedHashMap<K, V> owner) {
+      TreeNode<K, V> existing = find(key);
+
+      if (existing != null) {
+        V oldVal = existing.value;
+        existing.value = value;
+        return oldVal;
+      }
+
+      root = insert(root, new TreeNode<>(key, value));
+      count++;
+      if (owner != null) owner.size++;
+      return null;
+    }
+
+    TreeNode<K, V> find(K key) {
+      int hash = key.hashCode();
+      TreeNode<K, V> curr = root;
+
+      while (curr != null) {
+        int cmp = compare(hash, key, curr);
+
+        if (cmp == 0) return curr;
+
+        curr = cmp < 0 ? curr.left : curr.right;
+      }
+
+      return null;
+    }
+
+    /**
+     * Removes the node for a key.
+     *
+     * @return the removed node, or null if the key is not in the tree
+     */
+    TreeNode<K, V> remove(K key) {
+      TreeNode<K, V> node = find(key);
+      if (node == null) return null;
+
+      root = delete(root, node);
+      count--;
+      return node;
+    }
+
+    List<TreeNode<K, V>> inorder() {
+      List<TreeNode<K, V>> list = new LinkedList<>();
+      inorderHelper(root, list);
+      return list;
+    }
+
+    private void inorderHelper(TreeNode<K, V> node, List<TreeNode<K, V>> list) {
+      if (node != null) {
+        inorderHelper(node.left, list);
+        list.add(node);
+        inorderHelper(node.right, list);
+      }
+    }
+
+    private TreeNode<K, V> insert(TreeNode<K, V> parent, TreeNode<K, V> node) {
+      if (parent == null) return node; //Base case: insert node
+
+      if (compare(node.hash, node.key, parent) < 0) {
+        parent.left = insert(parent.left, node);
+      } else {
+        parent.right = insert(parent.right, node);
+      }
+
+      return rebalance(parent);
+    }
+
+    private TreeNode<K, V> delete(TreeNode<K, V> parent, TreeNode<K, V> node) {
+      if (parent == node) { //Match -> remove
+        if (parent.left == null) return parent.right;
+        if (parent.right == null) return parent.left;
+
+        //Both children -> replace with predecessor
+        TreeNode<K, V> pred = parent.left;
+
+        while (pred.right != null) {
+          pred = pred.right;
+        }
+
+        pred.left = delete(parent.left, pred);
+        pred.right = parent.right;
+        return rebalance(pred);
+      }
+
+      if (compare(node.hash, node.key, parent) < 0) {
+        parent.left = delete(parent.left, node);
+      } else {
+        parent.right = delete(parent.right, node);
+      }
+
+      return rebalance(parent);
+    }
+
+    private int compare(int hash, K key, TreeNode<K, V> node) {
+      if (hash != node.hash) return hash < node.hash ? -1 : 1;
+
+      return ((Comparable<Object>) key).compareTo(node.key);
+    }
+
+    private TreeNode<K, V> rebalance(TreeNode<K, V> node) {
+      updateHeight(node);
+      int balance = height(node.left) - height(node.right);
+
+      if (balance > 1) { //Left subtree bigger
+        if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left); //LR
+        return rotateRight(node);
+      } else if (balance < -1) { //Right subtree bigger
+        if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right); //RL
+        return rotateLeft(node);
+      }
+
+      return node;
+    }
+
+    private TreeNode<K, V> rotateRight(TreeNode<K, V> parent) {
+      TreeNode<K, V> left = parent.left;
+      parent.left = left.right;
+      left.right = parent;
+      updateHeight(parent);
+      updateHeight(left);
+      return left;
+    }
+
+    private TreeNode<K, V> rotateLeft(TreeNode<K, V> parent) {
+      TreeNode<K, V> right = parent.right;
+      parent.right = right.left;
+      right.left = parent;
+      updateHeight(parent);
+      updateHeight(right);
+      return right;
+    }
+
+    private static int height(TreeNode<?, ?> node) {
+      return node == null ? -1 : node.height;
+    }
+
+    private static void updateHeight(TreeNode<?, ?> node) {
+      node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+  }
+
+  /**
+   * A node in a treeified bucket.
+   */
+  private static class TreeNode<K, V> {
+    final K key;
+    final int hash;
+    V value;
+    TreeNode<K, V> left;
+    TreeNode<K, V> right;
+    int height;
+
+    TreeNode(K key, V value) {
+      this.key = key;
+      this.hash = key.hashCode();
+      this.value = value;
+    }
+  }
+}
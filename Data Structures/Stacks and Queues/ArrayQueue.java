@@ -1,11 +1,17 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of an circular array-backed queue.
  *
  * @author Mikayla Crawford
  */
-public class ArrayQueue<T> implements QueueInterface<T> {
+public class ArrayQueue<T> implements QueueInterface<T>, Iterable<T> {
   private T[] backingArray;
   private int front;
   private int back;
@@ -36,7 +42,7 @@ public class ArrayQueue<T> implements QueueInterface<T> {
 
     backingArray[front] = null; //Resets the value
     size--; //Decreases size
-    front = (front == size ? 0 : (size == 0 ? front : front + 1)); //Updates front
+    front = (front == backingArray.length - 1 ? 0 : front + 1); //Moves front around
 
     return oldFront;
   }
@@ -70,8 +76,7 @@ public class ArrayQueue<T> implements QueueInterface<T> {
       front = 0; //Resets front
       back = size; //Updates back
     } else { //Add element normally
-      if (back == backingArray.length - 1) back = -1; //Move back around
-      if (size != 0) back++; //Increases back
+      back = (front + size) % backingArray.length; //Slot after the last element
       backingArray[back] = data; //Adds newest data
     }
 
@@ -100,6 +105,53 @@ public class ArrayQueue<T> implements QueueInterface<T> {
     return size;
   }
 
+  /**
+   * Returns an iterator over the elements of the queue, from front to back,
+   * without removing them.
+   *
+   * @return an iterator over the elements of the queue
+   */
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private final int expectedSize = size;
+      private int index;
+
+      public boolean hasNext() {
+        return index < expectedSize;
+      }
+
+      public T next() {
+        if (size != expectedSize) throw new ConcurrentModificationException();
+        if (!hasNext()) throw new NoSuchElementException("Iterator has no more elements.");
+
+        int slot = front + index++;
+        return backingArray[slot < backingArray.length ? slot : slot - backingArray.length];
+      }
+    };
+  }
+
+  /**
+   * Returns a spliterator over the elements of the queue, in the order
+   * they would be removed. It knows its exact size, and splits by copying
+   * growing batches of elements into arrays.
+   *
+   * @return a spliterator over the elements of the queue
+   */
+  public Spliterator<T> spliterator() {
+    return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL);
+  }
+
+  /**
+   * Returns a stream over the elements of the queue, in the order they
+   * would be removed.
+   *
+   * @param parallel whether the stream should be parallel
+   * @return a stream of the queue's elements
+   */
+  public Stream<T> stream(boolean parallel) {
+    return StreamSupport.stream(spliterator(), parallel);
+  }
+
   /**
    * Returns the backing array of this queue. Used for testing.
    *
@@ -1,11 +1,17 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of an array-backed stack.
  *
  * @author Mikayla Crawford
  */
-public class ArrayStack<T> implements StackInterface<T> {
+public class ArrayStack<T> implements StackInterface<T>, Iterable<T> {
   private T[] backingArray;
   private int size;
 
@@ -84,6 +90,52 @@ public class ArrayStack<T> implements StackInterface<T> {
     return size;
   }
 
+  /**
+   * Returns an iterator over the elements of the stack, from top to bottom,
+   * without removing them.
+   *
+   * @return an iterator over the elements of the stack
+   */
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private final int expectedSize = size;
+      private int index = size - 1;
+
+      public boolean hasNext() {
+        return index >= 0;
+      }
+
+      public T next() {
+        if (size != expectedSize) throw new ConcurrentModificationException();
+        if (!hasNext()) throw new NoSuchElementException("Iterator has no more elements.");
+
+        return backingArray[index--];
+      }
+    };
+  }
+
+  /**
+   * Returns a spliterator over the elements of the stack, in the order
+   * they would be removed. It knows its exact size, and splits by copying
+   * growing batches of elements into arrays.
+   *
+   * @return a spliterator over the elements of the stack
+   */
+  public Spliterator<T> spliterator() {
+    return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL);
+  }
+
+  /**
+   * Returns a stream over the elements of the stack, in the order they
+   * would be removed.
+   *
+   * @param parallel whether the stream should be parallel
+   * @return a stream of the stack's elements
+   */
+  public Stream<T> stream(boolean parallel) {
+    return StreamSupport.stream(spliterator(), parallel);
+  }
+
   /**
    * Returns the backing array of this stack. Used for testing.
    *
@@ -1,11 +1,17 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of a linked stack.
  *
  * @author Mikayla Crawford
  */
-public class LinkedStack<T> implements StackInterface<T> {
+public class LinkedStack<T> implements StackInterface<T>, Iterable<T> {
   private LinkedNode<T> head;
   private int size;
 
@@ -76,6 +82,54 @@ public class LinkedStack<T> implements StackInterface<T> {
     return size;
   }
 
+  /**
+   * Returns an iterator over the elements of the stack, from top to bottom,
+   * without removing them.
+   *
+   * @return an iterator over the elements of the stack
+   */
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private final int expectedSize = size;
+      private LinkedNode<T> next = head;
+
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      public T next() {
+        if (size != expectedSize) throw new ConcurrentModificationException();
+        if (!hasNext()) throw new NoSuchElementException("Iterator has no more elements.");
+
+        T data = next.getData();
+        next = next.getNext();
+        return data;
+      }
+    };
+  }
+
+  /**
+   * Returns a spliterator over the elements of the stack, in the order
+   * they would be removed. It knows its exact size, and splits by copying
+   * growing batches of elements into arrays.
+   *
+   * @return a spliterator over the elements of the stack
+   */
+  public Spliterator<T> spliterator() {
+    return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL);
+  }
+
+  /**
+   * Returns a stream over the elements of the stack, in the order they
+   * would be removed.
+   *
+   * @param parallel whether the stream should be parallel
+   * @return a stream of the stack's elements
+   */
+  public Stream<T> stream(boolean parallel) {
+    return StreamSupport.stream(spliterator(), parallel);
+  }
+
   /**
    * Returns the head of this stack. Used for testing.
    *